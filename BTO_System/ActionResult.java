@@ -0,0 +1,59 @@
+package BTO_System;
+
+/**
+ * Outcome of a domain operation, such as applying for a project or approving an application.
+ * Operations return one of these instead of printing, and the caller decides where the
+ * message goes: a console session, a remote client, a log or nowhere.
+ */
+public final class ActionResult {
+    private final boolean success;
+    private final String message;
+
+    private ActionResult(boolean success, String message) {
+        this.success = success;
+        this.message = message;
+    }
+
+    /**
+     * Creates a result for an operation that was carried out.
+     *
+     * @param message Message describing what was done
+     * @return The successful result
+     */
+    public static ActionResult ok(String message) {
+        return new ActionResult(true, message);
+    }
+
+    /**
+     * Creates a result for an operation that was refused.
+     *
+     * @param message Message explaining why
+     * @return The failed result
+     */
+    public static ActionResult fail(String message) {
+        return new ActionResult(false, message);
+    }
+
+    /**
+     * Checks whether the operation was carried out.
+     *
+     * @return true if it succeeded, false if it was refused
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * Gets the message describing the outcome, for showing to the user.
+     *
+     * @return The message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return message;
+    }
+}
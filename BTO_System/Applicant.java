@@ -7,7 +7,7 @@ package BTO_System;
  */
 class Applicant extends User {
     /** The current application associated with this applicant. */
-    private Application application;
+    private volatile Application application;
 
     /**
      * Constructs a new Applicant with the specified user information.
@@ -24,49 +24,65 @@ class Applicant extends User {
 
     /**
      * Applies for a BTO project with a specified flat type.
-     * If the applicant already has an active application, they cannot apply again.
+     * The applicant must be eligible for the flat type under the {@link Eligibility} rules,
+     * and cannot apply again while they already have an active application.
      *
      * @param project The project to apply for
      * @param flatType The type of flat to apply for
+     * @return The outcome, with the message to show the applicant
      */
-    public void applyForProject(Project project, FlatType flatType) {
-        if (application == null || application.getStatus() == ApplicationStatus.UNSUCCESSFUL) {
-            this.application = new Application(this, project, flatType);
+    public synchronized ActionResult applyForProject(Project project, FlatType flatType) {
+        if (!Eligibility.isEligible(this, flatType)) {
+            return ActionResult.fail(Eligibility.requirement(this));
+        } else if (application == null || application.getStatus() == ApplicationStatus.UNSUCCESSFUL) {
+            Application newApplication = new Application(this, project, flatType);
+            this.application = newApplication;
             project.addApplicant(this);
-            System.out.println("Applied for project: " + project.getProjectName());
+            WriteAheadLog.record(WriteAheadLog.RecordType.APPLY).putInt(newApplication.getApplicationID())
+                    .putString(getNric()).putString(project.getProjectName()).putEnum(flatType).commit();
+            EventBus.DOMAIN.publish(EventBus.Type.APPLICATION_SUBMITTED, newApplication);
+            return ActionResult.ok("Applied for project: " + project.getProjectName());
         } else {
-            System.out.println("You have already applied for a project.");
+            return ActionResult.fail("You have already applied for a project.");
         }
     }
     
     /**
      * Withdraws the current application if possible.
      * Applications that are already booked or approved cannot be withdrawn.
+     *
+     * @return The outcome, with the message to show the applicant
      */
-    public void withdrawApplication() {
+    public synchronized ActionResult withdrawApplication() {
         if (application != null) {
             if (application.getStatus() == ApplicationStatus.BOOKED || application.getStatus() == ApplicationStatus.SUCCESSFUL) {
-                System.out.println("You cannot withdraw an already booked or approved application.");
+                return ActionResult.fail("You cannot withdraw an already booked or approved application.");
             } else if (application.getStatus() == ApplicationStatus.UNSUCCESSFUL) {
-                System.out.println("You have already withdrawn.");
+                return ActionResult.fail("You have already withdrawn.");
             } else {
                 application.updateStatus(ApplicationStatus.UNSUCCESSFUL);
-                System.out.println("Withdrawal request submitted. Waiting for manager approval.");
+                return ActionResult.ok("Withdrawal request submitted. Waiting for manager approval.");
             }
         } else {
-            System.out.println("No application found.");
+            return ActionResult.fail("No application found.");
         }
     }
     
+    /**
+     * Describes the current status of the applicant's application.
+     *
+     * @return The status line to show the applicant
+     */
+    public String describeApplicationStatus() {
+        Application current = application;
+        return current != null ? "Application Status: " + current.getStatus() : "No application found.";
+    }
+
     /**
      * Displays the current status of the applicant's application.
      */
     public void viewApplicationStatus() {
-        if (application != null) {
-            System.out.println("Application Status: " + application.getStatus());
-        } else {
-            System.out.println("No application found.");
-        }
+        System.out.println(describeApplicationStatus());
     }
 
     /**
@@ -6,8 +6,8 @@ package BTO_System;
  * The application tracks its status through the application lifecycle.
  */
 class Application {
-    /** Counter for generating unique application IDs */
-    private static int idCounter = 1;
+    /** Allocator for unique application IDs, safe to use from concurrent sessions */
+    private static final IdAllocator idAllocator = IdAllocator.APPLICATIONS;
     
     /** Unique identifier for this application */
     private int applicationID;
@@ -19,10 +19,10 @@ class Application {
     private Project project;
     
     /** The current status of this application */
-    private ApplicationStatus status;
+    private volatile ApplicationStatus status;
     
     /** The type of flat chosen by the applicant */
-    private FlatType flatTypeChosen;
+    private volatile FlatType flatTypeChosen;
 
     /**
      * Constructs a new Application with the specified details.
@@ -33,20 +33,62 @@ class Application {
      * @param flatTypeChosen The type of flat chosen by the applicant
      */
     public Application(Applicant applicant, Project project, FlatType flatTypeChosen) {
-        this.applicationID = idCounter++;
+        this.applicationID = idAllocator.next();
         this.applicant = applicant;
         this.project = project;
         this.status = ApplicationStatus.PENDING;
         this.flatTypeChosen = flatTypeChosen;
+        project.indexApplication(this);
+    }
+
+    /**
+     * Reconstructs an application with a previously assigned ID, for example when replaying the log.
+     * The ID allocator is moved past the restored ID so new applications never reuse it.
+     *
+     * @param applicationID The ID originally assigned to the application
+     * @param applicant The applicant who submitted the application
+     * @param project The project applied for
+     * @param flatTypeChosen The type of flat chosen by the applicant
+     */
+    Application(int applicationID, Applicant applicant, Project project, FlatType flatTypeChosen) {
+        this.applicationID = applicationID;
+        idAllocator.ensureNext(applicationID + 1);
+        this.applicant = applicant;
+        this.project = project;
+        this.status = ApplicationStatus.PENDING;
+        this.flatTypeChosen = flatTypeChosen;
+        project.indexApplication(this);
     }
 
     /**
      * Updates the status of this application.
+     * The owning project's application index is updated to match.
      *
      * @param newStatus The new status to set for this application
      */
-    public void updateStatus(ApplicationStatus newStatus) {
+    public synchronized void updateStatus(ApplicationStatus newStatus) {
+        ApplicationStatus oldStatus = this.status;
         this.status = newStatus;
+        if (oldStatus != newStatus) {
+            project.reindexStatus(this, oldStatus);
+        }
+        WriteAheadLog.record(WriteAheadLog.RecordType.STATUS).putInt(applicationID).putEnum(newStatus).commit();
+    }
+
+    /**
+     * Settles a pending application with a ballot outcome. Unlike {@link #updateStatus}, this neither
+     * logs the change nor moves the application between the project's status buckets; the ballot
+     * logs its outcome as a whole and then calls {@link Project#reindexDecided(Collection)}.
+     *
+     * @param outcome The status the ballot gave the application
+     * @return true if the application was pending and now has the outcome, false if it had already left PENDING
+     */
+    synchronized boolean decide(ApplicationStatus outcome) {
+        if (status != ApplicationStatus.PENDING) {
+            return false;
+        }
+        status = outcome;
+        return true;
     }
 
     /**
@@ -85,6 +127,24 @@ class Application {
         return project;
     }
 
+    /**
+     * Gets the ID that will be assigned to the next new application.
+     *
+     * @return The next application ID
+     */
+    static int peekNextID() {
+        return idAllocator.peekNext();
+    }
+
+    /**
+     * Moves the ID allocator forward so that new applications are assigned IDs of at least the given value.
+     *
+     * @param nextID The lowest ID that may be assigned next
+     */
+    static void ensureNextID(int nextID) {
+        idAllocator.ensureNext(nextID);
+    }
+
     /**
      * Gets the unique identifier for this application.
      *
@@ -99,7 +159,12 @@ class Application {
      *
      * @param flatTypeChosen The new flat type to set
      */
-    public void setFlatTypeChosen(FlatType flatTypeChosen) {
+    public synchronized void setFlatTypeChosen(FlatType flatTypeChosen) {
+        FlatType oldFlatType = this.flatTypeChosen;
         this.flatTypeChosen = flatTypeChosen;
+        if (oldFlatType != flatTypeChosen) {
+            project.reindexFlatType(this, oldFlatType);
+        }
+        WriteAheadLog.record(WriteAheadLog.RecordType.FLAT_TYPE).putInt(applicationID).putEnum(flatTypeChosen).commit();
     }
 }
\ No newline at end of file
@@ -0,0 +1,346 @@
+package BTO_System;
+
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computer ballot that decides all pending applications of a closed project at once.
+ *
+ * <p>The pending applications for each flat type are put in a random order and the first ones,
+ * up to the number of units left, become SUCCESSFUL. The rest become UNSUCCESSFUL. If one of the
+ * first ones was withdrawn while the ballot ran, its place goes to the next application in the
+ * draw order rather than back to the free units. The order comes from a seeded hash of each
+ * application ID, not from a shared random number generator, so it depends only on the seed and
+ * the set of applications. Anyone holding the seed and the
+ * list of applications can recompute the draw with {@link #drawKey(long, FlatType, int)} and
+ * check the published result, and the order is the same however many threads run the ballot.
+ * The rare applications whose draw keys collide are ordered by application ID.</p>
+ *
+ * <p>Computing the keys, sorting them and applying the outcomes are split across the common
+ * fork-join pool. The outcome is written to the {@link WriteAheadLog} as one record holding the
+ * draw order and the number of successful places for each flat type, instead of one record per
+ * application, so a ballot of a million applications waits for a single disk flush.</p>
+ */
+class BallotEngine {
+    /** Below this many applications a task does its share of the work without splitting further */
+    private static final int SEQUENTIAL_THRESHOLD = 8192;
+
+    /**
+     * Outcome of a ballot.
+     */
+    static final class Result {
+        private final Project project;
+        private final long seed;
+        private final Map<FlatType, Application[]> ranked;
+        private final Map<FlatType, Integer> successful;
+        private final long elapsedNanos;
+
+        Result(Project project, long seed, Map<FlatType, Application[]> ranked,
+               Map<FlatType, Integer> successful, long elapsedNanos) {
+            this.project = project;
+            this.seed = seed;
+            this.ranked = ranked;
+            this.successful = successful;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Gets the seed the ballot was drawn with.
+         *
+         * @return The seed
+         */
+        public long getSeed() {
+            return seed;
+        }
+
+        /**
+         * Gets the balloted applications for a flat type in draw order. The first
+         * {@link #getSuccessful(FlatType)} of them were successful.
+         *
+         * @param flatType The flat type
+         * @return The applications in draw order, empty if there were none
+         */
+        public List<Application> getRanked(FlatType flatType) {
+            Application[] order = ranked.get(flatType);
+            return order == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(order));
+        }
+
+        /**
+         * Gets how far down the draw order places were offered for a flat type. An application
+         * withdrawn while the ballot ran keeps its position in the draw but stays withdrawn, and
+         * its place passes to the next application in draw order, so this can exceed the number
+         * of units.
+         *
+         * @param flatType The flat type
+         * @return The number of leading applications in draw order that were offered a place
+         */
+        public int getSuccessful(FlatType flatType) {
+            return successful.getOrDefault(flatType, 0);
+        }
+
+        /**
+         * Writes the full draw to a CSV file so the result can be published and checked.
+         * Each line gives the flat type, draw position, application ID, applicant NRIC and outcome.
+         *
+         * @param file The file to write
+         * @throws IOException if the file cannot be written
+         */
+        public void writeAudit(Path file) throws IOException {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                out.write("# project=" + project.getProjectName() + " seed=" + seed);
+                out.newLine();
+                out.write("flat_type,rank,application_id,nric,outcome");
+                out.newLine();
+                for (Map.Entry<FlatType, Application[]> entry : ranked.entrySet()) {
+                    Application[] order = entry.getValue();
+                    int winners = getSuccessful(entry.getKey());
+                    for (int i = 0; i < order.length; i++) {
+                        // Within the offered places only a withdrawal leaves an application unsuccessful
+                        String outcome = i >= winners ? "UNSUCCESSFUL"
+                                : order[i].getStatus() == ApplicationStatus.UNSUCCESSFUL ? "WITHDRAWN" : "SUCCESSFUL";
+                        out.write(entry.getKey() + "," + (i + 1) + "," + order[i].getApplicationID() + ","
+                                + order[i].getApplicant().getNric() + "," + outcome);
+                        out.newLine();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Ballot for ").append(project.getProjectName())
+                    .append(" (seed ").append(seed).append("):");
+            int total = 0;
+            for (Map.Entry<FlatType, Application[]> entry : ranked.entrySet()) {
+                sb.append(' ').append(entry.getKey()).append(' ').append(getSuccessful(entry.getKey()))
+                        .append('/').append(entry.getValue().length);
+                total += entry.getValue().length;
+            }
+            return sb.append(String.format(" successful, %d applications in %.2fs", total, elapsedNanos / 1e9)).toString();
+        }
+    }
+
+    /**
+     * Runs the ballot for every flat type of a project whose application period has closed.
+     *
+     * @param project The project to ballot
+     * @param seed    The seed for the draw; publish it so the result can be checked
+     * @return The outcome of the ballot
+     * @throws IllegalStateException if the project is still open for applications
+     */
+    public static Result run(Project project, long seed) {
+        if (project.getClosingDate().after(new Date())) {
+            throw new IllegalStateException("Applications for " + project.getProjectName()
+                    + " are open until " + project.getClosingDate() + ".");
+        }
+        long start = System.nanoTime();
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        Map<FlatType, Application[]> ranked = new EnumMap<>(FlatType.class);
+        Map<FlatType, Integer> successful = new EnumMap<>(FlatType.class);
+        List<Application> decided = new ArrayList<>();
+        WriteAheadLog.Record record = WriteAheadLog.record(WriteAheadLog.RecordType.BALLOT)
+                .putString(project.getProjectName()).putLong(seed).putInt(project.getFlatTypes().size());
+
+        for (FlatType type : project.getFlatTypes()) {
+            List<Application> pending = new ArrayList<>();
+            for (Application app : project.getApplications(type)) {
+                if (app.getStatus() == ApplicationStatus.PENDING) {
+                    pending.add(app);
+                }
+            }
+            Application[] order = draw(pending, seed, type);
+            int places = project.reserveUnits(type, order.length);
+            // Offer the places down the draw order. A winner withdrawn while the ballot ran cannot
+            // take its place, so it passes to the next applications in order until none are left.
+            int winners = 0;
+            while (places > 0 && winners < order.length) {
+                int end = Math.min(order.length, winners + places);
+                AtomicInteger passed = new AtomicInteger();
+                pool.invoke(new DecideTask(order, ApplicationStatus.SUCCESSFUL, passed, winners, end));
+                places = passed.get();
+                winners = end;
+            }
+            pool.invoke(new DecideTask(order, ApplicationStatus.UNSUCCESSFUL, new AtomicInteger(), winners, order.length));
+            // Only places left once the draw order ran out go back to the free units
+            project.release(type, places);
+
+            record.putEnum(type).putInt(order.length).putInt(winners);
+            for (Application app : order) {
+                record.putInt(app.getApplicationID());
+                if (app.getStatus() != ApplicationStatus.PENDING) {
+                    decided.add(app);
+                }
+            }
+            ranked.put(type, order);
+            successful.put(type, winners);
+        }
+        project.reindexDecided(decided);
+        record.commit();
+        return new Result(project, seed, ranked, successful, System.nanoTime() - start);
+    }
+
+    /**
+     * Puts applications in draw order without changing them. Gives the same order for the same
+     * seed, flat type and set of applications, whatever order the applications are passed in.
+     *
+     * @param applications The applications to draw
+     * @param seed         The ballot seed
+     * @param flatType     The flat type being balloted
+     * @return The applications in draw order
+     */
+    static Application[] draw(Collection<Application> applications, long seed, FlatType flatType) {
+        Application[] candidates = applications.toArray(new Application[0]);
+        Arrays.parallelSort(candidates, Comparator.comparingInt(Application::getApplicationID));
+
+        // One sortable key per candidate: the hash in the high bits and the candidate's index in the low bits
+        int indexBits = 64 - Long.numberOfLeadingZeros(Math.max(1, candidates.length));
+        long[] keys = new long[candidates.length];
+        ForkJoinPool.commonPool().invoke(new KeyTask(candidates, keys, seed, flatType, indexBits, 0, candidates.length));
+        Arrays.parallelSort(keys);
+        Application[] order = new Application[candidates.length];
+        long indexMask = (1L << indexBits) - 1;
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = candidates[(int) (keys[i] & indexMask)];
+        }
+        return order;
+    }
+
+    /**
+     * Replays a logged ballot: the first {@code winners} of each logged draw order become SUCCESSFUL
+     * and the rest UNSUCCESSFUL. Unit counts are restored separately from their own records.
+     *
+     * @param in           The record payload after the project name
+     * @param applications Applications by ID
+     * @throws IOException if the record is truncated
+     */
+    static void replay(DataInputStream in, Map<Integer, Application> applications) throws IOException {
+        in.readLong();
+        int types = in.readInt();
+        for (int t = 0; t < types; t++) {
+            in.readInt();
+            int count = in.readInt();
+            int winners = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Application app = applications.get(in.readInt());
+                if (app != null && app.getStatus() == ApplicationStatus.PENDING) {
+                    app.updateStatus(i < winners ? ApplicationStatus.SUCCESSFUL : ApplicationStatus.UNSUCCESSFUL);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the draw key for an application: a well-mixed 64-bit hash of the seed, flat type
+     * and application ID. Applications are drawn in increasing order of the key's top bits
+     * treated as an unsigned number.
+     *
+     * @param seed          The ballot seed
+     * @param flatType      The flat type being balloted
+     * @param applicationID The application
+     * @return The draw key
+     */
+    static long drawKey(long seed, FlatType flatType, int applicationID) {
+        long input = ((long) flatType.ordinal() << 32) | (applicationID & 0xFFFFFFFFL);
+        long z = seed + 0x9E3779B97F4A7C15L * (input + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Fills in the sortable keys for a range of candidates.
+     */
+    private static final class KeyTask extends RecursiveAction {
+        // Fork-join tasks are serializable by inheritance but are never serialized here
+        private static final long serialVersionUID = 1L;
+
+        private final Application[] candidates;
+        private final long[] keys;
+        private final long seed;
+        private final FlatType type;
+        private final int indexBits;
+        private final int from;
+        private final int to;
+
+        KeyTask(Application[] candidates, long[] keys, long seed, FlatType type, int indexBits, int from, int to) {
+            this.candidates = candidates;
+            this.keys = keys;
+            this.seed = seed;
+            this.type = type;
+            this.indexBits = indexBits;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    // Shifting right by one more bit keeps the key positive, so a signed sort gives the unsigned draw order
+                    long hash = drawKey(seed, type, candidates[i].getApplicationID()) >>> (indexBits + 1);
+                    keys[i] = (hash << indexBits) | i;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new KeyTask(candidates, keys, seed, type, indexBits, from, mid),
+                    new KeyTask(candidates, keys, seed, type, indexBits, mid, to));
+        }
+    }
+
+    /**
+     * Gives one outcome to a range of applications in draw order, counting those no longer pending.
+     */
+    private static final class DecideTask extends RecursiveAction {
+        // Fork-join tasks are serializable by inheritance but are never serialized here
+        private static final long serialVersionUID = 1L;
+
+        private final Application[] order;
+        private final ApplicationStatus outcome;
+        private final AtomicInteger skipped;
+        private final int from;
+        private final int to;
+
+        DecideTask(Application[] order, ApplicationStatus outcome, AtomicInteger skipped, int from, int to) {
+            this.order = order;
+            this.outcome = outcome;
+            this.skipped = skipped;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                int notPending = 0;
+                EventBus.Type event = outcome == ApplicationStatus.SUCCESSFUL
+                        ? EventBus.Type.APPLICATION_APPROVED : EventBus.Type.APPLICATION_REJECTED;
+                for (int i = from; i < to; i++) {
+                    if (order[i].decide(outcome)) {
+                        EventBus.DOMAIN.publish(event, order[i]);
+                    } else {
+                        notPending++;
+                    }
+                }
+                if (notPending > 0) {
+                    skipped.addAndGet(notPending);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new DecideTask(order, outcome, skipped, from, mid),
+                    new DecideTask(order, outcome, skipped, mid, to));
+        }
+    }
+}
@@ -0,0 +1,620 @@
+package BTO_System;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Micro-benchmark harness for the system's hot paths.
+ *
+ * <p>Each benchmark runs against synthetic datasets of increasing size. It is warmed up
+ * first so the JIT has compiled it, then timed over repeated batches, and the result is
+ * reported in nanoseconds and operations per second. Results can be saved as a CSV baseline
+ * and compared against an earlier baseline to spot regressions between releases.</p>
+ *
+ * <p>Most benchmarks run on one thread. Those registered with a thread count run on that many
+ * threads at once and report the wall-clock time per operation across all of them.</p>
+ *
+ * <p>Usage: {@code java BTO_System.Benchmark [--sizes 1000,10000,100000] [--only name,...]
+ * [--out report.csv] [--baseline previous.csv]}. Sizes up to 10^7 users are supported
+ * given enough heap (roughly 2 GB per million users).</p>
+ *
+ * <p>The same benchmarks are also run under JMH by the {@code jmh} Gradle task, which gives
+ * forked, statistically summarised results; this harness stays for quick runs and baselines.</p>
+ *
+ * <p>{@code java BTO_System.Benchmark --check} instead runs the concurrency checks, such as
+ * {@link #checkReserveRace}, and exits with status 1 if any of them fails.</p>
+ */
+class Benchmark {
+    /** Default dataset sizes, in number of users */
+    private static final int[] DEFAULT_SIZES = {1_000, 10_000, 100_000};
+
+    /** Time spent warming up each benchmark before measuring */
+    private static final long WARMUP_NANOS = 500_000_000L;
+
+    /** Time spent measuring each benchmark */
+    private static final long MEASURE_NANOS = 1_000_000_000L;
+
+    /** Results are folded into this field so the JIT cannot eliminate the measured work */
+    private static volatile long sink;
+
+    /** Benchmarks by name, in the order they are run */
+    private static final Map<String, Function<Dataset, IntToLongFunction>> BENCHMARKS = new LinkedHashMap<>();
+
+    /** Number of threads running each benchmark at once, for those not run on a single thread */
+    private static final Map<String, Integer> THREADS = new HashMap<>();
+
+    static {
+        // One login hashes the password once at the configured cost; run alone, this gives logins per second per core
+        BENCHMARKS.put("login", d -> i -> {
+            User u = d.users.login(d.nric(i), "password");
+            return u == null ? 0 : 1;
+        });
+        BENCHMARKS.put("login8Threads", BENCHMARKS.get("login"));
+        THREADS.put("login8Threads", 8);
+        BENCHMARKS.put("sessionResume", d -> {
+            SessionTokens tokens = new SessionTokens(100_000, Long.MAX_VALUE);
+            String[] issued = new String[1024];
+            for (int k = 0; k < issued.length; k++) {
+                issued[k] = tokens.issue(d.applicant(k)).getValue();
+            }
+            return i -> tokens.resume(issued[i & (issued.length - 1)]) == null ? 0 : 1;
+        });
+        BENCHMARKS.put("sessionResume8Threads", BENCHMARKS.get("sessionResume"));
+        THREADS.put("sessionResume8Threads", 8);
+        BENCHMARKS.put("filterProjectList", d -> i ->
+                Project.filterProjectList(d.projects, d.neighborhood(i), FlatType.TWOROOM, true).size());
+        BENCHMARKS.put("eligibleProjects", d -> i -> d.projects.getEligibleProjects(d.applicant(i)).size());
+        BENCHMARKS.put("eligibleProjects8Threads", BENCHMARKS.get("eligibleProjects"));
+        THREADS.put("eligibleProjects8Threads", 8);
+        // Two catalog writes: each publishes a new version, and the second restores the visibility
+        BENCHMARKS.put("catalogVisibilityToggle", d -> i -> {
+            Project p = d.project(i);
+            boolean visible = p.isVisible();
+            p.setVisibility(!visible);
+            p.setVisibility(visible);
+            return d.projects.current().getNumber();
+        });
+        BENCHMARKS.put("findProjectByNameAndManager", d -> i -> {
+            Project p = d.project(i);
+            return Project.findProjectByNameAndManager(p.getProjectName(), p.getManagerInCharge(), d.projects) == null ? 0 : 1;
+        });
+        BENCHMARKS.put("projectNameComplete", d -> i -> d.projects.completeName("project " + (i % 10), 10).size());
+        BENCHMARKS.put("approvalScan", d -> i -> d.project(i).getApplications(ApplicationStatus.PENDING).size());
+        BENCHMARKS.put("myEnquiries", d -> i -> d.applicant(i).findMyEnquiries(d.projects).size());
+        BENCHMARKS.put("enquirySearch", d -> i -> d.projects.getEnquiryIndex().search(d.query(i), null, 10).size());
+        BENCHMARKS.put("enquiryClaim", d -> {
+            EnquiryQueue queue = new EnquiryQueue();
+            for (Project p : d.projects) {
+                p.getEnquiries().forEach(queue::offer);
+            }
+            ThreadLocal<HDBOfficer> officer = ThreadLocal.withInitial(
+                    () -> new HDBOfficer("T0000000X", "password", 30, MaritalStatus.SINGLE));
+            Set<Enquiry> none = Collections.emptySet();
+            return i -> {
+                // Claim and complete an enquiry, then queue it again so the queue stays the same size
+                Enquiry e = queue.claim(officer.get(), none);
+                if (e == null) {
+                    return 0;
+                }
+                queue.remove(e);
+                queue.offer(e);
+                return 1;
+            };
+        });
+        BENCHMARKS.put("enquiryClaim8Threads", BENCHMARKS.get("enquiryClaim"));
+        THREADS.put("enquiryClaim8Threads", 8);
+        BENCHMARKS.put("generateReceipt", d -> i -> {
+            Receipt r = d.officer.generateReceipt(d.booked.get(i % d.booked.size()));
+            return r == null ? 0 : 1;
+        });
+        BENCHMARKS.put("idAllocate", d -> {
+            IdAllocator ids = new IdAllocator("benchmark", IdAllocator.DEFAULT_BLOCK_SIZE);
+            return i -> ids.next();
+        });
+        BENCHMARKS.put("idAllocate64Threads", BENCHMARKS.get("idAllocate"));
+        THREADS.put("idAllocate64Threads", 64);
+        BENCHMARKS.put("renderReceipt", d -> {
+            Date issued = new Date();
+            return i -> new Receipt(d.booked.get(i % d.booked.size()), issued).render().length();
+        });
+        BENCHMARKS.put("listEnquiriesPrintln", d -> {
+            PrintStream out = new PrintStream(OutputStream.nullOutputStream(), true, StandardCharsets.UTF_8);
+            return i -> {
+                List<Enquiry> enquiries = d.project(i).getEnquiries();
+                for (Enquiry e : enquiries) {
+                    printlnEnquiry(out, e);
+                }
+                return enquiries.size();
+            };
+        });
+        BENCHMARKS.put("listEnquiriesRendered", d -> {
+            Session session = new Session(InputStream.nullInputStream(), OutputStream.nullOutputStream(), null);
+            return i -> {
+                List<Enquiry> enquiries = d.project(i).getEnquiries();
+                for (Enquiry e : enquiries) {
+                    session.write(e);
+                }
+                return enquiries.size();
+            };
+        });
+        BENCHMARKS.put("listProjectsPrintln", d -> {
+            PrintStream out = new PrintStream(OutputStream.nullOutputStream(), true, StandardCharsets.UTF_8);
+            return i -> {
+                for (Project p : d.projects) {
+                    printlnProject(out, p);
+                }
+                return d.projects.size();
+            };
+        });
+        BENCHMARKS.put("listProjectsRendered", d -> {
+            Session session = new Session(InputStream.nullInputStream(), OutputStream.nullOutputStream(), null);
+            return i -> {
+                for (Project p : d.projects) {
+                    session.write(p);
+                }
+                return d.projects.size();
+            };
+        });
+        BENCHMARKS.put("eventPublish", d -> {
+            // A fresh bus per dataset with one subscriber that counts events, as a counter or log would
+            EventBus bus = new EventBus("benchmark", EventBus.DEFAULT_CAPACITY);
+            long[] seen = new long[1];
+            bus.subscribe("counter", (event, sequence, endOfBatch) -> seen[0]++);
+            return i -> {
+                Application app = d.booked.get(i % d.booked.size());
+                bus.publish(EventBus.Type.FLAT_BOOKED, app);
+                return 1;
+            };
+        });
+        BENCHMARKS.put("eventPublish8Threads", BENCHMARKS.get("eventPublish"));
+        THREADS.put("eventPublish8Threads", 8);
+        BENCHMARKS.put("ballotDraw", d -> i ->
+                BallotEngine.draw(d.project(i).getApplications(FlatType.TWOROOM), i, FlatType.TWOROOM).length);
+        BENCHMARKS.put("reportAllProjects", d -> i -> ReportEngine.count(d.projects, null, null).size());
+        BENCHMARKS.put("reportAllProjectsConsistent", d -> i -> ReportEngine.countConsistent(d.projects, null, null).size());
+        // One screen of a listing, starting part way through it as a later page would
+        BENCHMARKS.put("projectPage", d -> i -> {
+            Project after = d.project(i);
+            return d.projects.pageProjects(after.getCatalogId() + ":" + after.getProjectName(), 20, null).getItems().size();
+        });
+        BENCHMARKS.put("eligiblePage", d -> i -> {
+            Project after = d.project(i);
+            return d.projects.pageEligibleProjects(d.applicant(i), Integer.toString(after.getCatalogId()), 20).getItems().size();
+        });
+        BENCHMARKS.put("applicationPage", d -> i -> {
+            Application after = d.applicant(i).getApplication();
+            String cursor = after == null ? null : Integer.toString(after.getApplicationID());
+            return d.projects.pageApplications(cursor, 20, null).getItems().size();
+        });
+        BENCHMARKS.put("oversubscriptionScan", d -> i -> {
+            long pending = 0;
+            for (Application a : d.project(i).getApplications(FlatType.TWOROOM)) {
+                if (a.getStatus() == ApplicationStatus.PENDING) {
+                    pending++;
+                }
+            }
+            return pending / Math.max(1, d.project(i).getUnitsAvailable().getOrDefault(FlatType.TWOROOM, 0));
+        });
+        BENCHMARKS.put("oversubscriptionRatio", d -> i -> (long) d.project(i).getOversubscriptionRatio(FlatType.TWOROOM));
+        BENCHMARKS.put("dateOverlapCheck", d -> i -> {
+            HDBManager manager = d.project(i).getManagerInCharge();
+            return manager.getManagedProjects().hasOverlap(d.project(i + 1)) ? 1 : 0;
+        });
+    }
+
+    /**
+     * Runs the benchmarks and prints a report.
+     *
+     * @param args Command-line options, see the class description
+     * @throws IOException if a report file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        int[] sizes = DEFAULT_SIZES;
+        Set<String> only = null;
+        Path out = null;
+        Path baseline = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--check":
+                    String failure = checkReserveRace(8, 3, 20_000);
+                    System.out.println(failure == null ? "reserveRace: ok" : "reserveRace: FAILED, " + failure);
+                    if (failure != null) {
+                        System.exit(1);
+                    }
+                    return;
+                case "--sizes":
+                    sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--only":
+                    only = new HashSet<>(Arrays.asList(args[++i].split(",")));
+                    break;
+                case "--out":
+                    out = Paths.get(args[++i]);
+                    break;
+                case "--baseline":
+                    baseline = Paths.get(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+
+        Map<String, Double> previous = baseline == null ? Collections.emptyMap() : readReport(baseline);
+        List<String> rows = new ArrayList<>();
+        PrintStream console = System.out;
+        console.printf("%-30s %10s %14s %14s %10s%n", "benchmark", "users", "ns/op", "ops/s", "vs base");
+        for (int size : sizes) {
+            Dataset data = new Dataset(size);
+            for (Map.Entry<String, Function<Dataset, IntToLongFunction>> entry : BENCHMARKS.entrySet()) {
+                if (only != null && !only.contains(entry.getKey())) {
+                    continue;
+                }
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                double nsPerOp;
+                try {
+                    int threads = THREADS.getOrDefault(entry.getKey(), 1);
+                    IntToLongFunction op = entry.getValue().apply(data);
+                    nsPerOp = threads == 1 ? measure(op) : measureParallel(op, threads);
+                } finally {
+                    System.setOut(console);
+                }
+                String key = entry.getKey() + "," + size;
+                Double before = previous.get(key);
+                String change = before == null ? "" : String.format("%+.1f%%", (nsPerOp - before) / before * 100);
+                console.printf("%-30s %10d %14.1f %14.0f %10s%n", entry.getKey(), size, nsPerOp, 1e9 / nsPerOp, change);
+                rows.add(String.format(Locale.ROOT, "%s,%.3f,%.0f", key, nsPerOp, 1e9 / nsPerOp));
+            }
+        }
+        if (out != null) {
+            if (out.getParent() != null) {
+                Files.createDirectories(out.getParent());
+            }
+            List<String> lines = new ArrayList<>();
+            lines.add("benchmark,users,ns_per_op,ops_per_sec");
+            lines.addAll(rows);
+            Files.write(out, lines, StandardCharsets.UTF_8);
+            console.println("Report written to " + out);
+        }
+    }
+
+    /**
+     * Builds the operation of one benchmark over a dataset, for running it under another harness
+     * such as the JMH benchmarks in the {@code jmh} source set.
+     *
+     * @param name The benchmark's name
+     * @param data The dataset to run it against
+     * @return The operation; it is given an increasing iteration number
+     * @throws IllegalArgumentException if there is no benchmark with that name
+     */
+    static IntToLongFunction operation(String name, Dataset data) {
+        Function<Dataset, IntToLongFunction> benchmark = BENCHMARKS.get(name);
+        if (benchmark == null) {
+            throw new IllegalArgumentException("Unknown benchmark: " + name);
+        }
+        return benchmark.apply(data);
+    }
+
+    /**
+     * Warms up and then times an operation.
+     *
+     * @param op The operation to time; it is given an increasing iteration number
+     * @return The mean time per operation in nanoseconds
+     */
+    static double measure(IntToLongFunction op) {
+        int batch = warmUp(op);
+        int i = 0;
+        long acc = 0;
+        long ops = 0;
+        long start = System.nanoTime();
+        long now = start;
+        while (now - start < MEASURE_NANOS) {
+            for (int k = 0; k < batch; k++) {
+                acc += op.applyAsLong(i++);
+            }
+            ops += batch;
+            now = System.nanoTime();
+        }
+        sink += acc;
+        return (double) (now - start) / ops;
+    }
+
+    /**
+     * Runs an operation for the warm-up period and picks how many operations to run between
+     * clock readings: up to 100 for fast operations, fewer for slow ones such as password
+     * hashing, so a batch never takes much longer than 10 ms.
+     *
+     * @param op The operation to warm up
+     * @return The batch size to measure with
+     */
+    private static int warmUp(IntToLongFunction op) {
+        int i = 0;
+        long acc = 0;
+        long end = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < end) {
+            acc += op.applyAsLong(i++);
+        }
+        sink += acc;
+        return (int) Math.max(1, Math.min(100, i / (WARMUP_NANOS / 10_000_000L)));
+    }
+
+    /**
+     * Warms up and then times an operation run by several threads at once.
+     *
+     * @param op      The operation to time; it must be safe to call from several threads
+     * @param threads The number of threads to run it on
+     * @return The mean wall-clock time per operation across all threads, in nanoseconds
+     */
+    static double measureParallel(IntToLongFunction op, int threads) {
+        int batch = warmUp(op);
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long[] deadline = new long[1];
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t << 20;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long acc = 0;
+                int i = offset;
+                while (System.nanoTime() < deadline[0]) {
+                    for (int k = 0; k < batch; k++) {
+                        acc += op.applyAsLong(i++);
+                    }
+                    ops.add(batch);
+                }
+                sink += acc;
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        long begin = System.nanoTime();
+        deadline[0] = begin + MEASURE_NANOS;
+        start.countDown();
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return (double) (System.nanoTime() - begin) / ops.sum();
+    }
+
+    /**
+     * Races threads to reserve the last units of a flat type and checks that none is oversold.
+     *
+     * <p>Each round gives a new project {@code units} units, and all threads start together on a
+     * barrier and keep reserving until none are left. Even threads take one unit at a time with
+     * {@link Project#tryReserve}; odd threads ask {@link Project#reserveUnits} for one to three.
+     * A round passes if exactly {@code units} units were granted, the count ends at zero with one
+     * version per successful call, and no thread ever read a negative count.</p>
+     *
+     * @param threads The number of threads racing
+     * @param units   The units left in each round, fewer than the threads so most calls must fail
+     * @param rounds  The number of rounds
+     * @return A description of the first failed round, or null if every round passed
+     */
+    static String checkReserveRace(int threads, int units, int rounds) {
+        HDBManager manager = new HDBManager("T0000000R", "password", 45, MaritalStatus.MARRIED);
+        Project[] projects = new Project[rounds];
+        for (int r = 0; r < rounds; r++) {
+            projects[r] = new Project("Race " + r, "Yishun", Collections.singletonList(FlatType.TWOROOM),
+                    Collections.singletonMap(FlatType.TWOROOM, units), new Date(), new Date(), manager);
+        }
+        AtomicIntegerArray granted = new AtomicIntegerArray(rounds);
+        AtomicIntegerArray calls = new AtomicIntegerArray(rounds);
+        AtomicBoolean negative = new AtomicBoolean();
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int wanted = t % 2 == 0 ? 0 : 1 + t / 2 % 3;
+            Thread worker = new Thread(() -> {
+                for (int r = 0; r < rounds; r++) {
+                    try {
+                        barrier.await();
+                    } catch (InterruptedException | BrokenBarrierException e) {
+                        return;
+                    }
+                    Project project = projects[r];
+                    while (true) {
+                        int got = wanted == 0 ? (project.tryReserve(FlatType.TWOROOM) ? 1 : 0)
+                                : project.reserveUnits(FlatType.TWOROOM, wanted);
+                        if (Project.unitCount(project.getUnitsState(FlatType.TWOROOM)) < 0) {
+                            negative.set(true);
+                        }
+                        if (got == 0) {
+                            break;
+                        }
+                        granted.addAndGet(r, got);
+                        calls.incrementAndGet(r);
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "interrupted";
+            }
+        }
+        if (negative.get()) {
+            return "a thread read a negative unit count";
+        }
+        for (int r = 0; r < rounds; r++) {
+            long state = projects[r].getUnitsState(FlatType.TWOROOM);
+            if (granted.get(r) != units || Project.unitCount(state) != 0 || Project.unitVersion(state) != calls.get(r)) {
+                return String.format("round %d granted %d of %d units, leaving %d after %d changes",
+                        r, granted.get(r), units, Project.unitCount(state), Project.unitVersion(state));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Prints an enquiry one line at a time to an autoflushing stream, the way sessions showed
+     * listings before output was rendered into a session buffer. Baseline for the rendered listing.
+     */
+    private static void printlnEnquiry(PrintStream out, Enquiry e) {
+        out.println("Enquiry ID: " + e.getEnquiryID());
+        out.println("Submitted By: " + e.getSubmittedBy().getNric());
+        out.println("Project: " + e.getRelatedProject().getProjectName());
+        out.println("Content: " + e.getContent());
+        out.println("Reply: " + (e.getReply() != null ? e.getReply() : "[No reply yet]"));
+    }
+
+    /**
+     * Prints a project one line at a time to an autoflushing stream. Baseline for the rendered listing.
+     */
+    private static void printlnProject(PrintStream out, Project p) {
+        out.println("Project Name: " + p.getProjectName());
+        out.println("Neighborhood: " + p.getNeighborhood());
+        out.println("Flat Types: " + p.getFlatTypes());
+        out.println("Units Available: " + p.getUnitsAvailable());
+        out.println("Opening Date: " + p.getOpeningDate());
+        out.println("Closing Date: " + p.getClosingDate());
+        out.println("Visibility: " + (p.isVisible() ? "Visible" : "Hidden"));
+        out.println("Remaining Officer Slots: " + (p.getOfficerSlots() - p.getOfficersList().size()));
+    }
+
+    private static Map<String, Double> readReport(Path file) throws IOException {
+        Map<String, Double> result = new HashMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] f = line.split(",");
+            if (f.length >= 3 && !f[0].equals("benchmark")) {
+                result.put(f[0] + "," + f[1], Double.parseDouble(f[2]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Synthetic population of users, projects, applications and enquiries.
+     * Built from a fixed seed so that every run measures the same data.
+     */
+    static final class Dataset {
+        private static final String[] NEIGHBORHOODS = {"Yishun", "Tampines", "Punggol", "Jurong West", "Bedok"};
+        private static final String[] WORDS = {"ethnic", "quota", "launch", "date", "price", "grant", "income",
+                "ceiling", "balcony", "lift", "floor", "renovation", "loan", "deposit", "ballot", "priority",
+                "school", "mrt", "parking", "completion"};
+
+        final UserRegistry users = new UserRegistry();
+        final ProjectCatalog projects = new ProjectCatalog();
+        final List<Applicant> applicants = new ArrayList<>();
+        final List<Application> booked = new ArrayList<>();
+        final HDBOfficer officer;
+        private final String[] nrics;
+        private final int[] probe;
+
+        /**
+         * Builds a dataset with about the given number of users.
+         * There is one project per 4,000 users (at least 10) and one manager per five projects.
+         *
+         * @param size The number of applicants to create
+         */
+        Dataset(int size) {
+            Random random = new Random(42);
+            // Hash once and share it, so logins check a real hash without hashing a million passwords here
+            String password = Credentials.hash("password");
+            int projectCount = Math.max(10, size / 4000);
+            List<HDBManager> managers = new ArrayList<>();
+            for (int m = 0; m < Math.max(2, projectCount / 5); m++) {
+                HDBManager manager = new HDBManager(String.format("T%07dM", m), "password", 45, MaritalStatus.MARRIED);
+                manager.restorePassword(password);
+                users.add(manager);
+                managers.add(manager);
+            }
+            officer = new HDBOfficer("T9999999O", "password", 30, MaritalStatus.SINGLE);
+            officer.restorePassword(password);
+            users.add(officer);
+
+            Calendar calendar = Calendar.getInstance();
+            for (int p = 0; p < projectCount; p++) {
+                calendar.set(2020 + p % 10, random.nextInt(12), 1);
+                Date open = calendar.getTime();
+                calendar.add(Calendar.DAY_OF_YEAR, 30 + random.nextInt(60));
+                Map<FlatType, Integer> units = new EnumMap<>(FlatType.class);
+                units.put(FlatType.TWOROOM, 1000);
+                units.put(FlatType.THREEROOM, 1000);
+                Project project = new Project("Project " + p, NEIGHBORHOODS[p % NEIGHBORHOODS.length],
+                        Arrays.asList(FlatType.TWOROOM, FlatType.THREEROOM), units, open, calendar.getTime(),
+                        managers.get(p % managers.size()));
+                project.setVisibility(p % 4 != 0);
+                projects.add(project);
+            }
+
+            nrics = new String[size];
+            for (int a = 0; a < size; a++) {
+                MaritalStatus status = random.nextBoolean() ? MaritalStatus.MARRIED : MaritalStatus.SINGLE;
+                Applicant applicant = new Applicant(String.format("S%07dA", a), "password", 21 + random.nextInt(40), status);
+                applicant.restorePassword(password);
+                users.add(applicant);
+                applicants.add(applicant);
+                nrics[a] = applicant.getNric();
+                Project project = projects.get(random.nextInt(projectCount));
+                if (random.nextInt(10) < 6) {
+                    Application app = new Application(applicant, project, random.nextBoolean() ? FlatType.TWOROOM : FlatType.THREEROOM);
+                    applicant.setApplication(app);
+                    project.addApplicant(applicant);
+                    int outcome = random.nextInt(10);
+                    if (outcome < 2) {
+                        app.updateStatus(ApplicationStatus.BOOKED);
+                        booked.add(app);
+                    } else if (outcome < 4) {
+                        app.updateStatus(ApplicationStatus.SUCCESSFUL);
+                    }
+                }
+                if (random.nextInt(10) == 0) {
+                    StringBuilder content = new StringBuilder("Question");
+                    for (int w = 0; w < 6; w++) {
+                        content.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+                    }
+                    project.addEnquiry(new Enquiry(content.toString(), applicant, project));
+                }
+            }
+
+            probe = new int[1 << 16];
+            for (int k = 0; k < probe.length; k++) {
+                probe[k] = random.nextInt(Integer.MAX_VALUE);
+            }
+        }
+
+        String nric(int i) {
+            return nrics[probe[i & (probe.length - 1)] % nrics.length];
+        }
+
+        Applicant applicant(int i) {
+            return applicants.get(probe[i & (probe.length - 1)] % applicants.size());
+        }
+
+        Project project(int i) {
+            return projects.get(probe[i & (probe.length - 1)] % projects.size());
+        }
+
+        String query(int i) {
+            return WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length];
+        }
+
+        String neighborhood(int i) {
+            return NEIGHBORHOODS[i % NEIGHBORHOODS.length];
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package BTO_System;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Salted password hashing with PBKDF2.
+ *
+ * <p>A stored password is a self-describing string
+ * {@code pbkdf2-sha256$<iterations>$<salt>$<hash>}, with the salt and hash in Base64, so the
+ * iteration count can be raised later without breaking existing accounts. The iteration count is
+ * the cost factor and is set with the {@code bto.pbkdf2Iterations} system property. Hashing is
+ * deliberately slow, so logins run on the {@link LoginExecutor} rather than on session threads
+ * directly.</p>
+ *
+ * <p>Hashing millions of imported users at full cost would take days, so a new account's password
+ * is held in memory as {@code plain$<password>} and {@link #seal sealed} with an interim hash of
+ * {@code bto.pbkdf2InterimIterations} iterations before it can reach a file: on the import's
+ * worker threads, and for anything still plain when a snapshot is written. Plain-text passwords
+ * from older snapshots and logs are sealed the same way. An account hashed with fewer iterations
+ * than configured is re-hashed at full cost the next time its owner logs in.</p>
+ */
+final class Credentials {
+    /**
+     * Iterations for new hashes. HMAC-SHA256 rather than SHA512 because the JDK's SHA-256 is
+     * several times faster per iteration, so the same time budget buys more iterations.
+     */
+    static final int ITERATIONS = Integer.getInteger("bto.pbkdf2Iterations", 310_000);
+
+    /** Iterations for sealing passwords set in bulk, until their owners log in */
+    static final int INTERIM_ITERATIONS = Integer.getInteger("bto.pbkdf2InterimIterations", 1_000);
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final String PLAIN_PREFIX = "plain$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** Salt of the check that stands in for a real one, see {@link #verifyDummy} */
+    private static final byte[] DUMMY_SALT = new byte[SALT_BYTES];
+
+    private Credentials() {
+    }
+
+    /**
+     * Hashes a password with a new random salt.
+     *
+     * @param password The plain-text password
+     * @return The encoded hash, suitable for storing
+     */
+    static String hash(String password) {
+        return hash(password, ITERATIONS);
+    }
+
+    private static String hash(String password, int iterations) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return encode(iterations, salt, derive(password, salt, iterations));
+    }
+
+    /**
+     * Marks a plain-text password, of a new account or from an older snapshot or log, for storing until it can be hashed.
+     *
+     * @param password The plain-text password
+     * @return The stored form of the password
+     */
+    static String legacy(String password) {
+        return PLAIN_PREFIX + password;
+    }
+
+    /**
+     * Replaces a marked plain-text password with a hash of the interim cost, so that it can be
+     * written to a file. The hash is replaced at full cost when the owner next logs in.
+     *
+     * @param stored The stored form of a password
+     * @return The hashed form; the value itself if it is not plain text
+     */
+    static String seal(String stored) {
+        if (!isPlain(stored)) {
+            return stored;
+        }
+        return hash(stored.substring(PLAIN_PREFIX.length()), INTERIM_ITERATIONS);
+    }
+
+    /**
+     * Checks whether a stored value still holds a plain-text password.
+     *
+     * @param stored The stored value
+     * @return true if it has not been hashed yet
+     */
+    static boolean isPlain(String stored) {
+        return stored != null && stored.startsWith(PLAIN_PREFIX);
+    }
+
+    /**
+     * Checks whether a value is already in stored form, either a hash or a marked legacy password.
+     *
+     * @param stored The value
+     * @return true if it can be stored as it is
+     */
+    static boolean isEncoded(String stored) {
+        return stored != null && (stored.startsWith(PREFIX) || stored.startsWith(PLAIN_PREFIX));
+    }
+
+    /**
+     * Checks whether a stored value should be replaced by a fresh hash once the password is known,
+     * because it is plain text or was hashed with fewer iterations than are now configured.
+     *
+     * @param stored The stored value
+     * @return true if it should be re-hashed
+     */
+    static boolean needsRehash(String stored) {
+        if (!stored.startsWith(PREFIX)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        return parts.length != 4 || !parts[1].matches("\\d{1,9}") || Integer.parseInt(parts[1]) < ITERATIONS;
+    }
+
+    /**
+     * Checks a password against a stored value, comparing in constant time.
+     *
+     * @param password The password given at login
+     * @param stored   The stored form of the password
+     * @return true if the password matches
+     */
+    static boolean verify(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        if (stored.startsWith(PLAIN_PREFIX)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.substring(PLAIN_PREFIX.length()).getBytes(StandardCharsets.UTF_8));
+        }
+        if (!stored.startsWith(PREFIX)) {
+            return false;
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(expected, derive(password, salt, iterations));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Spends the effort of checking a password hashed at full cost, for logins that would otherwise
+     * be quicker: those with an unknown NRIC, and wrong passwords for accounts not yet hashed at full cost.
+     */
+    static void verifyDummy() {
+        Arrays.fill(derive("\u0000", DUMMY_SALT, ITERATIONS), (byte) 0);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static String encode(int iterations, byte[] salt, byte[] hash) {
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        String encoded = PREFIX + iterations + "$" + b64.encodeToString(salt) + "$" + b64.encodeToString(hash);
+        Arrays.fill(hash, (byte) 0);
+        return encoded;
+    }
+}
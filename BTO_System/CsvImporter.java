@@ -0,0 +1,409 @@
+package BTO_System;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bulk loader for user and project records exported from the registry as CSV files.
+ *
+ * <p>Files are streamed through a {@link FileChannel} in fixed-size buffers and split into
+ * batches of lines. Batches are parsed, validated and turned into objects in parallel on a
+ * small worker pool. The pool's queue is bounded and the reading thread runs a batch itself
+ * when the queue is full, so memory use stays bounded no matter how large the file is.</p>
+ *
+ * <p>User files have the columns {@code role,nric,password,age,maritalStatus}, where role is
+ * APPLICANT, OFFICER or MANAGER and the password is in plain text; it is hashed at the interim
+ * cost while importing and at full cost when the user first logs in. Project files have the columns
+ * {@code name,neighborhood,flatUnits,openingDate,closingDate,managerNric}, where flatUnits lists
+ * each flat type with its unit count, e.g. {@code TWOROOM:2;THREEROOM:3}, dates are yyyy-MM-dd
+ * and managerNric may be blank. A first line starting with the first column name is treated as a header.</p>
+ */
+class CsvImporter {
+    /** Number of lines handed to a worker at a time */
+    private static final int BATCH_SIZE = 10_000;
+
+    /** Size of the buffer the file is read through */
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    /** Maximum number of rejected rows whose reasons are kept for the report */
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    /**
+     * Summary of a completed import.
+     */
+    static final class Result {
+        private final long rows;
+        private final long imported;
+        private final List<String> errors;
+        private final long elapsedNanos;
+
+        Result(long rows, long imported, List<String> errors, long elapsedNanos) {
+            this.rows = rows;
+            this.imported = imported;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Gets the number of data rows read, excluding any header.
+         *
+         * @return The number of rows
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * Gets the number of rows that were valid and imported.
+         *
+         * @return The number of imported rows
+         */
+        public long getImported() {
+            return imported;
+        }
+
+        /**
+         * Gets the reasons for the first few rejected rows.
+         *
+         * @return List of error messages with line numbers
+         */
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        /**
+         * Gets the import throughput.
+         *
+         * @return Rows processed per second
+         */
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows, %d imported, %d rejected in %.2fs (%.0f rows/s)",
+                    rows, imported, rows - imported, elapsedNanos / 1e9, getRowsPerSecond());
+        }
+    }
+
+    /**
+     * Imports applicants, officers and managers from a CSV file into the registry.
+     * Rows with an invalid NRIC, age, role or marital status, or a duplicate NRIC, are rejected.
+     *
+     * @param file The CSV file to read
+     * @param users The registry to add the users to
+     * @return A summary of the import
+     * @throws IOException if the file cannot be read
+     */
+    public static Result importUsers(Path file, UserRegistry users) throws IOException {
+        return run(file, "role", (lineNo, fields) -> {
+            if (fields.length < 5) {
+                return "expected 5 columns";
+            }
+            String nric = fields[1].trim().toUpperCase();
+            if (!User.isValidNric(nric)) {
+                return "invalid NRIC " + fields[1];
+            }
+            int age;
+            try {
+                age = Integer.parseInt(fields[3].trim());
+            } catch (NumberFormatException e) {
+                return "invalid age " + fields[3];
+            }
+            MaritalStatus status = parseEnum(MaritalStatus.class, fields[4]);
+            if (age <= 0 || status == null) {
+                return age <= 0 ? "invalid age " + fields[3] : "invalid marital status " + fields[4];
+            }
+            User user;
+            switch (fields[0].trim().toUpperCase()) {
+                case "APPLICANT":
+                    user = new Applicant(nric, fields[2], age, status);
+                    break;
+                case "OFFICER":
+                    user = new HDBOfficer(nric, fields[2], age, status);
+                    break;
+                case "MANAGER":
+                    user = new HDBManager(nric, fields[2], age, status);
+                    break;
+                default:
+                    return "invalid role " + fields[0];
+            }
+            // Hashed here on the worker pool, so no imported password is ever written out in plain text
+            user.sealPassword();
+            return users.add(user) ? null : "duplicate NRIC " + nric;
+        });
+    }
+
+    /**
+     * Imports projects from a CSV file into the project catalog.
+     * Rows with an unknown flat type, a bad date, an unknown manager NRIC or the name of a project
+     * already in the catalog, ignoring case, are rejected.
+     *
+     * @param file The CSV file to read
+     * @param projects The catalog to add the projects to
+     * @param users The registry used to resolve manager NRICs
+     * @return A summary of the import
+     * @throws IOException if the file cannot be read
+     */
+    public static Result importProjects(Path file, ProjectCatalog projects, UserRegistry users) throws IOException {
+        return run(file, "name", (lineNo, fields) -> {
+            if (fields.length < 5) {
+                return "expected at least 5 columns";
+            }
+            List<FlatType> flatTypes = new ArrayList<>();
+            Map<FlatType, Integer> units = new EnumMap<>(FlatType.class);
+            for (String entry : fields[2].split(";")) {
+                String[] parts = entry.split(":");
+                FlatType type = parseEnum(FlatType.class, parts[0]);
+                if (type == null || parts.length != 2) {
+                    return "invalid flat units " + entry;
+                }
+                try {
+                    units.put(type, Integer.parseInt(parts[1].trim()));
+                } catch (NumberFormatException e) {
+                    return "invalid unit count " + entry;
+                }
+                flatTypes.add(type);
+            }
+            Date open;
+            Date close;
+            try {
+                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+                sdf.setLenient(false);
+                open = sdf.parse(fields[3].trim());
+                close = sdf.parse(fields[4].trim());
+            } catch (ParseException e) {
+                return "invalid date";
+            }
+            if (close.before(open)) {
+                return "closing date before opening date";
+            }
+            HDBManager manager = null;
+            if (fields.length > 5 && !fields[5].isBlank()) {
+                manager = users.findManager(fields[5].trim());
+                if (manager == null) {
+                    return "unknown manager " + fields[5];
+                }
+            }
+            if (!projects.addIfNameFree(new Project(fields[0].trim(), fields[1].trim(), flatTypes, units, open, close, manager))) {
+                return "duplicate project name " + fields[0].trim();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Handles one parsed CSV row.
+     */
+    private interface RowHandler {
+        /**
+         * Validates a row and imports it.
+         *
+         * @return null if the row was imported, otherwise the reason it was rejected
+         */
+        String handle(long lineNo, String[] fields);
+    }
+
+    /**
+     * Streams a file, batching its lines onto the worker pool.
+     */
+    private static Result run(Path file, String headerColumn, RowHandler handler) throws IOException {
+        long start = System.nanoTime();
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        AtomicLong rows = new AtomicLong();
+        AtomicLong imported = new AtomicLong();
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        List<Future<?>> pending = new ArrayList<>();
+        long[] firstLineOfBatch = {1};
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        Consumer<String> onLine = new Consumer<String>() {
+            private long lineNo = 0;
+
+            @Override
+            public void accept(String line) {
+                lineNo++;
+                if (lineNo == 1 && line.trim().toLowerCase().startsWith(headerColumn)) {
+                    firstLineOfBatch[0] = 2;
+                    return;
+                }
+                batch.add(line);
+                if (batch.size() == BATCH_SIZE) {
+                    pending.add(submit(pool, new ArrayList<>(batch), firstLineOfBatch[0], handler, rows, imported, errors));
+                    collectFinished(pending);
+                    firstLineOfBatch[0] = lineNo + 1;
+                    batch.clear();
+                }
+            }
+        };
+
+        try {
+            readLines(file, onLine);
+            if (!batch.isEmpty()) {
+                pending.add(submit(pool, new ArrayList<>(batch), firstLineOfBatch[0], handler, rows, imported, errors));
+            }
+            for (Future<?> f : pending) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Import failed", e.getCause());
+        } catch (BatchFailure e) {
+            if (e.getCause() instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Import interrupted", e.getCause());
+            }
+            throw new IOException("Import failed", e.getCause().getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return new Result(rows.get(), imported.get(), new ArrayList<>(errors), System.nanoTime() - start);
+    }
+
+    /**
+     * Drops the batches that have finished, so the list stays short on long files, throwing the
+     * failure of any that failed instead of dropping it with them.
+     */
+    private static void collectFinished(List<Future<?>> pending) {
+        for (Iterator<Future<?>> it = pending.iterator(); it.hasNext(); ) {
+            Future<?> f = it.next();
+            if (!f.isDone()) {
+                continue;
+            }
+            try {
+                f.get();
+            } catch (InterruptedException | ExecutionException e) {
+                // Already done, so get() does not wait; run() turns the failure into an IOException
+                throw new BatchFailure(e);
+            }
+            it.remove();
+        }
+    }
+
+    /**
+     * Carries a failed batch out of the line reader, which cannot throw checked exceptions.
+     */
+    private static final class BatchFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BatchFailure(Exception cause) {
+            super(cause);
+        }
+    }
+
+    private static Future<?> submit(ExecutorService pool, List<String> lines, long firstLineNo, RowHandler handler,
+            AtomicLong rows, AtomicLong imported, List<String> errors) {
+        return pool.submit(() -> {
+            long ok = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (line.isBlank()) {
+                    continue;
+                }
+                rows.incrementAndGet();
+                long lineNo = firstLineNo + i;
+                String error = handler.handle(lineNo, splitCsv(line));
+                if (error == null) {
+                    ok++;
+                } else if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add("line " + lineNo + ": " + error);
+                }
+            }
+            imported.addAndGet(ok);
+        });
+    }
+
+    /**
+     * Reads a file line by line through a direct buffer, handling lines that span buffer boundaries.
+     */
+    private static void readLines(Path file, Consumer<String> onLine) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+            byte[] line = new byte[256];
+            int length = 0;
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (b == '\n') {
+                        onLine.accept(decode(line, length));
+                        length = 0;
+                    } else {
+                        if (length == line.length) {
+                            line = Arrays.copyOf(line, length * 2);
+                        }
+                        line[length++] = b;
+                    }
+                }
+                buffer.clear();
+            }
+            if (length > 0) {
+                onLine.accept(decode(line, length));
+            }
+        }
+    }
+
+    private static String decode(byte[] bytes, int length) {
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Splits a CSV line into fields, honouring double-quoted fields that contain commas.
+     *
+     * @param line The line to split
+     * @return The fields, with surrounding quotes removed
+     */
+    static String[] splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package BTO_System;
+
+/**
+ * Background check that every project's {@link DemandCounters} match a full recount of its applications.
+ *
+ * <p>The recount is taken from the project's status and flat type buckets under the project's lock,
+ * which the counters follow exactly, so any disagreement is a real fault rather than a change in
+ * flight. The counters of a project that disagrees are reported on standard error and replaced
+ * with the recount.</p>
+ */
+class DemandChecker implements Runnable {
+    private final Iterable<Project> projects;
+
+    /**
+     * Creates a checker for a set of projects.
+     *
+     * @param projects The projects to check; iterated afresh on every run
+     */
+    DemandChecker(Iterable<Project> projects) {
+        this.projects = projects;
+    }
+
+    /**
+     * Checks every project once, correcting the counters of any that are inconsistent.
+     */
+    @Override
+    public void run() {
+        try {
+            int repaired = check();
+            if (repaired > 0) {
+                System.err.println("Demand counters corrected for " + repaired + " project(s).");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Demand check failed: " + e);
+        }
+    }
+
+    /**
+     * Checks every project once.
+     *
+     * @return The number of projects whose counters had to be corrected
+     */
+    int check() {
+        int repaired = 0;
+        for (Project project : projects) {
+            if (checkProject(project)) {
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    /**
+     * Recounts one project, correcting its counters if they disagree.
+     *
+     * @param project The project to check
+     * @return true if the project's counters were corrected
+     */
+    private boolean checkProject(Project project) {
+        long[][] before;
+        long[][] recount;
+        // The counters change only under the project's lock, so read them in the same hold as the recount
+        synchronized (project) {
+            before = project.getDemand().snapshot();
+            recount = project.verifyDemand(true);
+        }
+        if (recount == null) {
+            return false;
+        }
+        FlatType[] flatTypes = FlatType.values();
+        ApplicationStatus[] statuses = ApplicationStatus.values();
+        for (int t = 0; t < recount.length; t++) {
+            for (int s = 0; s < recount[t].length; s++) {
+                if (recount[t][s] != before[t][s]) {
+                    System.err.println("Demand counter " + project.getProjectName() + " " + flatTypes[t] + " "
+                            + statuses[s] + " was " + before[t][s] + ", recounted " + recount[t][s]);
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,107 @@
+package BTO_System;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counts of a project's applications by flat type and status.
+ *
+ * <p>The project updates the counters whenever an application is created or changes status or
+ * flat type, in the same step that moves it between the project's application buckets. Each
+ * counter is a {@link LongAdder}, so sessions updating different applications at once do not
+ * contend on a single memory location, and reading a count needs no lock. Questions such as
+ * "how many pending 3-Room applications are there per unit left" are answered in constant time
+ * instead of by scanning applications.</p>
+ */
+final class DemandCounters {
+    private static final FlatType[] FLAT_TYPES = FlatType.values();
+    private static final ApplicationStatus[] STATUSES = ApplicationStatus.values();
+
+    /** Counters indexed by flat type ordinal, then status ordinal */
+    private final LongAdder[][] counts = new LongAdder[FLAT_TYPES.length][STATUSES.length];
+
+    /**
+     * Creates counters that are all zero.
+     */
+    DemandCounters() {
+        for (LongAdder[] byStatus : counts) {
+            for (int s = 0; s < byStatus.length; s++) {
+                byStatus[s] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * Counts an application under a flat type and status, when it is created or moves there.
+     *
+     * @param flatType The flat type applied for
+     * @param status   The application's status
+     */
+    void added(FlatType flatType, ApplicationStatus status) {
+        counts[flatType.ordinal()][status.ordinal()].increment();
+    }
+
+    /**
+     * Stops counting an application under a flat type and status, after it moved to another one.
+     *
+     * @param flatType The flat type it was counted under
+     * @param status   The status it was counted under
+     */
+    void removed(FlatType flatType, ApplicationStatus status) {
+        counts[flatType.ordinal()][status.ordinal()].decrement();
+    }
+
+    /**
+     * Gets the number of applications for a flat type with a status.
+     *
+     * @param flatType The flat type
+     * @param status   The status
+     * @return The number of applications
+     */
+    public long get(FlatType flatType, ApplicationStatus status) {
+        return counts[flatType.ordinal()][status.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of applications for a flat type, whatever their status.
+     *
+     * @param flatType The flat type
+     * @return The number of applications
+     */
+    public long total(FlatType flatType) {
+        long total = 0;
+        for (LongAdder counter : counts[flatType.ordinal()]) {
+            total += counter.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Copies all counts.
+     *
+     * @return Counts indexed by flat type ordinal, then status ordinal
+     */
+    long[][] snapshot() {
+        long[][] values = new long[FLAT_TYPES.length][STATUSES.length];
+        for (int t = 0; t < values.length; t++) {
+            for (int s = 0; s < values[t].length; s++) {
+                values[t][s] = counts[t][s].sum();
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Overwrites all counts, for correcting them after a recount.
+     * The caller must hold the project's lock so no update interleaves.
+     *
+     * @param values Counts indexed by flat type ordinal, then status ordinal
+     */
+    void reset(long[][] values) {
+        for (int t = 0; t < values.length; t++) {
+            for (int s = 0; s < values[t].length; s++) {
+                counts[t][s].reset();
+                counts[t][s].add(values[t][s]);
+            }
+        }
+    }
+}
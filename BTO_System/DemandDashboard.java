@@ -0,0 +1,40 @@
+package BTO_System;
+
+/**
+ * Table of application demand against remaining supply for a set of projects, read from each
+ * project's live {@link DemandCounters}. Rendering costs the same however many applications
+ * the projects have, so the view can be refreshed as often as wanted.
+ */
+class DemandDashboard implements Renderable {
+    private final Iterable<Project> projects;
+
+    /**
+     * Creates a dashboard over a set of projects.
+     *
+     * @param projects The projects to show, iterated afresh on every render
+     */
+    DemandDashboard(Iterable<Project> projects) {
+        this.projects = projects;
+    }
+
+    @Override
+    public void renderTo(StringBuilder out) {
+        String nl = System.lineSeparator();
+        out.append(String.format("%-24s %-10s %8s %10s %8s %12s %6s %9s", "Project", "Flat Type",
+                "Pending", "Successful", "Booked", "Unsuccessful", "Units", "Demand")).append(nl);
+        for (Project project : projects) {
+            DemandCounters demand = project.getDemand();
+            for (FlatType type : project.getFlatTypes()) {
+                double ratio = project.getOversubscriptionRatio(type);
+                out.append(String.format("%-24s %-10s %8d %10d %8d %12d %6d %9s",
+                        project.getProjectName(), type,
+                        demand.get(type, ApplicationStatus.PENDING),
+                        demand.get(type, ApplicationStatus.SUCCESSFUL),
+                        demand.get(type, ApplicationStatus.BOOKED),
+                        demand.get(type, ApplicationStatus.UNSUCCESSFUL),
+                        project.getUnitsAvailable().getOrDefault(type, 0),
+                        Double.isInfinite(ratio) ? "no units" : String.format("%.2fx", ratio))).append(nl);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package BTO_System;
+
+import java.util.*;
+
+/**
+ * The BTO eligibility rules, defined in one place.
+ *
+ * <p>Singles aged 35 and above may apply for 2-Room flats only. Married applicants aged 21
+ * and above may apply for any flat type. Because the rules depend only on marital status
+ * and on which side of the 21 and 35 year boundaries an applicant's age falls, ages are
+ * grouped into bands. Each (marital status, age band) pair maps to a fixed set of flat
+ * types, which {@link ProjectCatalog} compiles into project bitsets.</p>
+ */
+final class Eligibility {
+    /** Lower bounds of the age bands after the first; band 0 is everyone under 21 */
+    private static final int[] AGE_BAND_BOUNDS = {21, 35};
+
+    /** Number of age bands */
+    static final int AGE_BANDS = AGE_BAND_BOUNDS.length + 1;
+
+    /** Flat types allowed, indexed by marital status ordinal and then age band */
+    private static final Set<FlatType>[][] ALLOWED = compile();
+
+    private Eligibility() {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<FlatType>[][] compile() {
+        Set<FlatType>[][] table = (Set<FlatType>[][]) new Set<?>[MaritalStatus.values().length][AGE_BANDS];
+        for (MaritalStatus status : MaritalStatus.values()) {
+            for (int band = 0; band < AGE_BANDS; band++) {
+                int minAge = band == 0 ? 0 : AGE_BAND_BOUNDS[band - 1];
+                EnumSet<FlatType> types = EnumSet.noneOf(FlatType.class);
+                if (status == MaritalStatus.MARRIED && minAge >= 21) {
+                    types.addAll(EnumSet.allOf(FlatType.class));
+                } else if (status == MaritalStatus.SINGLE && minAge >= 35) {
+                    types.add(FlatType.TWOROOM);
+                }
+                table[status.ordinal()][band] = Collections.unmodifiableSet(types);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Gets the age band an age falls into.
+     *
+     * @param age The applicant's age
+     * @return The band index, from 0 to {@link #AGE_BANDS} - 1
+     */
+    static int ageBand(int age) {
+        int band = 0;
+        while (band < AGE_BAND_BOUNDS.length && age >= AGE_BAND_BOUNDS[band]) {
+            band++;
+        }
+        return band;
+    }
+
+    /**
+     * Describes the ages in a band, for reports.
+     *
+     * @param band The age band
+     * @return A label such as "21-34" or "35+"
+     */
+    static String ageBandLabel(int band) {
+        if (band == 0) {
+            return "under " + AGE_BAND_BOUNDS[0];
+        }
+        if (band == AGE_BAND_BOUNDS.length) {
+            return AGE_BAND_BOUNDS[band - 1] + "+";
+        }
+        return AGE_BAND_BOUNDS[band - 1] + "-" + (AGE_BAND_BOUNDS[band] - 1);
+    }
+
+    /**
+     * Gets the flat types allowed for a marital status and age band.
+     *
+     * @param status The marital status
+     * @param band   The age band
+     * @return Read-only set of allowed flat types, empty if not eligible at all
+     */
+    static Set<FlatType> allowedFlatTypes(MaritalStatus status, int band) {
+        return ALLOWED[status.ordinal()][band];
+    }
+
+    /**
+     * Gets the flat types a user is allowed to apply for.
+     *
+     * @param user The applicant
+     * @return Read-only set of allowed flat types, empty if not eligible at all
+     */
+    public static Set<FlatType> allowedFlatTypes(User user) {
+        return allowedFlatTypes(user.getMaritalStatus(), ageBand(user.getAge()));
+    }
+
+    /**
+     * Checks whether a user may apply for a flat type.
+     *
+     * @param user     The applicant
+     * @param flatType The flat type applied for
+     * @return true if the rules allow it, false otherwise
+     */
+    public static boolean isEligible(User user, FlatType flatType) {
+        return allowedFlatTypes(user).contains(flatType);
+    }
+
+    /**
+     * Describes the requirement a user does not meet, for error messages.
+     *
+     * @param user The applicant
+     * @return A message stating the age requirement for the user's marital status
+     */
+    public static String requirement(User user) {
+        return user.getMaritalStatus() == MaritalStatus.SINGLE
+                ? "You must be at least 35 and single to apply."
+                : "You must be at least 21 and married to apply.";
+    }
+}
@@ -4,15 +4,15 @@ package BTO_System;
  * Represents an enquiry submitted by a user regarding a specific BTO project.
  * Enquiries can be submitted by any user and may be replied to by HDB officers or managers.
  */
-public class Enquiry {
-    /** Counter for generating unique enquiry IDs */
-    private static int idCounter = 1;
+public class Enquiry implements Renderable {
+    /** Allocator for unique enquiry IDs, safe to use from concurrent sessions */
+    private static final IdAllocator idAllocator = IdAllocator.ENQUIRIES;
     
     /** Unique identifier for this enquiry */
     private int enquiryID;
     
     /** The content/question of the enquiry */
-    private String content;
+    private volatile String content;
     
     /** The user who submitted this enquiry */
     private User submittedBy;
@@ -21,7 +21,7 @@ public class Enquiry {
     private Project relatedProject;
     
     /** The reply to this enquiry, null if not yet replied */
-    private String reply;
+    private volatile String reply;
 
     /**
      * Constructs a new Enquiry with the specified details.
@@ -32,13 +32,49 @@ public class Enquiry {
      * @param relatedProject The project this enquiry is related to
      */
     public Enquiry(String content, User submittedBy, Project relatedProject) {
-        this.enquiryID = idCounter++;
+        this.enquiryID = idAllocator.next();
         this.content = content;
         this.submittedBy = submittedBy;
         this.relatedProject = relatedProject;
         this.reply = null;
     }
 
+    /**
+     * Reconstructs an enquiry with a previously assigned ID, for example when replaying the log.
+     * The ID allocator is moved past the restored ID so new enquiries never reuse it.
+     *
+     * @param enquiryID The ID originally assigned to the enquiry
+     * @param content The content/question of the enquiry
+     * @param submittedBy The user who submitted the enquiry
+     * @param relatedProject The project this enquiry is related to
+     */
+    Enquiry(int enquiryID, String content, User submittedBy, Project relatedProject) {
+        this.enquiryID = enquiryID;
+        idAllocator.ensureNext(enquiryID + 1);
+        this.content = content;
+        this.submittedBy = submittedBy;
+        this.relatedProject = relatedProject;
+        this.reply = null;
+    }
+
+    /**
+     * Gets the ID that will be assigned to the next new enquiry.
+     *
+     * @return The next enquiry ID
+     */
+    static int peekNextID() {
+        return idAllocator.peekNext();
+    }
+
+    /**
+     * Moves the ID allocator forward so that new enquiries are assigned IDs of at least the given value.
+     *
+     * @param nextID The lowest ID that may be assigned next
+     */
+    static void ensureNextID(int nextID) {
+        idAllocator.ensureNext(nextID);
+    }
+
     /**
      * Gets the unique identifier for this enquiry.
      *
@@ -64,6 +100,8 @@ public class Enquiry {
      */
     public void setContent(String content) {
         this.content = content;
+        relatedProject.enquiryChanged(this);
+        WriteAheadLog.record(WriteAheadLog.RecordType.ENQUIRY_CONTENT).putInt(enquiryID).putString(content).commit();
     }
 
     /**
@@ -100,6 +138,25 @@ public class Enquiry {
      */
     public void setReply(String reply) {
         this.reply = reply;
+        relatedProject.enquiryChanged(this);
+        WriteAheadLog.record(WriteAheadLog.RecordType.ENQUIRY_REPLY).putInt(enquiryID).putString(reply).commit();
+    }
+
+    /**
+     * Appends the details of this enquiry, one field per line.
+     * Includes the enquiry ID, submitter, project, content, and reply (if any).
+     *
+     * @param out The buffer to append to
+     */
+    @Override
+    public void renderTo(StringBuilder out) {
+        String nl = System.lineSeparator();
+        out.append("Enquiry ID: ").append(enquiryID).append(nl);
+        out.append("Submitted By: ").append(submittedBy.getNric()).append(nl);
+        out.append("Project: ").append(relatedProject.getProjectName()).append(nl);
+        out.append("Content: ").append(content).append(nl);
+        String current = reply;
+        out.append("Reply: ").append(current != null ? current : "[No reply yet]").append(nl);
     }
 
     /**
@@ -107,14 +164,8 @@ public class Enquiry {
      * Includes the enquiry ID, submitter, project, content, and reply (if any).
      */
     public void displayEnquiry() {
-        System.out.println("Enquiry ID: " + enquiryID);
-        System.out.println("Submitted By: " + submittedBy.getNric());
-        System.out.println("Project: " + relatedProject.getProjectName());
-        System.out.println("Content: " + content);
-        if (reply != null) {
-            System.out.println("Reply: " + reply);
-        } else {
-            System.out.println("Reply: [No reply yet]");
-        }
+        StringBuilder sb = new StringBuilder(128);
+        renderTo(sb);
+        System.out.print(sb);
     }
 }
\ No newline at end of file
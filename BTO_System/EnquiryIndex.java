@@ -0,0 +1,305 @@
+package BTO_System;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Full-text index over the content and replies of enquiries.
+ *
+ * <p>Text is split into lower-case words made of letters and digits. For each word the index
+ * keeps a posting list: the IDs of the enquiries containing it, as a sorted int array, with a
+ * parallel array holding how often the word occurs in each. New enquiries have the highest ID
+ * so far, which makes adding to a posting list an append in the common case.</p>
+ *
+ * <p>Searches are ranked by TF-IDF. Each query word contributes its count in the enquiry,
+ * weighted by how rare the word is across all enquiries. An enquiry matching more of the query
+ * words, or rarer ones, therefore ranks higher. Results can be restricted to enquiries whose
+ * related project passes a filter, such as a single project or a neighbourhood.</p>
+ */
+class EnquiryIndex {
+    /** Guards the index: searches share the read lock, updates take the write lock */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Posting list for each word */
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    /** Indexed enquiries by ID */
+    private final Map<Integer, Enquiry> enquiries = new HashMap<>();
+
+    /** Indexed enquiries in ID order, for listing them a page at a time */
+    private final KeysetList<Enquiry> byId = new KeysetList<>();
+
+    /** The distinct words each indexed enquiry was indexed under, so they can be removed later */
+    private final Map<Integer, String[]> indexedTerms = new HashMap<>();
+
+    /**
+     * Sorted enquiry IDs for one word with the word's count in each.
+     */
+    private static final class Postings {
+        int[] ids = new int[4];
+        int[] counts = new int[4];
+        int size;
+
+        void add(int id, int count) {
+            int pos = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0 && pos < size) {
+                counts[pos] = count;
+                return;
+            }
+            if (pos < 0) {
+                pos = -pos - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            System.arraycopy(counts, pos, counts, pos + 1, size - pos);
+            ids[pos] = id;
+            counts[pos] = count;
+            size++;
+        }
+
+        void remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+                System.arraycopy(counts, pos + 1, counts, pos, size - pos - 1);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Splits text into lower-case words of letters and digits.
+     *
+     * @param text The text to split, may be null
+     * @return List of words in order of appearance, including repeats
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Adds an enquiry to the index, or re-indexes it if it is already present.
+     *
+     * @param enquiry The enquiry to index
+     */
+    public void add(Enquiry enquiry) {
+        lock.writeLock().lock();
+        try {
+            unindex(enquiry.getEnquiryID());
+            Map<String, Integer> counts = new HashMap<>();
+            for (String word : tokenize(enquiry.getContent())) {
+                counts.merge(word, 1, Integer::sum);
+            }
+            for (String word : tokenize(enquiry.getReply())) {
+                counts.merge(word, 1, Integer::sum);
+            }
+            int id = enquiry.getEnquiryID();
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new Postings()).add(id, entry.getValue());
+            }
+            enquiries.put(id, enquiry);
+            byId.add(id, enquiry);
+            indexedTerms.put(id, counts.keySet().toArray(new String[0]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-indexes an enquiry after its content or reply changed. Enquiries not in the index are ignored.
+     *
+     * @param enquiry The changed enquiry
+     */
+    public void update(Enquiry enquiry) {
+        lock.writeLock().lock();
+        try {
+            if (enquiries.get(enquiry.getEnquiryID()) == enquiry) {
+                add(enquiry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an enquiry from the index.
+     *
+     * @param enquiry The enquiry to remove
+     */
+    public void remove(Enquiry enquiry) {
+        lock.writeLock().lock();
+        try {
+            if (enquiries.get(enquiry.getEnquiryID()) == enquiry) {
+                unindex(enquiry.getEnquiryID());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of indexed enquiries.
+     *
+     * @return The number of enquiries
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return enquiries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets one page of the indexed enquiries in enquiry ID order.
+     *
+     * @param cursor        The cursor from the previous page, or null for the first page
+     * @param size          The most enquiries on the page
+     * @param projectFilter Only enquiries whose related project passes this test are listed, or null for all
+     * @return The page
+     */
+    public Page<Enquiry> page(String cursor, int size, Predicate<Project> projectFilter) {
+        int afterId = Page.afterId(cursor);
+        List<Enquiry> found = new ArrayList<>(size + 1);
+        lock.readLock().lock();
+        try {
+            byId.collect(afterId, size + 1,
+                    projectFilter == null ? null : e -> projectFilter.test(e.getRelatedProject()), found);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Page.of(found, size, e -> Integer.toString(e.getEnquiryID()));
+    }
+
+    /**
+     * Finds the enquiries matching any of the words in a query, best matches first.
+     *
+     * @param query         The words to search for
+     * @param projectFilter Only enquiries whose related project passes this test are returned, or null for all
+     * @param limit         The maximum number of results
+     * @return List of matching enquiries ordered by descending relevance, then by ID
+     */
+    public List<Enquiry> search(String query, Predicate<Project> projectFilter, int limit) {
+        lock.readLock().lock();
+        try {
+            Set<String> words = new LinkedHashSet<>(tokenize(query));
+            Postings[] lists = new Postings[words.size()];
+            double[] weights = new double[words.size()];
+            int n = 0;
+            for (String word : words) {
+                Postings list = postings.get(word);
+                if (list != null && list.size > 0) {
+                    lists[n] = list;
+                    weights[n++] = Math.log(1 + (double) enquiries.size() / list.size);
+                }
+            }
+            if (limit <= 0 || n == 0) {
+                return new ArrayList<>();
+            }
+
+            // Merge the sorted posting lists, scoring each enquiry once and keeping the best few in a heap
+            PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1);
+            Map<Project, Boolean> passes = new IdentityHashMap<>();
+            int[] cursor = new int[n];
+            while (true) {
+                int id = Integer.MAX_VALUE;
+                for (int l = 0; l < n; l++) {
+                    if (cursor[l] < lists[l].size && lists[l].ids[cursor[l]] < id) {
+                        id = lists[l].ids[cursor[l]];
+                    }
+                }
+                if (id == Integer.MAX_VALUE) {
+                    break;
+                }
+                double score = 0;
+                for (int l = 0; l < n; l++) {
+                    Postings list = lists[l];
+                    if (cursor[l] < list.size && list.ids[cursor[l]] == id) {
+                        score += list.counts[cursor[l]] * weights[l];
+                        cursor[l]++;
+                    }
+                }
+                // IDs arrive in increasing order, so an enquiry that only ties the worst kept one ranks below it
+                if (best.size() == limit && score <= best.peek().score) {
+                    continue;
+                }
+                Enquiry enquiry = enquiries.get(id);
+                if (projectFilter != null
+                        && !passes.computeIfAbsent(enquiry.getRelatedProject(), projectFilter::test)) {
+                    continue;
+                }
+                best.add(new Hit(enquiry, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            List<Enquiry> result = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                result.add(best.poll().enquiry);
+            }
+            Collections.reverse(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A scored search result. Ordered worst first so the heap of best results can drop its head.
+     */
+    private static final class Hit implements Comparable<Hit> {
+        final Enquiry enquiry;
+        final double score;
+
+        Hit(Enquiry enquiry, double score) {
+            this.enquiry = enquiry;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Hit other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : Integer.compare(other.enquiry.getEnquiryID(), enquiry.getEnquiryID());
+        }
+    }
+
+    /**
+     * Removes an enquiry's postings. Caller holds the write lock.
+     */
+    private void unindex(int id) {
+        String[] words = indexedTerms.remove(id);
+        enquiries.remove(id);
+        byId.remove(id);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            Postings list = postings.get(word);
+            list.remove(id);
+            if (list.size == 0) {
+                postings.remove(word);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package BTO_System;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Queue of a project's unanswered enquiries, shared by the officers who reply to them.
+ *
+ * <p>Enquiries are kept oldest first. An officer claims the oldest one nobody else is working on
+ * and holds it under a lease. While the lease lasts no other officer is given that enquiry. If
+ * the officer neither replies nor releases it before the lease expires, for example because
+ * their session dropped, it becomes available again. Replying removes the enquiry from the queue
+ * for good. Claims are made with compare-and-set on the enquiry's lease, so officers working
+ * the same project never block one another.</p>
+ */
+class EnquiryQueue {
+    /** How long a claim lasts before the enquiry is offered to other officers again */
+    static final long DEFAULT_LEASE_MILLIS = 5 * 60 * 1000L;
+
+    /**
+     * A queued enquiry with its current lease.
+     */
+    private static final class Item {
+        final Enquiry enquiry;
+        final long seq;
+        /** Current lease, or null if the enquiry is free to claim */
+        final AtomicReference<Lease> lease = new AtomicReference<>();
+
+        Item(Enquiry enquiry, long seq) {
+            this.enquiry = enquiry;
+            this.seq = seq;
+        }
+    }
+
+    /**
+     * Who holds a claimed enquiry and until when.
+     */
+    private static final class Lease {
+        final HDBOfficer holder;
+        final long expiresAt;
+
+        Lease(HDBOfficer holder, long expiresAt) {
+            this.holder = holder;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /** Source of arrival order numbers */
+    private final AtomicLong arrivals = new AtomicLong();
+
+    /** Unanswered enquiries by arrival order */
+    private final ConcurrentSkipListMap<Long, Item> byAge = new ConcurrentSkipListMap<>();
+
+    /** The same items by enquiry, for removal */
+    private final Map<Enquiry, Item> byEnquiry = new ConcurrentHashMap<>();
+
+    /** Lease length in milliseconds */
+    private final long leaseMillis;
+
+    /**
+     * Creates an empty queue using the default lease length.
+     */
+    EnquiryQueue() {
+        this(DEFAULT_LEASE_MILLIS);
+    }
+
+    /**
+     * Creates an empty queue.
+     *
+     * @param leaseMillis How long a claim lasts, in milliseconds
+     */
+    EnquiryQueue(long leaseMillis) {
+        this.leaseMillis = leaseMillis;
+    }
+
+    /**
+     * Adds an unanswered enquiry to the back of the queue. Answered enquiries and enquiries
+     * already queued are ignored.
+     *
+     * @param enquiry The enquiry to queue
+     */
+    public void offer(Enquiry enquiry) {
+        if (enquiry.getReply() != null) {
+            return;
+        }
+        Item item = new Item(enquiry, arrivals.incrementAndGet());
+        if (byEnquiry.putIfAbsent(enquiry, item) == null) {
+            byAge.put(item.seq, item);
+            // A reply that raced with the offer would otherwise leave the enquiry queued
+            if (enquiry.getReply() != null) {
+                remove(enquiry);
+            }
+        }
+    }
+
+    /**
+     * Removes an enquiry from the queue, whether or not it is claimed.
+     *
+     * @param enquiry The enquiry that was answered or deleted
+     */
+    public void remove(Enquiry enquiry) {
+        Item item = byEnquiry.remove(enquiry);
+        if (item != null) {
+            byAge.remove(item.seq);
+        }
+    }
+
+    /**
+     * Claims the oldest unanswered enquiry that is not under another officer's lease.
+     * An officer who already holds an enquiry's lease is given it again with a fresh lease.
+     *
+     * @param officer The officer claiming work
+     * @param skip    Enquiries the officer has passed over and should not be given, may be empty
+     * @return The claimed enquiry, or null if there is nothing to claim
+     */
+    public Enquiry claim(HDBOfficer officer, Set<Enquiry> skip) {
+        long now = System.currentTimeMillis();
+        for (Item item : byAge.values()) {
+            if (skip.contains(item.enquiry) || item.enquiry.getReply() != null) {
+                continue;
+            }
+            Lease current = item.lease.get();
+            if (current != null && current.holder != officer && current.expiresAt > now) {
+                continue;
+            }
+            if (item.lease.compareAndSet(current, new Lease(officer, now + leaseMillis))) {
+                return item.enquiry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gives up an officer's claim on an enquiry so other officers can take it.
+     * Does nothing if the officer does not hold the lease.
+     *
+     * @param enquiry The claimed enquiry
+     * @param officer The officer releasing it
+     */
+    public void release(Enquiry enquiry, HDBOfficer officer) {
+        Item item = byEnquiry.get(enquiry);
+        if (item != null) {
+            Lease current = item.lease.get();
+            if (current != null && current.holder == officer) {
+                item.lease.compareAndSet(current, null);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of unanswered enquiries in the queue, claimed or not.
+     *
+     * @return The number of queued enquiries
+     */
+    public int size() {
+        return byEnquiry.size();
+    }
+}
@@ -0,0 +1,349 @@
+package BTO_System;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes domain events, such as an application being approved or a flat booked, to
+ * subscribers running on their own threads.
+ *
+ * <p>Events are written into a fixed ring of preallocated slots, so publishing allocates nothing.
+ * A publisher claims the next sequence number with one atomic increment, fills in the slot for
+ * that sequence and then publishes it by writing the slot's sequence field. Every field has a
+ * single writer: a slot is written only by the publisher that claimed it, and each subscriber's
+ * progress is written only by that subscriber's thread. Publishing therefore never takes a lock.</p>
+ *
+ * <p>Each subscriber reads every published event in sequence order. It takes all the events
+ * available at once as a batch and records its progress once per batch, so a busy subscriber
+ * catches up cheaply. A publisher only waits if the ring is full, meaning the slowest subscriber
+ * is a whole ring behind. Events are published by the domain operations, not by the underlying
+ * setters, so replaying the log or loading a snapshot does not publish them again.</p>
+ *
+ * <p>A subscriber that finds nothing to read spins briefly and then parks, for twice as long each
+ * time it still finds nothing, up to {@link #MAX_IDLE_PARK_NANOS}, so an idle bus costs its
+ * subscriber threads almost no CPU. Before any park longer than the first it says so in a flag
+ * and looks at the ring once more. A publisher checks the flags after publishing, and the first
+ * to clear a raised flag unparks that subscriber, so an event on a quiet bus waits no longer than
+ * it did before the subscriber backed off.</p>
+ */
+final class EventBus {
+    /** Default number of slots in the ring; must be a power of two */
+    static final int DEFAULT_CAPACITY = 4096;
+
+    /** The bus for application and enquiry lifecycle events */
+    static final EventBus DOMAIN = new EventBus("domain", DEFAULT_CAPACITY);
+
+    /** How long an idle subscriber first sleeps before checking for new events again */
+    private static final long IDLE_PARK_NANOS = 100_000L;
+
+    /** Longest an idle subscriber sleeps between checks, should a publisher's wake-up be missed */
+    private static final long MAX_IDLE_PARK_NANOS = 10_000_000L;
+
+    /** Number of empty checks an idle subscriber makes before it starts sleeping */
+    private static final int IDLE_SPINS = 100;
+
+    /**
+     * Kinds of domain event.
+     */
+    enum Type {
+        /** An applicant applied for a project */
+        APPLICATION_SUBMITTED,
+        /** A manager approved an application */
+        APPLICATION_APPROVED,
+        /** A manager rejected an application */
+        APPLICATION_REJECTED,
+        /** An officer booked a flat for a successful application */
+        FLAT_BOOKED,
+        /** A manager approved an applicant's withdrawal */
+        APPLICATION_WITHDRAWN,
+        /** An officer or manager replied to an enquiry */
+        ENQUIRY_REPLIED
+    }
+
+    /**
+     * One slot of the ring. Subscribers see it only for the duration of
+     * {@link Handler#onEvent}; afterwards the slot is reused for a later event.
+     */
+    static final class Event {
+        /** Sequence of the event currently in the slot; written last, to publish it */
+        private volatile long sequence = -1;
+        private Type type;
+        private Application application;
+        private Enquiry enquiry;
+        private long timeMillis;
+
+        /**
+         * Gets the kind of event.
+         *
+         * @return The event type
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Gets the application the event is about.
+         *
+         * @return The application, or null for enquiry events
+         */
+        public Application getApplication() {
+            return application;
+        }
+
+        /**
+         * Gets the enquiry the event is about.
+         *
+         * @return The enquiry, or null for application events
+         */
+        public Enquiry getEnquiry() {
+            return enquiry;
+        }
+
+        /**
+         * Gets the time the event was published.
+         *
+         * @return The publication time in milliseconds since the epoch
+         */
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+    }
+
+    /**
+     * Receives the events of a subscription, on the subscription's own thread.
+     */
+    interface Handler {
+        /**
+         * Handles one event. The event object is only valid until this method returns.
+         *
+         * @param event      The event
+         * @param sequence   The event's sequence number on the bus
+         * @param endOfBatch true if this is the last event currently available, a good point to flush work
+         */
+        void onEvent(Event event, long sequence, boolean endOfBatch);
+    }
+
+    /**
+     * A subscriber's position on the bus and the thread that feeds it events.
+     */
+    final class Subscription implements AutoCloseable {
+        /** Sequence of the last event fully handled; written only by the subscriber thread */
+        private volatile long processed;
+        /** Set by the subscriber thread when it is about to park; the first publisher to clear it wakes the thread */
+        private final AtomicBoolean sleeping = new AtomicBoolean();
+        private volatile boolean running = true;
+        private final Handler handler;
+        private final Thread thread;
+
+        private Subscription(String name, Handler handler, long processed) {
+            this.handler = handler;
+            this.processed = processed;
+            this.thread = new Thread(this::run, "bto-events-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * Gets the sequence of the last event this subscriber has finished handling.
+         *
+         * @return The processed sequence, or -1 if none
+         */
+        public long getProcessed() {
+            return processed;
+        }
+
+        /**
+         * Stops delivering events to this subscriber. Events not yet handled are dropped.
+         */
+        @Override
+        public void close() {
+            running = false;
+            unsubscribe(this);
+            LockSupport.unpark(thread);
+        }
+
+        private void run() {
+            long next = processed + 1;
+            int idle = 0;
+            long parkNanos = IDLE_PARK_NANOS;
+            while (running) {
+                long end = next;
+                long limit = next + ring.length;
+                while (end < limit && ring[(int) end & mask].sequence == end) {
+                    end++;
+                }
+                if (end == next) {
+                    if (++idle < IDLE_SPINS) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    // The first, short park is not worth a publisher's wake-up, which in a burst would
+                    // hand this thread one event at a time; only the longer ones after it are woken early
+                    boolean wakeable = parkNanos > IDLE_PARK_NANOS;
+                    if (wakeable) {
+                        sleeping.set(true);
+                    }
+                    // Looked at again after raising the flag, so an event published meanwhile is not slept through
+                    if (ring[(int) next & mask].sequence != next && running) {
+                        LockSupport.parkNanos(parkNanos);
+                        parkNanos = Math.min(parkNanos * 2, MAX_IDLE_PARK_NANOS);
+                    }
+                    if (wakeable) {
+                        sleeping.set(false);
+                    }
+                    continue;
+                }
+                idle = 0;
+                parkNanos = IDLE_PARK_NANOS;
+                for (long seq = next; seq < end; seq++) {
+                    try {
+                        handler.onEvent(ring[(int) seq & mask], seq, seq == end - 1);
+                    } catch (RuntimeException e) {
+                        System.err.println("Event handler " + thread.getName() + " failed: " + e);
+                    }
+                }
+                processed = end - 1;
+                next = end;
+            }
+        }
+    }
+
+    /** Name used for subscriber threads */
+    private final String name;
+
+    /** The event slots; an event with sequence s lives in slot s & mask */
+    private final Event[] ring;
+
+    /** Mask turning a sequence into a slot index */
+    private final int mask;
+
+    /** Next sequence to be claimed by a publisher */
+    private final AtomicLong claimed = new AtomicLong();
+
+    /** Lowest processed sequence across subscribers when last checked; publishers re-check only when the ring looks full */
+    private volatile long gatingCache = -1;
+
+    /** Current subscribers; replaced as a whole when a subscriber joins or leaves */
+    private volatile Subscription[] subscribers = new Subscription[0];
+
+    /**
+     * Creates a bus with no subscribers.
+     *
+     * @param name     Name used for subscriber threads
+     * @param capacity Number of slots in the ring, a power of two
+     */
+    EventBus(String name, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.name = name;
+        this.ring = new Event[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Event();
+        }
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Starts delivering events published from now on to a handler, on a new daemon thread.
+     *
+     * @param subscriber Name of the subscriber, used in its thread name
+     * @param handler    The handler to receive events
+     * @return The subscription, to be closed when the subscriber is no longer needed
+     */
+    public synchronized Subscription subscribe(String subscriber, Handler handler) {
+        Subscription subscription = new Subscription(name + "-" + subscriber, handler, claimed.get() - 1);
+        Subscription[] current = subscribers;
+        Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = subscription;
+        subscribers = updated;
+        subscription.thread.start();
+        return subscription;
+    }
+
+    /**
+     * Publishes an event about an application.
+     *
+     * @param type        The kind of event
+     * @param application The application it concerns
+     */
+    public void publish(Type type, Application application) {
+        publish(type, application, null);
+    }
+
+    /**
+     * Publishes an event about an enquiry.
+     *
+     * @param type    The kind of event
+     * @param enquiry The enquiry it concerns
+     */
+    public void publish(Type type, Enquiry enquiry) {
+        publish(type, null, enquiry);
+    }
+
+    /**
+     * Gets the number of events published so far.
+     *
+     * @return The number of events
+     */
+    public long getPublished() {
+        return claimed.get();
+    }
+
+    private void publish(Type type, Application application, Enquiry enquiry) {
+        Subscription[] current = subscribers;
+        if (current.length == 0) {
+            return;
+        }
+        long seq = claimed.getAndIncrement();
+        long wrapPoint = seq - ring.length;
+        if (wrapPoint > gatingCache) {
+            awaitCapacity(wrapPoint, current);
+        }
+        Event event = ring[(int) seq & mask];
+        event.type = type;
+        event.application = application;
+        event.enquiry = enquiry;
+        event.timeMillis = System.currentTimeMillis();
+        event.sequence = seq;
+        for (Subscription s : current) {
+            // Read before trying to clear it, so a busy subscriber costs publishers no write
+            if (s.sleeping.get() && s.sleeping.compareAndSet(true, false)) {
+                LockSupport.unpark(s.thread);
+            }
+        }
+    }
+
+    /**
+     * Waits until every subscriber has handled the event that previously used the claimed slot.
+     */
+    private void awaitCapacity(long wrapPoint, Subscription[] current) {
+        while (true) {
+            long min = Long.MAX_VALUE;
+            for (Subscription s : current) {
+                if (s.running) {
+                    min = Math.min(min, s.processed);
+                }
+            }
+            if (min >= wrapPoint) {
+                gatingCache = min == Long.MAX_VALUE ? wrapPoint : min;
+                return;
+            }
+            LockSupport.parkNanos(1_000L);
+            current = subscribers;
+        }
+    }
+
+    private synchronized void unsubscribe(Subscription subscription) {
+        Subscription[] current = subscribers;
+        Subscription[] updated = new Subscription[current.length];
+        int n = 0;
+        for (Subscription s : current) {
+            if (s != subscription) {
+                updated[n++] = s;
+            }
+        }
+        subscribers = Arrays.copyOf(updated, n);
+    }
+}
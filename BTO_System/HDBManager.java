@@ -13,6 +13,9 @@ public class HDBManager extends User {
     /** The currently active project being managed */
     private Project activeProject;
 
+    /** Projects in the catalog that this manager is in charge of, indexed by application period */
+    private final ProjectIntervalIndex managedProjects = new ProjectIntervalIndex();
+
     /**
      * Constructs a new HDB Manager with the specified user information.
      *
@@ -35,11 +38,12 @@ public class HDBManager extends User {
      * @param unitsAvailable Map containing the number of units available for each flat type
      * @param openingDate The date when applications for this project open
      * @param closingDate The date when applications for this project close
+     * @return The outcome, with the message to show the manager
      */
-    public void createProject(String projectName, String neighborhood, List<FlatType> flatTypes, Map<FlatType, Integer> unitsAvailable, Date openingDate, Date closingDate) {
+    public ActionResult createProject(String projectName, String neighborhood, List<FlatType> flatTypes, Map<FlatType, Integer> unitsAvailable, Date openingDate, Date closingDate) {
         Project newProject = new Project(projectName, neighborhood, flatTypes, unitsAvailable, openingDate, closingDate, this);
         projectsCreated.add(newProject);
-        System.out.println("Project " + projectName + " created successfully.");
+        return ActionResult.ok("Project " + projectName + " created successfully.");
     }
 
     /**
@@ -48,43 +52,87 @@ public class HDBManager extends User {
      * If the project is currently hidden, it will be made visible.
      *
      * @param project The project whose visibility is to be toggled
+     * @return The outcome, with the message to show the manager
      */
-    public void toggleVisibility(Project project) {
+    public ActionResult toggleVisibility(Project project) {
         project.setVisibility(!project.isVisible());
-        System.out.println("Project visibility toggled.");
+        return ActionResult.ok("Project visibility toggled.");
     }
 
     /**
      * Approves an officer's registration for a specific project.
      * Adds the officer to the project and updates the officer's registered projects.
+     * Nothing changes if the project has no officer slots left.
      *
      * @param officer The officer to be approved
      * @param project The project for which the officer is being approved
+     * @return The outcome, with the message to show the manager
      */
-    public void approveOfficerRegistration(HDBOfficer officer, Project project) {
-        project.addOfficer(officer);
+    public ActionResult approveOfficerRegistration(HDBOfficer officer, Project project) {
+        if (!project.addOfficer(officer)) {
+            return ActionResult.fail("Officer slots full. Cannot register more officers.");
+        }
         officer.addRegisteredProject(project);
-        System.out.println("Officer " + officer.getNric() + " approved for project " + project.getProjectName());
+        return ActionResult.ok("Officer " + officer.getNric() + " approved for project " + project.getProjectName());
     }
 
     /**
      * Approves an application, updating its status to SUCCESSFUL.
      *
      * @param application The application to be approved
+     * @return The outcome, with the message to show the manager
      */
-    public void approveApplication(Application application) {
+    public ActionResult approveApplication(Application application) {
         application.updateStatus(ApplicationStatus.SUCCESSFUL);
-        System.out.println("Application approved.");
+        EventBus.DOMAIN.publish(EventBus.Type.APPLICATION_APPROVED, application);
+        return ActionResult.ok("Application approved.");
+    }
+
+    /**
+     * Rejects an application, updating its status to UNSUCCESSFUL.
+     *
+     * @param application The application to be rejected
+     * @return The outcome, with the message to show the manager
+     */
+    public ActionResult rejectApplication(Application application) {
+        application.updateStatus(ApplicationStatus.UNSUCCESSFUL);
+        EventBus.DOMAIN.publish(EventBus.Type.APPLICATION_REJECTED, application);
+        return ActionResult.ok("Application rejected.");
     }
 
     /**
      * Approves the withdrawal of an application, updating its status to UNSUCCESSFUL.
      *
      * @param application The application for which withdrawal is being approved
+     * @return The outcome, with the message to show the manager
      */
-    public void approveWithdrawal(Application application) {
+    public ActionResult approveWithdrawal(Application application) {
         application.updateStatus(ApplicationStatus.UNSUCCESSFUL);
-        System.out.println("Withdrawal approved.");
+        EventBus.DOMAIN.publish(EventBus.Type.APPLICATION_WITHDRAWN, application);
+        return ActionResult.ok("Withdrawal approved.");
+    }
+
+    /**
+     * Replies to an enquiry about one of this manager's projects.
+     *
+     * @param enquiry The enquiry to reply to
+     * @param reply The reply text
+     * @return The outcome, with the message to show the manager
+     */
+    public ActionResult replyEnquiry(Enquiry enquiry, String reply) {
+        enquiry.setReply(reply);
+        EventBus.DOMAIN.publish(EventBus.Type.ENQUIRY_REPLIED, enquiry);
+        return ActionResult.ok("Replied to enquiry: " + enquiry.getContent());
+    }
+
+    /**
+     * Gets the index of catalog projects this manager is in charge of.
+     * It is kept up to date by {@link ProjectCatalog} as projects are added, removed and reassigned.
+     *
+     * @return The interval index of managed projects
+     */
+    public ProjectIntervalIndex getManagedProjects() {
+        return managedProjects;
     }
 
     /**
@@ -103,5 +151,7 @@ public class HDBManager extends User {
      */
     public void setActiveProject(Project project) {
         this.activeProject = project;
+        WriteAheadLog.record(WriteAheadLog.RecordType.ACTIVE_PROJECT).putString(getNric())
+                .putString(project == null ? "" : project.getProjectName()).commit();
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package BTO_System;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Represents a Housing Development Board (HDB) Officer who can register for projects
@@ -11,6 +12,9 @@ public class HDBOfficer extends Applicant {
     /** List of projects this officer is registered to manage */
     private List<Project> registeredProjects;
 
+    /** The registered projects indexed by application period, for conflict checks */
+    private final ProjectIntervalIndex registeredProjectIndex = new ProjectIntervalIndex();
+
     /**
      * Constructs a new HDB Officer with the specified user information.
      *
@@ -21,7 +25,7 @@ public class HDBOfficer extends Applicant {
      */
     public HDBOfficer(String nric, String password, int age, MaritalStatus maritalStatus) {
         super(nric, password, age, maritalStatus);
-        this.registeredProjects = new ArrayList<>();
+        this.registeredProjects = new CopyOnWriteArrayList<>();
     }
 
     /**
@@ -30,19 +34,20 @@ public class HDBOfficer extends Applicant {
      * for a project they have applied to as an applicant.
      *
      * @param project The project to register for
+     * @return The outcome, with the message to show the officer
      */
-    public void registerForProject(Project project) {
+    public ActionResult registerForProject(Project project) {
         if (registeredProjects.size() >= 1) {
-            System.out.println("Cannot register for more than one project at a time.");
-            return;
+            return ActionResult.fail("Cannot register for more than one project at a time.");
         }
         if (this.getApplication() != null && this.getApplication().getProject() == project) {
-            System.out.println("Cannot register as Officer for a project you applied as Applicant.");
-            return;
+            return ActionResult.fail("Cannot register as Officer for a project you applied as Applicant.");
         }
-        registeredProjects.add(project);
-        project.addOfficer(this);
-        System.out.println("Registered for project: " + project.getProjectName());
+        if (!project.addOfficer(this)) {
+            return ActionResult.fail("Officer slots full. Cannot register more officers.");
+        }
+        addRegisteredProject(project);
+        return ActionResult.ok("Registered for project: " + project.getProjectName());
     }
 
     /**
@@ -60,10 +65,13 @@ public class HDBOfficer extends Applicant {
      * @param project The project to update
      * @param flatType The type of flat to update
      * @param count The new count of available units
+     * @return The outcome, with the message to show the officer
      */
-    public void updateFlatAvailability(Project project, FlatType flatType, int count) {
-        project.updateFlatUnits(flatType, count);
-        System.out.println("Updated flat availability for " + flatType + " to " + count);
+    public ActionResult updateFlatAvailability(Project project, FlatType flatType, int count) {
+        if (!project.updateFlatUnits(flatType, count)) {
+            return ActionResult.fail("Invalid flat type for this project.");
+        }
+        return ActionResult.ok("Updated flat availability for " + flatType + " to " + count);
     }
 
     /**
@@ -71,14 +79,15 @@ public class HDBOfficer extends Applicant {
      * Changes the application status to BOOKED.
      *
      * @param application The application for which to book a flat
+     * @return The outcome, with the message to show the officer
      */
-    public void bookFlat(Application application) {
+    public ActionResult bookFlat(Application application) {
         if (application.getStatus() != ApplicationStatus.SUCCESSFUL) {
-            System.out.println("Cannot book flat. Application status is not SUCCESSFUL.");
-            return;
+            return ActionResult.fail("Cannot book flat. Application status is not SUCCESSFUL.");
         }
         application.updateStatus(ApplicationStatus.BOOKED);
-        System.out.println("Flat booked for applicant: " + application.getApplicant().getNric());
+        EventBus.DOMAIN.publish(EventBus.Type.FLAT_BOOKED, application);
+        return ActionResult.ok("Flat booked for applicant: " + application.getApplicant().getNric());
     }
 
     /**
@@ -86,33 +95,53 @@ public class HDBOfficer extends Applicant {
      *
      * @param enquiry The enquiry to reply to
      * @param reply The reply text
+     * @return The outcome, with the message to show the officer
      */
-    public void replyEnquiry(Enquiry enquiry, String reply) {
+    public ActionResult replyEnquiry(Enquiry enquiry, String reply) {
         enquiry.setReply(reply);
-        System.out.println("Replied to enquiry: " + enquiry.getContent());
+        EventBus.DOMAIN.publish(EventBus.Type.ENQUIRY_REPLIED, enquiry);
+        return ActionResult.ok("Replied to enquiry: " + enquiry.getContent());
+    }
+
+    /**
+     * Claims the oldest unanswered enquiry from the projects this officer is registered for.
+     * The enquiry is leased to this officer, so other officers are not given it until this officer
+     * replies, releases it or lets the lease expire.
+     *
+     * @param skip Enquiries this officer has already passed over in this session
+     * @return The claimed enquiry, or null if there are no unanswered enquiries left
+     */
+    public Enquiry claimNextEnquiry(Set<Enquiry> skip) {
+        for (Project project : registeredProjects) {
+            Enquiry enquiry = project.getEnquiryQueue().claim(this, skip);
+            if (enquiry != null) {
+                return enquiry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gives up this officer's claim on an enquiry without replying, so another officer can take it.
+     *
+     * @param enquiry The enquiry to release
+     */
+    public void releaseEnquiry(Enquiry enquiry) {
+        enquiry.getRelatedProject().getEnquiryQueue().release(enquiry, this);
     }
 
     /**
      * Generates a receipt for an application with a booked flat.
+     * The caller decides how to show it, for example with {@link Session#write(Renderable)}.
      *
      * @param application The application for which to generate a receipt
      * @return A Receipt object if the flat is booked, null otherwise
      */
     public Receipt generateReceipt(Application application) {
         if (application.getStatus() != ApplicationStatus.BOOKED) {
-            System.out.println("Receipt cannot be generated. Flat not booked yet.");
             return null;
         }
-        Receipt receipt = new Receipt(
-                application.getApplicant().getNric(),
-                application.getApplicant().getAge(),
-                application.getApplicant().getMaritalStatus(),
-                application.getFlatTypeChosen(),
-                application.getProject().getProjectName(),
-                new Date()
-        );
-        System.out.println("Receipt generated for " + application.getApplicant().getNric());
-        return receipt;
+        return new Receipt(application, new Date());
     }
 
     /**
@@ -131,5 +160,19 @@ public class HDBOfficer extends Applicant {
      */
     public void addRegisteredProject(Project project) {
         registeredProjects.add(project);
+        registeredProjectIndex.add(project);
+        WriteAheadLog.record(WriteAheadLog.RecordType.OFFICER_REGISTERED).putString(getNric())
+                .putString(project.getProjectName()).commit();
+    }
+
+    /**
+     * Checks whether a project clashes with the projects this officer is registered for,
+     * either because it is one of them or because its application period overlaps one of them.
+     *
+     * @param project The project to check
+     * @return true if the project conflicts with a registered project
+     */
+    public boolean conflictsWithRegistration(Project project) {
+        return registeredProjectIndex.contains(project) || registeredProjectIndex.hasOverlap(project);
     }
 }
@@ -0,0 +1,111 @@
+package BTO_System;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out unique, increasing integer IDs to concurrent sessions without making them contend.
+ *
+ * <p>A shared high-water mark records the first ID not yet given out. Each thread leases a block
+ * of IDs from it with a single atomic add, then hands out IDs from that block with no
+ * synchronisation at all until it runs out. IDs are unique across threads and increase within
+ * each thread. An ID allocated later on another thread may be lower, because blocks leased
+ * earlier can still be in use.</p>
+ *
+ * <p>Every lease is recorded in the {@link WriteAheadLog} as the new high-water mark, and
+ * snapshots save the mark too. After a restart the allocator resumes above every ID that was
+ * leased before, so IDs are never reused even if the process was killed. The only cost is a gap
+ * for the unused part of each thread's last block.</p>
+ */
+final class IdAllocator {
+    /** Number of IDs a thread leases at a time */
+    static final int DEFAULT_BLOCK_SIZE = 64;
+
+    /** IDs for applications */
+    static final IdAllocator APPLICATIONS = new IdAllocator("application", DEFAULT_BLOCK_SIZE);
+
+    /** IDs for enquiries */
+    static final IdAllocator ENQUIRIES = new IdAllocator("enquiry", DEFAULT_BLOCK_SIZE);
+
+    /** Name identifying this allocator in the log */
+    private final String name;
+
+    /** Number of IDs leased at a time */
+    private final int blockSize;
+
+    /** First ID not yet leased to any thread */
+    private final AtomicInteger highWater = new AtomicInteger(1);
+
+    /** Lowest ID that may still be handed out; leases below it are abandoned */
+    private volatile int floor = 1;
+
+    /** The block each thread is currently handing out: {next ID, end of block (exclusive)} */
+    private final ThreadLocal<int[]> lease = ThreadLocal.withInitial(() -> new int[] {0, 0});
+
+    /**
+     * Creates an allocator whose first ID is 1.
+     *
+     * @param name      Name identifying the allocator in the log
+     * @param blockSize Number of IDs each thread leases at a time
+     */
+    IdAllocator(String name, int blockSize) {
+        this.name = name;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Finds one of the shared allocators by name, for replaying the log.
+     *
+     * @param name The allocator name
+     * @return The allocator, or null if the name is unknown
+     */
+    static IdAllocator forName(String name) {
+        if (APPLICATIONS.name.equals(name)) {
+            return APPLICATIONS;
+        }
+        if (ENQUIRIES.name.equals(name)) {
+            return ENQUIRIES;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the next ID for the calling thread, leasing a new block if its current one is used up.
+     *
+     * @return A unique ID
+     */
+    public int next() {
+        int[] block = lease.get();
+        if (block[0] >= block[1] || block[0] < floor) {
+            int start = highWater.getAndAdd(blockSize);
+            block[0] = start;
+            block[1] = start + blockSize;
+            WriteAheadLog.record(WriteAheadLog.RecordType.ID_LEASE).putString(name).putInt(block[1]).commit();
+        }
+        return block[0]++;
+    }
+
+    /**
+     * Gets the high-water mark: every ID handed out so far is below it.
+     *
+     * @return The first ID not yet leased
+     */
+    public int peekNext() {
+        return highWater.get();
+    }
+
+    /**
+     * Moves the high-water mark forward so that IDs below the given value are never handed out.
+     * Blocks leased below the new mark are abandoned. Used when restoring state.
+     *
+     * @param nextID The lowest ID that may be handed out from now on
+     */
+    public void ensureNext(int nextID) {
+        if (floor >= nextID) {
+            return;
+        }
+        highWater.accumulateAndGet(nextID, Math::max);
+        synchronized (this) {
+            floor = Math.max(floor, nextID);
+        }
+    }
+}
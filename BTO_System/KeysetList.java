@@ -0,0 +1,97 @@
+package BTO_System;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Items kept in order of an integer ID, for listing them a page at a time from any ID onwards.
+ *
+ * <p>IDs are held in a sorted int array with the items in a parallel array. New items normally
+ * have the highest ID so far, so adding is usually an append; finding where a page starts is a
+ * binary search. Removal shifts the later entries down and is meant for rare deletions.</p>
+ *
+ * <p>This class is not thread-safe; the owner guards it with its own lock.</p>
+ *
+ * @param <T> The item type
+ */
+class KeysetList<T> {
+    private int[] ids = new int[8];
+    private Object[] items = new Object[8];
+    private int size;
+
+    /**
+     * Adds an item, or replaces the item already held under its ID.
+     *
+     * @param id   The item's ID
+     * @param item The item
+     */
+    void add(int id, T item) {
+        int pos = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0 && pos < size) {
+            items[pos] = item;
+            return;
+        }
+        if (pos < 0) {
+            pos = -pos - 1;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            items = Arrays.copyOf(items, size * 2);
+        }
+        System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+        System.arraycopy(items, pos, items, pos + 1, size - pos);
+        ids[pos] = id;
+        items[pos] = item;
+        size++;
+    }
+
+    /**
+     * Removes the item held under an ID.
+     *
+     * @param id The item's ID
+     */
+    void remove(int id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos < 0) {
+            return;
+        }
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        System.arraycopy(items, pos + 1, items, pos, size - pos - 1);
+        size--;
+        items[size] = null;
+    }
+
+    /**
+     * Gets the number of items.
+     *
+     * @return The number of items
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Collects the items after an ID, in ID order, that pass a filter.
+     *
+     * @param afterId The ID to start after
+     * @param limit   The most items to collect
+     * @param filter  The condition items must meet, or null for none
+     * @param out     The list to add the items to
+     * @return The number of items added
+     */
+    @SuppressWarnings("unchecked")
+    int collect(int afterId, int limit, Predicate<? super T> filter, List<T> out) {
+        int pos = Arrays.binarySearch(ids, 0, size, afterId);
+        pos = pos >= 0 ? pos + 1 : -pos - 1;
+        int added = 0;
+        for (; pos < size && added < limit; pos++) {
+            T item = (T) items[pos];
+            if (filter == null || filter.test(item)) {
+                out.add(item);
+                added++;
+            }
+        }
+        return added;
+    }
+}
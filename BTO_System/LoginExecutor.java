@@ -0,0 +1,91 @@
+package BTO_System;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed pool of threads that does the password hashing for logins and password changes.
+ *
+ * <p>Each check costs a deliberately large amount of CPU (see {@link Credentials}). Running them
+ * on session threads would let a burst of logins use every core and stall the sessions already
+ * logged in. Instead, at most one hash per core runs at a time and waiting requests queue in a
+ * bounded queue. When the queue is full a new request is turned away at once with a
+ * {@link RejectedExecutionException}, so the caller can ask the user to try again rather than
+ * piling up more work.</p>
+ *
+ * <p>The pool size and queue length are set with the {@code bto.loginThreads} and
+ * {@code bto.loginQueue} system properties.</p>
+ */
+final class LoginExecutor {
+    /** The pool shared by all sessions */
+    static final LoginExecutor SHARED = new LoginExecutor(
+            Integer.getInteger("bto.loginThreads", Runtime.getRuntime().availableProcessors()),
+            Integer.getInteger("bto.loginQueue", 32 * Runtime.getRuntime().availableProcessors()));
+
+    private final ThreadPoolExecutor pool;
+
+    /**
+     * Creates a pool of daemon threads.
+     *
+     * @param threads       Number of hashes that may run at once
+     * @param queueCapacity Number of requests that may wait before new ones are turned away
+     */
+    LoginExecutor(int threads, int queueCapacity) {
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "bto-login");
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Runs a task on the pool and waits for its result.
+     *
+     * @param task The task, normally a password check or hash
+     * @param <T>  The result type
+     * @return The task's result
+     * @throws RejectedExecutionException if the queue is full
+     */
+    <T> T call(Callable<T> task) {
+        Future<T> future = pool.submit(task);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    // The task is already queued, so see it through and restore the interrupt afterwards
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of requests waiting for a thread.
+     *
+     * @return The queue length
+     */
+    int getQueued() {
+        return pool.getQueue().size();
+    }
+}
@@ -1,7 +1,19 @@
 package BTO_System;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.text.SimpleDateFormat;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -13,10 +25,30 @@ import java.util.stream.Collectors;
  * @version 1.0
  */
 public class Main {
-    private static List<User> users = new ArrayList<>();
-    private static List<Project> projects = new ArrayList<>();
-    private static List<Enquiry> enquiries = new ArrayList<>();
-    private static Scanner scanner = new Scanner(System.in);
+    /** Default TCP port used by server mode */
+    private static final int DEFAULT_PORT = 5000;
+
+    /** Directory holding the write-ahead log and snapshot, overridable with -Dbto.data=path */
+    private static final Path DATA_DIR = Paths.get(System.getProperty("bto.data", "data"));
+
+    /** Minutes between periodic snapshots in server mode, overridable with -Dbto.snapshotMinutes=n */
+    private static final long SNAPSHOT_INTERVAL_MINUTES = Long.getLong("bto.snapshotMinutes", 10);
+
+    /** Minutes between demand counter consistency checks, overridable with -Dbto.demandCheckMinutes=n */
+    private static final long DEMAND_CHECK_INTERVAL_MINUTES = Long.getLong("bto.demandCheckMinutes", 5);
+
+    /** Maximum number of results shown for an enquiry search */
+    private static final int ENQUIRY_SEARCH_LIMIT = 50;
+
+    /** Number of project names suggested when a typed name matches none */
+    private static final int NAME_SUGGESTIONS = 5;
+
+    /** Number of items shown per page of a long listing, overridable with -Dbto.pageSize=n; at least 1 */
+    private static final int PAGE_SIZE = Math.max(1, Integer.getInteger("bto.pageSize", 20));
+
+    private static final UserRegistry users = new UserRegistry();
+    private static final ProjectCatalog projects = new ProjectCatalog();
+    private static final List<Enquiry> enquiries = new CopyOnWriteArrayList<>();
 
     /**
      * Checks if two projects have overlapping dates.
@@ -26,45 +58,299 @@ public class Main {
      * @return true if the projects' dates overlap, false otherwise
      */
     private static boolean isDateOverlap(Project p1, Project p2) {
-        return !(p1.getClosingDate().before(p2.getOpeningDate()) || p1.getOpeningDate().after(p2.getClosingDate()));
+        return p1.overlaps(p2);
     }
     
     /**
      * The main method serving as the entry point for the BTO Management System.
      * Initializes the system, loads data, and presents the login interface.
+     * Run with {@code --server [port]} to accept concurrent sessions over TCP
+     * instead of serving a single user on the console. Users and projects can be
+     * bulk loaded from CSV exports with {@code --import-users file} and
+     * {@code --import-projects file} before the system starts serving.
      * 
-     * @param args Command-line arguments (not used)
+     * @param args Command-line arguments: optionally {@code --import-users file},
+     *             {@code --import-projects file} and {@code --server [port]}
      */
     public static void main(String[] args) {
-        loadInitialData();
-        System.out.println("Welcome to the BTO Management System");
+        recoverState();
+        Notifications.SHARED.subscribeTo(EventBus.DOMAIN);
 
-        while (true) {
-            System.out.print("Enter NRIC: ");
-            String nric = scanner.nextLine().toUpperCase();
+        Integer port = null;
+        String userCsv = null;
+        String projectCsv = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--server")) {
+                port = (i + 1 < args.length && args[i + 1].matches("\\d+")) ? Integer.parseInt(args[++i]) : DEFAULT_PORT;
+            } else if (args[i].equals("--import-users") && i + 1 < args.length) {
+                userCsv = args[++i];
+            } else if (args[i].equals("--import-projects") && i + 1 < args.length) {
+                projectCsv = args[++i];
+            }
+        }
+        if (userCsv != null || projectCsv != null) {
+            importCsv(userCsv, projectCsv);
+        }
 
-            if (!nric.matches("[ST]\\d{7}[A-Z]")) {
-                System.out.println("Invalid NRIC format.");
-                continue;
+        ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bto-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        maintenance.scheduleWithFixedDelay(new DemandChecker(projects),
+                DEMAND_CHECK_INTERVAL_MINUTES, DEMAND_CHECK_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        maintenance.scheduleWithFixedDelay(SessionTokens.SHARED::purge, 1, 1, TimeUnit.MINUTES);
+
+        if (port != null) {
+            ScheduledExecutorService snapshots = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "bto-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+            snapshots.scheduleWithFixedDelay(Main::checkpoint,
+                    SNAPSHOT_INTERVAL_MINUTES, SNAPSHOT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+            try {
+                new SessionServer(port, Main::runSession).serve();
+            } catch (IOException e) {
+                System.err.println("Could not start server: " + e.getMessage());
             }
+            return;
+        }
 
-            System.out.print("Enter password: ");
-            String password = scanner.nextLine();
+        runSession(new Session(System.in, System.out, null));
+        checkpoint();
+    }
+
+    /**
+     * Restores the system's state from the latest snapshot and write-ahead log,
+     * falling back to the built-in seed data when no snapshot exists yet.
+     * Logging is switched on once recovery is done, and a fresh snapshot is taken
+     * so the next startup does not have to replay the same records again.
+     */
+    private static void recoverState() {
+        Path snapshotFile = DATA_DIR.resolve("snapshot.bin");
+        Path walDir = DATA_DIR.resolve("wal");
+        try {
+            int fromSegment = 0;
+            if (Files.exists(snapshotFile)) {
+                fromSegment = SnapshotStore.load(snapshotFile, users, projects);
+            } else {
+                loadInitialData();
+            }
+            int replayed = WriteAheadLog.replay(walDir, fromSegment, users, projects);
+            if (replayed > 0) {
+                System.err.println("Recovered " + replayed + " changes from " + walDir);
+            }
+            WriteAheadLog.open(walDir);
+        } catch (IOException e) {
+            System.err.println("Saved data unavailable, changes will not be saved: " + e.getMessage());
+            if (users.size() == 0) {
+                loadInitialData();
+            }
+            return;
+        }
+        checkpoint();
+    }
 
-            User user = login(nric, password);
-            if (user == null) {
-                System.out.println("Login failed. Please try again.");
-                continue;
+    /**
+     * Bulk loads users and then projects from CSV files and saves a snapshot of the result.
+     * Progress and throughput are reported on standard error.
+     *
+     * @param userCsv The user CSV file, or null to skip
+     * @param projectCsv The project CSV file, or null to skip
+     */
+    private static void importCsv(String userCsv, String projectCsv) {
+        try {
+            if (userCsv != null) {
+                System.err.println("Imported users: " + CsvImporter.importUsers(Paths.get(userCsv), users));
+            }
+            if (projectCsv != null) {
+                System.err.println("Imported projects: " + CsvImporter.importProjects(Paths.get(projectCsv), projects, users));
             }
+        } catch (IOException e) {
+            System.err.println("Import failed: " + e.getMessage());
+        }
+        checkpoint();
+    }
 
-            System.out.println("Login successful. Welcome, " + user.getNric());
-            if (user instanceof HDBManager) {
-                managerMenu((HDBManager) user);
-            } else if (user instanceof HDBOfficer) {
-                officerMenu((HDBOfficer) user);
-            } else if (user instanceof Applicant) {
-                applicantMenu((Applicant) user);
+    /**
+     * Saves a snapshot of the current state and deletes the log segments it covers.
+     * The log is rolled to a new segment first; any change made while the snapshot is
+     * being written lands in the new segment and is replayed on top of the snapshot.
+     */
+    private static synchronized void checkpoint() {
+        Path walDir = DATA_DIR.resolve("wal");
+        try {
+            int segment = WriteAheadLog.roll();
+            if (segment < 0) {
+                return;
             }
+            SnapshotStore.write(DATA_DIR.resolve("snapshot.bin"), segment, users, projects);
+            WriteAheadLog.deleteSegmentsBefore(walDir, segment);
+        } catch (IOException e) {
+            System.err.println("Snapshot failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs the login loop for one session, dispatching each authenticated
+     * user to the menu for their role, until the client disconnects.
+     * 
+     * @param session The session to serve
+     */
+    private static void runSession(Session session) {
+        session.println("Welcome to the BTO Management System");
+
+        try {
+            while (true) {
+                session.print("Enter NRIC (or session token to resume): ");
+                String input = session.nextLine().trim();
+                String nric = input.toUpperCase();
+                User user;
+
+                if (!User.isValidNric(nric)) {
+                    // Not an NRIC, so it may be the token of a session that was disconnected
+                    SessionTokens.Token resumed = SessionTokens.SHARED.resume(input);
+                    if (resumed == null) {
+                        session.println("Invalid NRIC format, or the session token has expired.");
+                        continue;
+                    }
+                    session.setToken(resumed);
+                    user = resumed.getUser();
+                    session.println("Session resumed. Welcome back, " + user.getNric());
+                } else {
+                    session.print("Enter password: ");
+                    String password = session.nextLine();
+
+                    try {
+                        user = login(nric, password);
+                    } catch (RejectedExecutionException e) {
+                        session.println("Too many logins in progress. Please try again shortly.");
+                        continue;
+                    }
+                    if (user == null) {
+                        session.println("Login failed. Please try again.");
+                        continue;
+                    }
+
+                    session.println("Login successful. Welcome, " + user.getNric());
+                    issueToken(session, user);
+                }
+                for (String message : Notifications.SHARED.take(user.getNric())) {
+                    session.println(message);
+                }
+
+                if (user instanceof HDBManager) {
+                    managerMenu(session, (HDBManager) user);
+                } else if (user instanceof HDBOfficer) {
+                    officerMenu(session, (HDBOfficer) user);
+                } else if (user instanceof Applicant) {
+                    applicantMenu(session, (Applicant) user);
+                }
+                // The menu returned, so the user logged out: the token must not resume the session
+                SessionTokens.SHARED.revoke(session.getToken());
+                session.setToken(null);
+            }
+        } catch (NoSuchElementException e) {
+            // input closed: the client has disconnected; its token stays valid so it can resume
+        }
+    }
+
+    /**
+     * Prompts for a project by name, ignoring case. A name that matches no project exactly but is
+     * the start of exactly one project's name selects that project; otherwise the closest names
+     * are suggested.
+     *
+     * @param session   The session to interact through
+     * @param prompt    The prompt to show
+     * @param condition A condition the project must meet, such as being visible, or null for none
+     * @return The chosen project, or null if the name matched none
+     */
+    private static Project promptProject(Session session, String prompt, Predicate<Project> condition) {
+        session.print(prompt);
+        String typed = session.nextLine().trim();
+        Project exact = projects.findByName(typed, condition);
+        if (exact != null || typed.isEmpty()) {
+            return exact;
+        }
+        List<Project> completions = projects.completeName(typed, NAME_SUGGESTIONS + 1);
+        List<Project> matches = new ArrayList<>();
+        for (Project p : completions) {
+            if (condition == null || condition.test(p)) {
+                matches.add(p);
+            }
+        }
+        // Only a complete list of completions shows that a match is the only one
+        if (matches.size() == 1 && completions.size() <= NAME_SUGGESTIONS) {
+            session.println("Using project " + matches.get(0).getProjectName() + ".");
+            return matches.get(0);
+        }
+        if (!matches.isEmpty()) {
+            StringBuilder names = new StringBuilder("Did you mean: ");
+            for (int i = 0; i < Math.min(matches.size(), NAME_SUGGESTIONS); i++) {
+                names.append(i == 0 ? "" : ", ").append(matches.get(i).getProjectName());
+            }
+            session.println(names.append('?').toString());
+        }
+        return null;
+    }
+
+    /**
+     * Shows a listing a page at a time, fetching each page only when the user asks for it.
+     *
+     * @param session The session to interact through
+     * @param pages   Fetches the page after a cursor; null fetches the first page
+     * @param show    Shows one item
+     * @param empty   The message shown if the listing is empty
+     * @param <T>     The item type
+     */
+    private static <T> void showPages(Session session, Function<String, Page<T>> pages, Consumer<T> show, String empty) {
+        Page<T> page = pages.apply(null);
+        if (page.getItems().isEmpty()) {
+            session.println(empty);
+            return;
+        }
+        while (true) {
+            page.getItems().forEach(show);
+            if (!page.hasMore()) {
+                return;
+            }
+            session.print("-- More: press Enter for the next page, or q to stop: ");
+            if (session.nextLine().trim().equalsIgnoreCase("q")) {
+                return;
+            }
+            page = pages.apply(page.getNextCursor());
+        }
+    }
+
+    /**
+     * Issues a session token to a user who has just proved their identity and shows it to them.
+     *
+     * @param session The session the user is logged in to
+     * @param user    The authenticated user
+     */
+    private static void issueToken(Session session, User user) {
+        SessionTokens.Token token = SessionTokens.SHARED.issue(user);
+        session.setToken(token);
+        session.println("Session token: " + token.getValue());
+        session.println("(Enter it at the NRIC prompt to resume this session if you are disconnected.)");
+    }
+
+    /**
+     * Prompts for and sets a new password. A change invalidates every session token of the user,
+     * so this session is given a new one.
+     *
+     * @param session The session to interact through
+     * @param user    The logged-in user
+     */
+    private static void changePassword(Session session, User user) {
+        session.print("Enter your new password: ");
+        String newPassword = session.nextLine();
+        ActionResult result = user.changePassword(newPassword);
+        session.println(result.getMessage());
+        if (result.isSuccess()) {
+            SessionTokens.SHARED.revoke(session.getToken());
+            issueToken(session, user);
         }
     }
 
@@ -112,139 +398,113 @@ public class Main {
      * @param nric The NRIC identifier of the user
      * @param password The password for authentication
      * @return The authenticated User object if successful, null otherwise
+     * @throws RejectedExecutionException if too many logins are already waiting to be checked
      */
     private static User login(String nric, String password) {
-        for (User user : users) {
-            if (user.login(nric, password)) {
-                return user;
-            }
-        }
-        return null;
+        return users.login(nric, password);
     }
 
     /**
      * Displays and handles the menu options for Applicant users.
      * Provides functionality for viewing projects, applying, and managing applications.
      * 
+     * @param session The session the user is interacting through
      * @param applicant The Applicant user accessing the menu
      */
-    private static void applicantMenu(Applicant applicant) {
+    private static void applicantMenu(Session session, Applicant applicant) {
         while (true) {
-            System.out.println("\n[Applicant Menu]");
-            System.out.println("1. View Available Projects");
-            System.out.println("2. Apply for Project");
-            System.out.println("3. View Application Status");
-            System.out.println("4. Withdraw Application");
-            System.out.println("5. Submit Enquiry");
-            System.out.println("6. View/Edit/Delete My Enquiries");
-            System.out.println("7. Change Password");
-            System.out.println("8. Logout");
-            System.out.print("Choose an option: ");
-            int choice = Integer.parseInt(scanner.nextLine());
+            session.println("\n[Applicant Menu]");
+            session.println("1. View Available Projects");
+            session.println("2. Apply for Project");
+            session.println("3. View Application Status");
+            session.println("4. Withdraw Application");
+            session.println("5. Submit Enquiry");
+            session.println("6. View/Edit/Delete My Enquiries");
+            session.println("7. Change Password");
+            session.println("8. Logout");
+            session.print("Choose an option: ");
+            int choice = Integer.parseInt(session.nextLine());
 
             switch (choice) {
                 case 1:
-                    for (Project p : projects) {
-                        if (p.isVisible()) {
-                            boolean eligible = applicant.getMaritalStatus() == MaritalStatus.MARRIED && applicant.getAge() >= 21
-                                    || applicant.getMaritalStatus() == MaritalStatus.SINGLE && applicant.getAge() >= 35;
-                            if (eligible) p.displayProjectDetails();
-                        }
-                    }
+                    showPages(session, cursor -> projects.pageEligibleProjects(applicant, cursor, PAGE_SIZE),
+                            session::write, "No projects are open to you at the moment.");
                     break;
                 case 2:
                     if (applicant.getApplication() != null &&
                             (applicant.getApplication().getStatus() == ApplicationStatus.PENDING ||
                              applicant.getApplication().getStatus() == ApplicationStatus.SUCCESSFUL ||
                              applicant.getApplication().getStatus() == ApplicationStatus.BOOKED)) {
-                        System.out.println("You already have an ongoing application.");
+                        session.println("You already have an ongoing application.");
                         break;
                     }
-                    System.out.print("Enter project name: ");
-                    String pname = scanner.nextLine();
-                    Project selected = projects.stream()
-                        .filter(p -> p.getProjectName().equalsIgnoreCase(pname) && p.isVisible())
-                        .findFirst().orElse(null);
+                    Project selected = promptProject(session, "Enter project name: ", Project::isVisible);
 
                     if (selected == null) {
-                        System.out.println("Project not found or not visible.");
+                        session.println("Project not found or not visible.");
                         break;
                     }
-                    if (applicant.getMaritalStatus() == MaritalStatus.SINGLE) {
-                        if (applicant.getAge() < 35) {
-                            System.out.println("You must be at least 35 and single to apply.");
-                        } else {
-                            applicant.applyForProject(selected, FlatType.TWOROOM);
-                        }
+                    Set<FlatType> allowed = Eligibility.allowedFlatTypes(applicant);
+                    if (allowed.isEmpty()) {
+                        session.println(Eligibility.requirement(applicant));
+                    } else if (allowed.size() == 1) {
+                        session.println(applicant.applyForProject(selected, allowed.iterator().next()).getMessage());
                     } else {
-                        if (applicant.getAge() < 21) {
-                            System.out.println("You must be at least 21 and married to apply.");
-                        } else {
-                            System.out.print("Enter flat type (TWOROOM/THREEROOM): ");
-                            try {
-                                FlatType type = FlatType.valueOf(scanner.nextLine().toUpperCase());
-                                applicant.applyForProject(selected, type);
-                            } catch (IllegalArgumentException e) {
-                                System.out.println("Invalid flat type.");
-                            }
+                        session.print("Enter flat type (TWOROOM/THREEROOM): ");
+                        try {
+                            FlatType type = FlatType.valueOf(session.nextLine().toUpperCase());
+                            session.println(applicant.applyForProject(selected, type).getMessage());
+                        } catch (IllegalArgumentException e) {
+                            session.println("Invalid flat type.");
                         }
                     }
                     //added this
                     if (applicant instanceof HDBOfficer) {
                         HDBOfficer officer = (HDBOfficer) applicant;
-                        for (Project registered : officer.getRegisteredProjects()) {
-                            if (registered == selected || isDateOverlap(registered, selected)) {
-                                System.out.println("You cannot apply for this project because you are registered as an officer for a conflicting project.");
-                                return;
-                            }
+                        if (officer.conflictsWithRegistration(selected)) {
+                            session.println("You cannot apply for this project because you are registered as an officer for a conflicting project.");
+                            return;
                         }
                     }
                     break;
                 case 3:
-                    applicant.viewApplicationStatus();
+                    session.println(applicant.describeApplicationStatus());
                     break;
                 case 4:
-                    applicant.withdrawApplication();
+                    session.println(applicant.withdrawApplication().getMessage());
                     break;
                 case 5:
-                    System.out.print("Enter project name for enquiry: ");
-                    String proj = scanner.nextLine();
-                    Project p = projects.stream().filter(pr -> pr.getProjectName().equalsIgnoreCase(proj)).findFirst().orElse(null);
+                    Project p = promptProject(session, "Enter project name for enquiry: ", null);
                     if (p != null) {
-                        System.out.print("Enter enquiry: ");
-                        String content = scanner.nextLine();
+                        session.print("Enter enquiry: ");
+                        String content = session.nextLine();
                         Enquiry e = new Enquiry(content, applicant, p);
                         p.addEnquiry(e);
-                        System.out.println("Enquiry submitted.");
+                        session.println("Enquiry submitted.");
                     } else {
-                        System.out.println("Project not found.");
+                        session.println("Project not found.");
                     }
                     break;
                 case 6:
-                    List<Enquiry> myEnquiries = new ArrayList<>();
-                    for (Project projx : projects) {
-                        for (Enquiry e : projx.getEnquiries()) {
-                            if (e.getSubmittedBy().equals(applicant)) {
-                                myEnquiries.add(e);
-                                e.displayEnquiry();
-                            }
-                        }
+                    List<Enquiry> myEnquiries = applicant.findMyEnquiries(projects);
+                    for (Enquiry e : myEnquiries) {
+                        session.write(e);
                     }
-                    System.out.print("Enter enquiry ID to edit/delete (blank to skip): ");
-                    String input = scanner.nextLine();
+                    session.print("Enter enquiry ID to edit/delete (blank to skip): ");
+                    String input = session.nextLine();
                     if (!input.isBlank()) {
                         int id = Integer.parseInt(input);
                         for (Enquiry e : myEnquiries) {
                             if (e.getEnquiryID() == id) {
-                                System.out.print("Edit (e) or Delete (d)? ");
-                                String action = scanner.nextLine();
+                                session.print("Edit (e) or Delete (d)? ");
+                                String action = session.nextLine();
                                 if (action.equalsIgnoreCase("e")) {
-                                    System.out.print("Enter new content: ");
-                                    e.setContent(scanner.nextLine());
-                                    System.out.println("Updated.");
+                                    session.print("Enter new content: ");
+                                    e.setContent(session.nextLine());
+                                    session.println("Updated.");
                                 } else if (action.equalsIgnoreCase("d")) {
-                                    e.getRelatedProject().getEnquiries().remove(e);
-                                    System.out.println("Deleted.");
+                                    e.getRelatedProject().removeEnquiry(e);
+                                    session.println("Deleted.");
                                 }
                                 break;
                             }
@@ -252,159 +512,205 @@ public class Main {
                     }
                     break;
                 case 7:
-                    System.out.print("Enter your new password: ");
-                    String newPassword = scanner.nextLine();
-                    applicant.changePassword(newPassword);
-                    System.out.println("Password changed successfully.");
+                    changePassword(session, applicant);
                     break;
                 
                 case 8:
                     return;
                 default:
-                    System.out.println("Invalid option.");
+                    session.println("Invalid option.");
             }
         }
     }
 
+    /**
+     * Opens the applicant menu for an officer. The session's token remembers this until the
+     * officer leaves the menu, so a session disconnected here resumes here.
+     *
+     * @param session The session to interact through
+     * @param officer The officer using the applicant features
+     */
+    private static void useApplicantFeatures(Session session, HDBOfficer officer) {
+        SessionTokens.Token token = session.getToken();
+        if (token != null) {
+            token.setApplicantView(true);
+        }
+        applicantMenu(session, officer);
+        if (token != null) {
+            token.setApplicantView(false);
+        }
+    }
+
     /**
      * Displays and handles the menu options for HDB Officer users.
      * Provides functionality for project registration, enquiry management, and applicant approvals.
      * 
+     * @param session The session the user is interacting through
      * @param officer The HDBOfficer user accessing the menu
      */
-    private static void officerMenu(HDBOfficer officer) {
+    private static void officerMenu(Session session, HDBOfficer officer) {
+        SessionTokens.Token token = session.getToken();
+        if (token != null && token.isApplicantView()) {
+            useApplicantFeatures(session, officer);
+        }
         while (true) {
-            System.out.println("\n[HDB Officer Menu]");
-            System.out.println("1. View Registered Projects");
-            System.out.println("2. Register for Project");
-            System.out.println("3. View Project Details");
-            System.out.println("4. View/Reply Enquiries");
-            System.out.println("5. Book Flat for Applicant");
-            System.out.println("6. Generate Receipt");
-            System.out.println("7. Use Applicant Features");
-            System.out.println("8. Change Password");
-            System.out.println("9. Logout");
-            System.out.print("Choose an option: ");
-            int choice = Integer.parseInt(scanner.nextLine());
+            session.println("\n[HDB Officer Menu]");
+            session.println("1. View Registered Projects");
+            session.println("2. Register for Project");
+            session.println("3. View Project Details");
+            session.println("4. View/Reply Enquiries");
+            session.println("5. Book Flat for Applicant");
+            session.println("6. Generate Receipt");
+            session.println("7. Use Applicant Features");
+            session.println("8. Change Password");
+            session.println("9. Logout");
+            session.print("Choose an option: ");
+            int choice = Integer.parseInt(session.nextLine());
 
             switch (choice) {
                 case 1:
-                System.out.println("[Registered Projects]");
+                session.println("[Registered Projects]");
                 boolean hasRegistered = false;
                 for (Project p : projects) {
                     if (p.getOfficersList().contains(officer)) {
-                        System.out.println("✔ " + p.getProjectName() + " (Approved)");
+                        session.println("✔ " + p.getProjectName() + " (Approved)");
                         hasRegistered = true;
                     } else if (p.getPendingOfficerRequests().contains(officer)) {
-                        System.out.println("🕓 " + p.getProjectName() + " (Pending Approval)");
+                        session.println("🕓 " + p.getProjectName() + " (Pending Approval)");
                         hasRegistered = true;
                     }
                 }
                 if (!hasRegistered) {
-                    System.out.println("You are not registered or pending for any projects.");
+                    session.println("You are not registered or pending for any projects.");
                 }
                 break;
             
                 case 2:
-                    System.out.print("Enter project name to register: ");
-                    String name = scanner.nextLine();
-                    Project regProj = projects.stream()
-                            .filter(p -> p.getProjectName().equalsIgnoreCase(name)).findFirst().orElse(null);
+                    Project regProj = promptProject(session, "Enter project name to register: ", null);
                     if (regProj == null) {
-                        System.out.println("Project not found.");
+                        session.println("Project not found.");
                         break;
                     }
                     if (officer.getApplication() != null) {
                         Project appliedProj = officer.getApplication().getProject();
                         if (regProj == appliedProj || isDateOverlap(regProj, appliedProj)) {
-                            System.out.println("Cannot register as officer due to conflict with your application project.");
+                            session.println("Cannot register as officer due to conflict with your application project.");
                             break;
                         }
                     }
-                    boolean conflict = officer.getRegisteredProjects().stream().anyMatch(
-                        p -> !(regProj.getClosingDate().before(p.getOpeningDate()) || regProj.getOpeningDate().after(p.getClosingDate()))
-                    );
-                    if (conflict) {
-                        System.out.println("Conflict with another registered project.");
+                    if (officer.conflictsWithRegistration(regProj)) {
+                        session.println("Conflict with another registered project.");
                         break;
                     }
 
                     if (regProj.getOfficersList().contains(officer)) {
-                        System.out.println("You are already registered for this project.");
+                        session.println("You are already registered for this project.");
                         break;
                     }
                     
                     if (regProj.getPendingOfficerRequests().contains(officer)) {
-                        System.out.println("Your registration request for this project is still pending approval.");
+                        session.println("Your registration request for this project is still pending approval.");
                         break;
                     }
                     
                     // Proceed with checks and then add request
                     regProj.addPendingOfficerRequest(officer);
-                    System.out.println("Registration request submitted. Awaiting manager approval.");
+                    session.println("Registration request submitted. Awaiting manager approval.");
                 
                     break;
                     
                 case 3:
-                    System.out.print("Enter project name: ");
-                    String projName = scanner.nextLine();
-                    projects.stream()
-                        .filter(p -> p.getProjectName().equalsIgnoreCase(projName))
-                        .findFirst().ifPresent(Project::displayProjectDetails);
+                    Project shown = promptProject(session, "Enter project name: ", null);
+                    if (shown != null) {
+                        session.write(shown);
+                    }
                     break;
                 case 4:
-                    for (Project pr : officer.getRegisteredProjects()) {
-                        for (Enquiry e : pr.getEnquiries()) {
-                            e.displayEnquiry();
-                            System.out.print("Reply to enquiry? (y/n): ");
-                            if (scanner.nextLine().equalsIgnoreCase("y")) {
-                                System.out.print("Reply: ");
-                                officer.replyEnquiry(e, scanner.nextLine());
+                    session.print("Search enquiries (leave blank to answer unanswered ones): ");
+                    String officerTerms = session.nextLine().trim();
+                    if (officerTerms.isEmpty()) {
+                        Set<Enquiry> skipped = new HashSet<>();
+                        boolean claimedAny = false;
+                        Enquiry next;
+                        while ((next = officer.claimNextEnquiry(skipped)) != null) {
+                            claimedAny = true;
+                            session.write(next);
+                            session.print("Reply to enquiry? (y/n): ");
+                            if (session.nextLine().equalsIgnoreCase("y")) {
+                                session.print("Reply: ");
+                                session.println(officer.replyEnquiry(next, session.nextLine()).getMessage());
+                            } else {
+                                officer.releaseEnquiry(next);
+                                skipped.add(next);
                             }
                         }
+                        if (!claimedAny) {
+                            session.println("No unanswered enquiries.");
+                        }
+                        break;
+                    }
+                    List<Enquiry> toReply = projects.getEnquiryIndex().search(officerTerms,
+                            pr -> officer.getRegisteredProjects().contains(pr), ENQUIRY_SEARCH_LIMIT);
+                    for (Enquiry e : toReply) {
+                        session.write(e);
+                        session.print("Reply to enquiry? (y/n): ");
+                        if (session.nextLine().equalsIgnoreCase("y")) {
+                            session.print("Reply: ");
+                            session.println(officer.replyEnquiry(e, session.nextLine()).getMessage());
+                        }
                     }
                     break;
                 case 5:
-                    System.out.print("Enter NRIC of applicant to book: ");
-                    String nric = scanner.nextLine();
-                    users.stream().filter(u -> u instanceof Applicant && u.getNric().equalsIgnoreCase(nric))
-                        .map(u -> (Applicant) u)
-                        .findFirst().ifPresent(app -> {
+                    session.print("Enter NRIC of applicant to book: ");
+                    String nric = session.nextLine();
+                    Optional.ofNullable(users.findApplicant(nric)).ifPresent(app -> {
                             if (app.getApplication() != null &&
                                 app.getApplication().getStatus() == ApplicationStatus.SUCCESSFUL) {
-                                officer.bookFlat(app.getApplication());
+                                session.println(officer.bookFlat(app.getApplication()).getMessage());
                             } else {
-                                System.out.println("Not eligible or not found.");
+                                session.println("Not eligible or not found.");
                             }
                         });
                     break;
                 case 6:
-                System.out.print("Enter NRIC of applicant: ");
-                String receiptNric = scanner.nextLine();
-                users.stream().filter(u -> u instanceof Applicant && u.getNric().equalsIgnoreCase(receiptNric))
-                    .map(u -> (Applicant) u)
-                    .findFirst().ifPresentOrElse(app -> {
+                session.print("Enter NRIC of applicant (or ALL for every booked flat in your projects): ");
+                String receiptNric = session.nextLine();
+                if (receiptNric.trim().equalsIgnoreCase("ALL")) {
+                    for (Project pr : officer.getRegisteredProjects()) {
+                        try {
+                            ReceiptPipeline.Result result = ReceiptPipeline.run(pr, DATA_DIR.resolve("receipts"),
+                                    line -> session.println(pr.getProjectName() + ": " + line));
+                            session.println(pr.getProjectName() + ": " + result);
+                        } catch (IOException e) {
+                            session.println("Could not write receipts for " + pr.getProjectName() + ": " + e.getMessage());
+                        }
+                    }
+                    break;
+                }
+                Optional.ofNullable(users.findApplicant(receiptNric)).ifPresentOrElse(app -> {
                         if (app.getApplication() == null) {
-                            System.out.println("This applicant has not applied for any projects yet.");
+                            session.println("This applicant has not applied for any projects yet.");
                         } else {
                             Receipt r = officer.generateReceipt(app.getApplication());
-                            if (r != null) r.displayReceipt();
+                            if (r == null) {
+                                session.println("Receipt cannot be generated. Flat not booked yet.");
+                            } else {
+                                session.println("Receipt generated for " + app.getNric());
+                                session.write(r);
+                            }
                         }
-                    }, () -> System.out.println("Applicant not found."));
+                    }, () -> session.println("Applicant not found."));
                 case 7:
-                    applicantMenu(officer);
+                    useApplicantFeatures(session, officer);
                     break;
                 case 8:
-                    System.out.print("Enter your new password: ");
-                    String newPassword = scanner.nextLine();
-                    officer.changePassword(newPassword);
-                    System.out.println("Password changed successfully.");
+                    changePassword(session, officer);
                     break;
                 
                 case 9:
                     return;
                 default:
-                    System.out.println("Invalid option.");
+                    session.println("Invalid option.");
             }
         }
     }
@@ -414,39 +720,42 @@ public class Main {
      * Provides functionality for creating, editing, and managing projects, as well as
      * approving applications and officer registrations.
      * 
+     * @param session The session the user is interacting through
      * @param manager The HDBManager user accessing the menu
      */
-    private static void managerMenu(HDBManager manager) {
+    private static void managerMenu(Session session, HDBManager manager) {
         Project activeProject = manager.getActiveProject(); // Load remembered project
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
     
         while (true) {
-            System.out.println("\n[HDB Manager Menu]");
-            System.out.println("0. View All Projects");
-            System.out.println("1. Select Project to Manage");
-            System.out.println("2. View My Projects");
-            System.out.println("3. Create New Project");
-            System.out.println("4. Edit Project Details");
-            System.out.println("5. Delete Project");
-            System.out.println("6. Toggle Project Visibility");
-            System.out.println("7. Approve Officer Registrations");
-            System.out.println("8. Approve/Reject Applications");
-            System.out.println("9. Approve Withdrawals");
-            System.out.println("10. Generate Application Report");
-            System.out.println("11. View All Enquiries");
-            System.out.println("12. Reply to Enquiries (My Projects)");
-            System.out.println("13. Change Password");
-            System.out.println("14. Filter Projects");
-            System.out.println("15. Logout");
-            System.out.print("Choose an option: ");
-    
-            int choice = Integer.parseInt(scanner.nextLine());
+            session.println("\n[HDB Manager Menu]");
+            session.println("0. View All Projects");
+            session.println("1. Select Project to Manage");
+            session.println("2. View My Projects");
+            session.println("3. Create New Project");
+            session.println("4. Edit Project Details");
+            session.println("5. Delete Project");
+            session.println("6. Toggle Project Visibility");
+            session.println("7. Approve Officer Registrations");
+            session.println("8. Approve/Reject Applications");
+            session.println("9. Approve Withdrawals");
+            session.println("10. Generate Application Report");
+            session.println("11. View All Enquiries");
+            session.println("12. Reply to Enquiries (My Projects)");
+            session.println("13. Change Password");
+            session.println("14. Filter Projects");
+            session.println("15. Logout");
+            session.println("16. Run Ballot for Active Project");
+            session.println("17. View Demand Dashboard");
+            session.print("Choose an option: ");
+    
+            int choice = Integer.parseInt(session.nextLine());
     
             switch (choice) {
                 case 0:
-                    for (Project p : projects) {
-                        p.displayProjectDetails();
-                    }
+                    ProjectCatalog.Version listed = projects.current();
+                    showPages(session, cursor -> listed.pageProjects(cursor, PAGE_SIZE, null),
+                            session::write, "No projects have been created yet.");
                     break;
     
                 case 1:
@@ -455,296 +764,374 @@ public class Main {
                         .collect(Collectors.toList());
     
                     if (unassignedOrOwned.isEmpty()) {
-                        System.out.println("No projects available to manage.");
+                        session.println("No projects available to manage.");
                         break;
                     }
     
-                    System.out.println("Select a project to manage:");
+                    session.println("Select a project to manage:");
                     for (int i = 0; i < unassignedOrOwned.size(); i++) {
                         Project p = unassignedOrOwned.get(i);
-                        System.out.println((i + 1) + ". " + p.getProjectName() +
+                        session.println((i + 1) + ". " + p.getProjectName() +
                             " (From " + sdf.format(p.getOpeningDate()) + " to " + sdf.format(p.getClosingDate()) + ")" +
                             (p.getManagerInCharge() == null ? " [Unassigned]" : ""));
                     }
     
-                    System.out.print("Enter your choice: ");
-                    int projChoice = Integer.parseInt(scanner.nextLine());
+                    session.print("Enter your choice: ");
+                    int projChoice = Integer.parseInt(session.nextLine());
     
                     if (projChoice < 1 || projChoice > unassignedOrOwned.size()) {
-                        System.out.println("❌ Invalid selection.");
+                        session.println("❌ Invalid selection.");
                         break;
                     }
     
                     Project selected = unassignedOrOwned.get(projChoice - 1);
     
-                    boolean conflict = projects.stream()
-                        .filter(p -> p.getManagerInCharge() != null && p.getManagerInCharge().equals(manager))
-                        .anyMatch(p -> isDateOverlap(p, selected) && !p.equals(selected));
-    
-                    if (conflict) {
-                        System.out.println("❌ You cannot manage multiple projects that overlap in time.");
+                    if (manager.getManagedProjects().hasOverlap(selected)) {
+                        session.println("❌ You cannot manage multiple projects that overlap in time.");
                         break;
                     }
     
                     if (selected.getManagerInCharge() == null) {
                         selected.setManagerInCharge(manager);
-                        System.out.println("✅ You are now assigned as the manager of: " + selected.getProjectName());
+                        session.println("✅ You are now assigned as the manager of: " + selected.getProjectName());
                     } else if (selected.getManagerInCharge().equals(manager)) {
-                        System.out.println("✅ You are already managing this project.");
+                        session.println("✅ You are already managing this project.");
                     }
 
                     if (activeProject != null && activeProject.equals(selected)) {
-                        System.out.println("✅ This project is already your active project.");
+                        session.println("✅ This project is already your active project.");
                         break;
                     }
                     
                     manager.setActiveProject(selected);
                     activeProject = selected;
-                    System.out.println("✅ Active project set: " + activeProject.getProjectName());
+                    session.println("✅ Active project set: " + activeProject.getProjectName());
                     
                     break;
     
                 case 2:
                     for (Project p : projects) {
                         if (p.getManagerInCharge() != null && p.getManagerInCharge().equals(manager)) {
-                            p.displayProjectDetails();
+                            session.write(p);
                         }
                     }
                     break;
     
                 case 3:
                     try {
-                        System.out.print("Enter project name: ");
-                        String name = scanner.nextLine();
-                        System.out.print("Enter neighborhood: ");
-                        String hood = scanner.nextLine();
+                        session.print("Enter project name: ");
+                        String name = session.nextLine();
+                        session.print("Enter neighborhood: ");
+                        String hood = session.nextLine();
                         List<FlatType> types = Arrays.asList(FlatType.TWOROOM, FlatType.THREEROOM);
                         Map<FlatType, Integer> units = new HashMap<>();
                         for (FlatType type : types) {
-                            System.out.print("Units for " + type + ": ");
-                            units.put(type, Integer.parseInt(scanner.nextLine()));
+                            session.print("Units for " + type + ": ");
+                            units.put(type, Integer.parseInt(session.nextLine()));
                         }
-                        System.out.print("Opening date (yyyy-MM-dd): ");
-                        Date open = sdf.parse(scanner.nextLine());
-                        System.out.print("Closing date (yyyy-MM-dd): ");
-                        Date close = sdf.parse(scanner.nextLine());
+                        session.print("Opening date (yyyy-MM-dd): ");
+                        Date open = sdf.parse(session.nextLine());
+                        session.print("Closing date (yyyy-MM-dd): ");
+                        Date close = sdf.parse(session.nextLine());
     
                         Project newProj = new Project(name, hood, types, units, open, close, null);
-                        projects.add(newProj);
-                        System.out.println("✅ Project created successfully.");
+                        if (!projects.addIfNameFree(newProj)) {
+                            session.println("A project named " + name + " already exists.");
+                            break;
+                        }
+                        WriteAheadLog.logProjectCreated(newProj);
+                        session.println("✅ Project created successfully.");
                     } catch (Exception e) {
-                        System.out.println("Error creating project: " + e.getMessage());
+                        session.println("Error creating project: " + e.getMessage());
                     }
                     break;
     
                 case 4:
                     if (activeProject == null) {
-                        System.out.println("❗ Please select a project to manage first (Option 1).");
+                        session.println("❗ Please select a project to manage first (Option 1).");
                         break;
                     }
                     for (FlatType type : activeProject.getFlatTypes()) {
-                        System.out.print("New unit count for " + type + ": ");
-                        int count = Integer.parseInt(scanner.nextLine());
+                        session.print("New unit count for " + type + ": ");
+                        int count = Integer.parseInt(session.nextLine());
                         activeProject.updateFlatUnits(type, count);
                     }
-                    System.out.println("✅ Project units updated.");
+                    session.println("✅ Project units updated.");
                     break;
     
                 case 5:
                     if (activeProject == null) {
-                        System.out.println("❗ Please select a project to manage first (Option 1).");
+                        session.println("❗ Please select a project to manage first (Option 1).");
                         break;
                     }
                     projects.remove(activeProject);
-                    System.out.println("✅ Project deleted: " + activeProject.getProjectName());
+                    WriteAheadLog.record(WriteAheadLog.RecordType.PROJECT_DELETE)
+                            .putString(activeProject.getProjectName()).commit();
+                    session.println("✅ Project deleted: " + activeProject.getProjectName());
                     activeProject = null;
                     break;
     
                 case 6:
                     if (activeProject == null) {
-                        System.out.println("❗ Please select a project to manage first (Option 1).");
+                        session.println("❗ Please select a project to manage first (Option 1).");
                         break;
                     }
-                    manager.toggleVisibility(activeProject);
+                    session.println(manager.toggleVisibility(activeProject).getMessage());
                     break;
     
                 case 7:
                     if (activeProject == null) {
-                        System.out.println("❗ Please select a project to manage first (Option 1).");
+                        session.println("❗ Please select a project to manage first (Option 1).");
                         break;
                     }
-                    Iterator<HDBOfficer> iterator = activeProject.getPendingOfficerRequests().iterator();
-                    while (iterator.hasNext()) {
-                        HDBOfficer officer = iterator.next();
+                    for (HDBOfficer officer : new ArrayList<>(activeProject.getPendingOfficerRequests())) {
                         if (officer.getApplication() != null) {
                             Project appliedProj = officer.getApplication().getProject();
                             if (activeProject == appliedProj || isDateOverlap(activeProject, appliedProj)) {
-                                System.out.println("Officer " + officer.getNric() + " cannot be approved due to conflict.");
+                                session.println("Officer " + officer.getNric() + " cannot be approved due to conflict.");
                                 continue;
                             }
                         }
-                        System.out.println("Approve officer " + officer.getNric() + "? (y/n): ");
-                        if (scanner.nextLine().equalsIgnoreCase("y")) {
-                            manager.approveOfficerRegistration(officer, activeProject);
-                            iterator.remove();
-                            System.out.println("✅ Approved.");
+                        session.println("Approve officer " + officer.getNric() + "? (y/n): ");
+                        if (session.nextLine().equalsIgnoreCase("y")) {
+                            ActionResult approval = manager.approveOfficerRegistration(officer, activeProject);
+                            session.println(approval.getMessage());
+                            if (approval.isSuccess()) {
+                                activeProject.removePendingOfficerRequest(officer);
+                                session.println("✅ Approved.");
+                            }
                         }
                     }
                     break;
     
                 case 8:
                     if (activeProject == null) {
-                        System.out.println("❗ Please select a project to manage first (Option 1).");
+                        session.println("❗ Please select a project to manage first (Option 1).");
                         break;
                     }
                     boolean foundPending = false;
-                    for (User u : users) {
-                        if (u instanceof Applicant) {
-                            Applicant a = (Applicant) u;
-                            Application app = a.getApplication();
-                            if (app != null && app.getStatus() == ApplicationStatus.PENDING && app.getProject().equals(activeProject)) {
-                                foundPending = true;
-                                System.out.println("Application ID: " + app.getApplicationID());
-                                System.out.println("Applicant NRIC: " + a.getNric());
-                                System.out.print("Approve (a) / Reject (r) / Skip (s): ");
-                                String decision = scanner.nextLine();
-    
-                                if (decision.equalsIgnoreCase("a")) {
-                                    if (activeProject.getUnitsAvailable().get(app.getFlatTypeChosen()) > 0) {
-                                        manager.approveApplication(app);
-                                        activeProject.updateFlatUnits(app.getFlatTypeChosen(),
-                                                activeProject.getUnitsAvailable().get(app.getFlatTypeChosen()) - 1);
-                                        System.out.println("✅ Application approved.");
-                                    } else {
-                                        System.out.println("❌ No units left.");
-                                    }
-                                } else if (decision.equalsIgnoreCase("r")) {
-                                    app.updateStatus(ApplicationStatus.UNSUCCESSFUL);
-                                    System.out.println("❌ Application rejected.");
-                                }
+                    for (Application app : activeProject.getApplications(ApplicationStatus.PENDING)) {
+                        Applicant a = app.getApplicant();
+                        foundPending = true;
+                        session.println("Application ID: " + app.getApplicationID());
+                        session.println("Applicant NRIC: " + a.getNric());
+                        session.print("Approve (a) / Reject (r) / Skip (s): ");
+                        String decision = session.nextLine();
+
+                        if (decision.equalsIgnoreCase("a")) {
+                            if (activeProject.tryReserve(app.getFlatTypeChosen())) {
+                                session.println(manager.approveApplication(app).getMessage());
+                                session.println("✅ Application approved.");
+                            } else {
+                                session.println("❌ No units left.");
                             }
+                        } else if (decision.equalsIgnoreCase("r")) {
+                            manager.rejectApplication(app);
+                            session.println("❌ Application rejected.");
                         }
                     }
-                    if (!foundPending) System.out.println("No pending applications found.");
+                    if (!foundPending) session.println("No pending applications found.");
                     break;
     
                 case 9:
                     if (activeProject == null) {
-                        System.out.println("❗ Please select a project to manage first (Option 1).");
+                        session.println("❗ Please select a project to manage first (Option 1).");
                         break;
                     }
-                    for (Applicant a : activeProject.getApplicantsList()) {
-                        Application app = a.getApplication();
-                        if (app != null && app.getStatus() == ApplicationStatus.UNSUCCESSFUL) {
-                            System.out.println("Withdrawal from " + a.getNric());
-                            System.out.print("Approve withdrawal? (y/n): ");
-                            if (scanner.nextLine().equalsIgnoreCase("y")) {
-                                manager.approveWithdrawal(app);
-                                System.out.println("✅ Approved.");
+                    for (Application app : activeProject.getApplications(ApplicationStatus.UNSUCCESSFUL)) {
+                        Applicant a = app.getApplicant();
+                        if (a.getApplication() == app) {
+                            session.println("Withdrawal from " + a.getNric());
+                            session.print("Approve withdrawal? (y/n): ");
+                            if (session.nextLine().equalsIgnoreCase("y")) {
+                                session.println(manager.approveWithdrawal(app).getMessage());
+                                session.println("✅ Approved.");
                             }
                         }
                     }
                     break;
     
                 case 10:
-                    if (activeProject == null) {
-                        System.out.println("❗ Please select a project to manage first (Option 1).");
+                    session.print("Report on all projects? (y/n, n for the active project): ");
+                    // Every page and export of this report works from the same catalog version
+                    ProjectCatalog.Version pinned = projects.current();
+                    boolean allProjects = session.nextLine().trim().equalsIgnoreCase("y");
+                    List<Project> reportProjects;
+                    if (allProjects) {
+                        reportProjects = pinned.getProjects();
+                    } else if (activeProject == null) {
+                        session.println("❗ Please select a project to manage first (Option 1).");
                         break;
+                    } else {
+                        reportProjects = Collections.singletonList(activeProject);
                     }
-    
-                    System.out.print("Filter by flat type (optional, press enter to skip): ");
-                    String typeFilter = scanner.nextLine();
-                    System.out.print("Filter by marital status (optional, press enter to skip): ");
-                    String maritalFilter = scanner.nextLine();
-    
-                    for (User u : users) {
-                        if (u instanceof Applicant) {
-                            Applicant a = (Applicant) u;
-                            if (a.getApplication() != null && a.getApplication().getProject().equals(activeProject)) {
-                                Application app = a.getApplication();
-                                boolean matchesType = typeFilter.isEmpty() ||
-                                        app.getFlatTypeChosen().toString().equalsIgnoreCase(typeFilter);
-                                boolean matchesMarital = maritalFilter.isEmpty() ||
-                                        a.getMaritalStatus().toString().equalsIgnoreCase(maritalFilter);
-    
-                                if (matchesType && matchesMarital) {
-                                    System.out.println("NRIC: " + a.getNric() +
-                                            ", Flat: " + app.getFlatTypeChosen() +
-                                            ", Marital: " + a.getMaritalStatus() +
-                                            ", Project: " + app.getProject().getProjectName());
-                                }
-                            }
-                        }
+
+                    session.print("Filter by flat type (optional, press enter to skip): ");
+                    String typeFilter = session.nextLine().trim();
+                    session.print("Filter by marital status (optional, press enter to skip): ");
+                    String maritalFilter = session.nextLine().trim();
+                    FlatType reportType;
+                    MaritalStatus reportMarital;
+                    try {
+                        reportType = typeFilter.isEmpty() ? null : FlatType.valueOf(typeFilter.toUpperCase());
+                        reportMarital = maritalFilter.isEmpty() ? null : MaritalStatus.valueOf(maritalFilter.toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        session.println("No applications match those filters.");
+                        break;
+                    }
+                    session.print("Export as csv or json (leave blank to show here): ");
+                    String exportFormat = session.nextLine().trim();
+
+                    if (exportFormat.isEmpty()) {
+                        Project only = allProjects ? null : activeProject;
+                        Predicate<Application> included = app -> ReportEngine.includes(app, reportType, reportMarital);
+                        showPages(session, cursor -> allProjects
+                                        ? pinned.pageApplications(cursor, PAGE_SIZE, included)
+                                        : only.pageApplications(cursor, PAGE_SIZE, included),
+                                app -> session.println("NRIC: " + app.getApplicant().getNric() +
+                                        ", Flat: " + app.getFlatTypeChosen() +
+                                        ", Marital: " + app.getApplicant().getMaritalStatus() +
+                                        ", Project: " + app.getProject().getProjectName()),
+                                "No applications match those filters.");
+                        break;
+                    }
+                    ReportEngine.Format format;
+                    try {
+                        format = ReportEngine.Format.valueOf(exportFormat.toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        session.println("Unknown format: " + exportFormat);
+                        break;
+                    }
+                    String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+                    String extension = format.name().toLowerCase();
+                    Path summaryFile = DATA_DIR.resolve("reports").resolve("report-" + stamp + "-summary." + extension);
+                    Path detailFile = DATA_DIR.resolve("reports").resolve("report-" + stamp + "-applications." + extension);
+                    try {
+                        ReportEngine.Report report = ReportEngine.writeApplications(reportProjects, reportType,
+                                reportMarital, detailFile, format);
+                        report.writeSummary(summaryFile, format);
+                        session.println(report.size() + " applications across " + report.getProjects().size()
+                                + " projects written to " + summaryFile + " and " + detailFile);
+                    } catch (IOException e) {
+                        session.println("Could not write the report: " + e.getMessage());
                     }
                     break;
     
                 case 11:
-                    for (Project p : projects) {
-                        for (Enquiry e : p.getEnquiries()) {
-                            e.displayEnquiry();
-                        }
+                    session.print("Search enquiries (leave blank to show all): ");
+                    String managerTerms = session.nextLine().trim();
+                    if (managerTerms.isEmpty()) {
+                        showPages(session, cursor -> projects.getEnquiryIndex().page(cursor, PAGE_SIZE, null),
+                                session::write, "No enquiries have been made yet.");
+                        break;
+                    }
+                    session.print("Limit to neighborhood (leave blank for any): ");
+                    String area = session.nextLine().trim();
+                    List<Enquiry> found = projects.getEnquiryIndex().search(managerTerms,
+                            area.isEmpty() ? null : p -> p.getNeighborhood().equalsIgnoreCase(area), ENQUIRY_SEARCH_LIMIT);
+                    if (found.isEmpty()) {
+                        session.println("No matching enquiries found.");
+                    }
+                    for (Enquiry e : found) {
+                        session.write(e);
                     }
                     break;
     
                 case 12:
                     if (activeProject == null) {
-                        System.out.println("❗ Please select a project to manage first (Option 1).");
+                        session.println("❗ Please select a project to manage first (Option 1).");
                         break;
                     }
                     for (Enquiry e : activeProject.getEnquiries()) {
-                        e.displayEnquiry();
-                        System.out.print("Reply? (y/n): ");
-                        if (scanner.nextLine().equalsIgnoreCase("y")) {
-                            System.out.print("Reply: ");
-                            e.setReply(scanner.nextLine());
+                        session.write(e);
+                        session.print("Reply? (y/n): ");
+                        if (session.nextLine().equalsIgnoreCase("y")) {
+                            session.print("Reply: ");
+                            manager.replyEnquiry(e, session.nextLine());
                         }
                     }
                     break;
     
                 case 13:
-                    System.out.print("Enter your new password: ");
-                    String newPassword = scanner.nextLine();
-                    manager.changePassword(newPassword);
-                    System.out.println("Password changed successfully.");
+                    changePassword(session, manager);
                     break;
     
                 case 14:
-                    System.out.print("Enter neighborhood to filter (or press Enter to skip): ");
-                    String neighborhood = scanner.nextLine();
+                    session.print("Enter neighborhood to filter (or press Enter to skip): ");
+                    String neighborhood = session.nextLine();
                     if (neighborhood.isBlank()) neighborhood = null;
     
-                    System.out.print("Enter flat type (TWOROOM/THREEROOM or press Enter to skip): ");
-                    String ftInput = scanner.nextLine();
+                    session.print("Enter flat type (TWOROOM/THREEROOM or press Enter to skip): ");
+                    String ftInput = session.nextLine();
                     FlatType flatType = null;
                     if (!ftInput.isBlank()) {
                         try {
                             flatType = FlatType.valueOf(ftInput.toUpperCase());
                         } catch (IllegalArgumentException e) {
-                            System.out.println("Invalid flat type.");
+                            session.println("Invalid flat type.");
                         }
                     }
     
-                    System.out.print("Only show visible projects? (y/n): ");
-                    String visibleInput = scanner.nextLine();
+                    session.print("Only show visible projects? (y/n): ");
+                    String visibleInput = session.nextLine();
                     Boolean visibleOnly = null;
                     if (visibleInput.equalsIgnoreCase("y")) visibleOnly = true;
                     else if (visibleInput.equalsIgnoreCase("n")) visibleOnly = false;
     
                     List<Project> filtered = Project.filterProjectList(projects, neighborhood, flatType, visibleOnly);
                     if (filtered.isEmpty()) {
-                        System.out.println("No matching projects found.");
+                        session.println("No matching projects found.");
                     } else {
                         for (Project p : filtered) {
-                            p.displayProjectDetails();
+                            session.write(p);
                         }
                     }
                     break;
     
                 case 15:
                     return;
+
+                case 16:
+                    if (activeProject == null) {
+                        session.println("❗ Please select a project to manage first (Option 1).");
+                        break;
+                    }
+                    session.print("Ballot seed (leave blank for a random seed): ");
+                    String seedText = session.nextLine().trim();
+                    long seed;
+                    try {
+                        seed = seedText.isEmpty() ? new Random().nextLong() : Long.parseLong(seedText);
+                    } catch (NumberFormatException e) {
+                        session.println("Invalid seed.");
+                        break;
+                    }
+                    try {
+                        BallotEngine.Result ballot = BallotEngine.run(activeProject, seed);
+                        session.println(ballot.toString());
+                        Path audit = DATA_DIR.resolve("ballots").resolve("ballot-"
+                                + activeProject.getProjectName().replaceAll("[^A-Za-z0-9]+", "_") + "-" + seed + ".csv");
+                        ballot.writeAudit(audit);
+                        session.println("Draw written to " + audit);
+                    } catch (IllegalStateException e) {
+                        session.println("❌ " + e.getMessage());
+                    } catch (IOException e) {
+                        session.println("Could not write the ballot audit file: " + e.getMessage());
+                    }
+                    break;
+
+                case 17:
+                    DemandDashboard dashboard = new DemandDashboard(projects);
+                    while (true) {
+                        session.write(dashboard);
+                        session.print("Press Enter to refresh, or q to return: ");
+                        if (session.nextLine().trim().equalsIgnoreCase("q")) {
+                            break;
+                        }
+                    }
+                    break;
     
                 default:
-                    System.out.println("Invalid option.");
+                    session.println("Invalid option.");
             }
         }
     }
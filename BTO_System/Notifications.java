@@ -0,0 +1,104 @@
+package BTO_System;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Messages telling users what has happened to their applications and enquiries while they were away.
+ *
+ * <p>The notifications subscribe to the {@link EventBus#DOMAIN} bus and turn each event into a line
+ * for the user it concerns: the applicant when an application is approved, rejected, booked or
+ * withdrawn, the manager in charge when someone applies to a project, and the enquirer when an
+ * enquiry is answered. A user's messages are shown and cleared the next time they log in. Only the
+ * newest messages of each user are kept, and they live in memory only, so a restart clears them.
+ * The number kept per user is set with the {@code bto.notificationsPerUser} system property.</p>
+ */
+final class Notifications implements EventBus.Handler {
+    /** The notifications shown to every session */
+    static final Notifications SHARED = new Notifications(Integer.getInteger("bto.notificationsPerUser", 20));
+
+    private final int perUser;
+    private final ConcurrentHashMap<String, ArrayDeque<String>> inbox = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty set of inboxes.
+     *
+     * @param perUser The most messages kept for one user; older ones are dropped
+     */
+    Notifications(int perUser) {
+        this.perUser = perUser;
+    }
+
+    /**
+     * Starts turning the events of a bus into notifications.
+     *
+     * @param bus The bus to listen to
+     * @return The subscription, to be closed when notifications are no longer wanted
+     */
+    EventBus.Subscription subscribeTo(EventBus bus) {
+        return bus.subscribe("notifications", this);
+    }
+
+    @Override
+    public void onEvent(EventBus.Event event, long sequence, boolean endOfBatch) {
+        Application application = event.getApplication();
+        if (event.getType() == EventBus.Type.ENQUIRY_REPLIED) {
+            Enquiry enquiry = event.getEnquiry();
+            add(enquiry.getSubmittedBy().getNric(), "Your enquiry " + enquiry.getEnquiryID() + " about "
+                    + enquiry.getRelatedProject().getProjectName() + " has been answered.");
+            return;
+        }
+        String project = application.getProject().getProjectName();
+        String applicant = application.getApplicant().getNric();
+        switch (event.getType()) {
+            case APPLICATION_SUBMITTED:
+                HDBManager manager = application.getProject().getManagerInCharge();
+                if (manager != null) {
+                    add(manager.getNric(), applicant + " applied for " + application.getFlatTypeChosen()
+                            + " in " + project + ".");
+                }
+                break;
+            case APPLICATION_APPROVED:
+                add(applicant, "Your application for " + project + " was successful.");
+                break;
+            case APPLICATION_REJECTED:
+                add(applicant, "Your application for " + project + " was unsuccessful.");
+                break;
+            case FLAT_BOOKED:
+                add(applicant, "Your " + application.getFlatTypeChosen() + " flat in " + project + " has been booked.");
+                break;
+            case APPLICATION_WITHDRAWN:
+                add(applicant, "Your withdrawal from " + project + " has been approved.");
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void add(String nric, String message) {
+        // Changed only inside the map's per-key lock, so a concurrent take gets the message or leaves it
+        inbox.compute(nric, (key, messages) -> {
+            if (messages == null) {
+                messages = new ArrayDeque<>();
+            } else if (messages.size() == perUser) {
+                messages.removeFirst();
+            }
+            messages.addLast(message);
+            return messages;
+        });
+    }
+
+    /**
+     * Takes the messages waiting for a user, oldest first, leaving their inbox empty.
+     *
+     * @param nric The user's NRIC
+     * @return The messages; empty if there are none
+     */
+    List<String> take(String nric) {
+        ArrayDeque<String> messages = inbox.remove(nric);
+        return messages == null ? Collections.emptyList() : new ArrayList<>(messages);
+    }
+}
@@ -0,0 +1,97 @@
+package BTO_System;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a listing, with the cursor for the page after it.
+ *
+ * <p>Listings are paged by key rather than by offset: the cursor names the last item shown, and
+ * the next page starts after that key. Items added or removed earlier in the listing therefore
+ * never shift later pages, and fetching page n costs no more than fetching page 1. Cursors are
+ * opaque strings, to be passed back unchanged to the listing that produced them.</p>
+ *
+ * @param <T> The item type
+ */
+final class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    /**
+     * Creates a page.
+     *
+     * @param items      The items on this page, in listing order
+     * @param nextCursor The cursor for the following page, or null if this is the last page
+     */
+    Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Gets the items on this page.
+     *
+     * @return The items, in listing order
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the cursor for the following page.
+     *
+     * @return The cursor, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Checks whether there are more items after this page.
+     *
+     * @return true if there is a following page
+     */
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Makes a page from the items found for it plus, if there is one, the first item of the next page.
+     *
+     * @param found    Up to {@code size + 1} items in listing order; the list is trimmed to {@code size}
+     * @param size     The page size
+     * @param cursorOf Makes the cursor for an item, naming the place just after it
+     * @param <T>      The item type
+     * @return The page
+     * @throws IllegalArgumentException if the page size is less than 1
+     */
+    static <T> Page<T> of(List<T> found, int size, Function<? super T, String> cursorOf) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1: " + size);
+        }
+        if (found.size() <= size) {
+            return new Page<>(found, null);
+        }
+        found.subList(size, found.size()).clear();
+        return new Page<>(found, cursorOf.apply(found.get(size - 1)));
+    }
+
+    /**
+     * Reads a cursor made from an integer ID, such as an application or enquiry ID.
+     *
+     * @param cursor The cursor, or null for the first page
+     * @return The ID to start after; {@link Integer#MIN_VALUE} for the first page
+     * @throws IllegalArgumentException if the cursor was not made from an ID
+     */
+    static int afterId(String cursor) {
+        if (cursor == null) {
+            return Integer.MIN_VALUE;
+        }
+        try {
+            return Integer.parseInt(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a listing cursor: " + cursor);
+        }
+    }
+}
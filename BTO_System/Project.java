@@ -1,6 +1,10 @@
 package BTO_System;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.text.SimpleDateFormat;
 
 /**
@@ -8,20 +12,33 @@ import java.text.SimpleDateFormat;
  * This class encapsulates all information about a BTO project including its location,
  * available flat types, unit counts, application dates, and associated users.
  */
-public class Project {
+public class Project implements Renderable {
     private String projectName;
     private String neighborhood;
     private List<FlatType> flatTypes;
-    private Map<FlatType, Integer> unitsAvailable;
+    /** Unit counts per flat type, each packed with a change version (see {@link #packUnits}) */
+    private final Map<FlatType, AtomicLong> unitsAvailable;
     private Date openingDate;
     private Date closingDate;
-    private boolean visibility;
+    private volatile boolean visibility;
     private int officerSlots;
     private List<Applicant> applicantsList;
     private List<HDBOfficer> officersList;
-    private HDBManager managerInCharge;
+    private volatile HDBManager managerInCharge;
     private List<Enquiry> enquiries;
-    private List<HDBOfficer> pendingOfficerRequests = new ArrayList<>();
+    private List<HDBOfficer> pendingOfficerRequests = new CopyOnWriteArrayList<>();
+    private Map<ApplicationStatus, Set<Application>> applicationsByStatus = new EnumMap<>(ApplicationStatus.class);
+    private Map<FlatType, Set<Application>> applicationsByFlatType = new EnumMap<>(FlatType.class);
+    /** Every application in ID order, for listing them a page at a time */
+    private final KeysetList<Application> applicationsById = new KeysetList<>();
+    /** Live application counts by flat type and status, kept equal to the bucket sizes above */
+    private final DemandCounters demand = new DemandCounters();
+    /** Unanswered enquiries waiting for an officer to reply */
+    private final EnquiryQueue enquiryQueue = new EnquiryQueue();
+    /** The catalog this project belongs to, notified of visibility, manager and enquiry changes */
+    private volatile ProjectCatalog catalog;
+    /** This project's ID within its catalog, or -1 if it is not in one */
+    private volatile int catalogId = -1;
 
     /**
      * Constructs a new BTO Project with the specified details.
@@ -40,15 +57,27 @@ public class Project {
         this.projectName = projectName;
         this.neighborhood = neighborhood;
         this.flatTypes = flatTypes;
-        this.unitsAvailable = new HashMap<>(unitsAvailable);
+        this.unitsAvailable = new EnumMap<>(FlatType.class);
+        for (FlatType type : flatTypes) {
+            this.unitsAvailable.put(type, new AtomicLong());
+        }
+        for (Map.Entry<FlatType, Integer> entry : unitsAvailable.entrySet()) {
+            this.unitsAvailable.put(entry.getKey(), new AtomicLong(packUnits(0, entry.getValue())));
+        }
         this.openingDate = openingDate;
         this.closingDate = closingDate;
         this.visibility = true;
         this.officerSlots = 10;
-        this.applicantsList = new ArrayList<>();
-        this.officersList = new ArrayList<>();
+        this.applicantsList = Collections.synchronizedList(new ArrayList<>());
+        this.officersList = new CopyOnWriteArrayList<>();
         this.managerInCharge = managerInCharge;
-        this.enquiries = new ArrayList<>();
+        this.enquiries = new CopyOnWriteArrayList<>();
+        for (ApplicationStatus status : ApplicationStatus.values()) {
+            applicationsByStatus.put(status, new LinkedHashSet<>());
+        }
+        for (FlatType type : FlatType.values()) {
+            applicationsByFlatType.put(type, new LinkedHashSet<>());
+        }
     }
 
     /**
@@ -80,11 +109,173 @@ public class Project {
 
     /**
      * Gets the number of units available for each flat type.
+     * The returned map is a point-in-time copy; use {@link #tryReserve(FlatType)}
+     * and {@link #release(FlatType)} to change the inventory.
      *
      * @return Map of flat types to number of available units
      */
     public Map<FlatType, Integer> getUnitsAvailable() {
-        return unitsAvailable;
+        Map<FlatType, Integer> snapshot = new EnumMap<>(FlatType.class);
+        for (Map.Entry<FlatType, AtomicLong> entry : unitsAvailable.entrySet()) {
+            snapshot.put(entry.getKey(), unitCount(entry.getValue().get()));
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * Atomically takes one unit of the given flat type out of the inventory.
+     * Concurrent callers can never take the count below zero.
+     *
+     * @param flatType The flat type to reserve
+     * @return true if a unit was reserved, false if none are left or the type is not offered
+     */
+    public boolean tryReserve(FlatType flatType) {
+        AtomicLong units = unitsAvailable.get(flatType);
+        if (units == null) {
+            return false;
+        }
+        while (true) {
+            long current = units.get();
+            if (unitCount(current) <= 0) {
+                return false;
+            }
+            long next = packUnits(unitVersion(current) + 1, unitCount(current) - 1);
+            if (units.compareAndSet(current, next)) {
+                logUnits(flatType, next);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Atomically takes up to the given number of units of a flat type out of the inventory in one step.
+     *
+     * @param flatType The flat type to reserve
+     * @param wanted   The number of units wanted
+     * @return The number of units actually reserved, which is less than wanted if fewer are left
+     */
+    public int reserveUnits(FlatType flatType, int wanted) {
+        AtomicLong units = unitsAvailable.get(flatType);
+        if (units == null || wanted <= 0) {
+            return 0;
+        }
+        while (true) {
+            long current = units.get();
+            int granted = Math.min(wanted, Math.max(0, unitCount(current)));
+            if (granted == 0) {
+                return 0;
+            }
+            long next = packUnits(unitVersion(current) + 1, unitCount(current) - granted);
+            if (units.compareAndSet(current, next)) {
+                logUnits(flatType, next);
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Atomically returns one previously reserved unit of the given flat type to the inventory.
+     *
+     * @param flatType The flat type to release
+     */
+    public void release(FlatType flatType) {
+        release(flatType, 1);
+    }
+
+    /**
+     * Atomically returns several previously reserved units of the given flat type to the inventory in one step.
+     *
+     * @param flatType The flat type to release
+     * @param count    The number of units to return
+     */
+    public void release(FlatType flatType, int count) {
+        AtomicLong units = unitsAvailable.get(flatType);
+        if (units == null || count <= 0) {
+            return;
+        }
+        while (true) {
+            long current = units.get();
+            long next = packUnits(unitVersion(current) + 1, unitCount(current) + count);
+            if (units.compareAndSet(current, next)) {
+                logUnits(flatType, next);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the unit count of a flat type together with its change version, packed into one long.
+     * Used when saving the project so that the count and version are read atomically.
+     *
+     * @param flatType The flat type to read
+     * @return The packed version and count, or 0 if the type is not offered
+     */
+    long getUnitsState(FlatType flatType) {
+        AtomicLong units = unitsAvailable.get(flatType);
+        return units == null ? 0 : units.get();
+    }
+
+    /**
+     * Restores the unit count of a flat type from a saved or logged state.
+     * The state is only applied if it is newer than the current one, so replaying
+     * the same change twice, or out of order, leaves the newest count in place.
+     *
+     * @param flatType The flat type to restore
+     * @param state    The packed version and count
+     */
+    void restoreUnits(FlatType flatType, long state) {
+        AtomicLong units = unitsAvailable.get(flatType);
+        if (units == null) {
+            return;
+        }
+        while (true) {
+            long current = units.get();
+            if (unitVersion(current) >= unitVersion(state) || units.compareAndSet(current, state)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Packs a change version and a unit count into one long so both can be swapped atomically.
+     *
+     * @param version The change version, incremented on every change to the count
+     * @param count   The number of units
+     * @return The packed value
+     */
+    static long packUnits(long version, int count) {
+        return (version << 32) | (count & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Extracts the unit count from a packed units value.
+     *
+     * @param state The packed value
+     * @return The number of units
+     */
+    static int unitCount(long state) {
+        return (int) state;
+    }
+
+    /**
+     * Extracts the change version from a packed units value.
+     *
+     * @param state The packed value
+     * @return The change version
+     */
+    static long unitVersion(long state) {
+        return state >>> 32;
+    }
+
+    /**
+     * Logs a unit count change without waiting for the disk. Reserving and releasing units are steps
+     * of an approval or a ballot, whose own record is committed afterwards and makes this one durable
+     * with it. Each record carries the count's version and replay keeps the newest, so records
+     * reaching the log in a different order from their changes still restore the right count.
+     */
+    private void logUnits(FlatType flatType, long state) {
+        WriteAheadLog.record(WriteAheadLog.RecordType.UNITS).putString(projectName).putEnum(flatType).putLong(state)
+                .commitDeferred();
     }
 
     /**
@@ -105,6 +296,16 @@ public class Project {
         return closingDate;
     }
 
+    /**
+     * Checks whether this project's application period overlaps another project's.
+     *
+     * @param other The project to compare with
+     * @return true if the two projects' dates overlap, false otherwise
+     */
+    public boolean overlaps(Project other) {
+        return !(closingDate.before(other.openingDate) || openingDate.after(other.closingDate));
+    }
+
     /**
      * Checks whether this project is visible to applicants.
      *
@@ -121,6 +322,31 @@ public class Project {
      */
     public void setVisibility(boolean visibility) {
         this.visibility = visibility;
+        ProjectCatalog owner = catalog;
+        if (owner != null) {
+            owner.visibilityChanged(this);
+        }
+        WriteAheadLog.record(WriteAheadLog.RecordType.VISIBILITY).putString(projectName).putBoolean(visibility).commit();
+    }
+
+    /**
+     * Gets this project's ID within the catalog it belongs to.
+     *
+     * @return The catalog ID, or -1 if the project is not in a catalog
+     */
+    int getCatalogId() {
+        return catalogId;
+    }
+
+    /**
+     * Records the catalog this project was added to, or clears it when removed.
+     *
+     * @param catalog The owning catalog, or null
+     * @param id      The catalog ID, or -1
+     */
+    void attachCatalog(ProjectCatalog catalog, int id) {
+        this.catalog = catalog;
+        this.catalogId = id;
     }
 
     /**
@@ -168,6 +394,15 @@ public class Project {
         return enquiries;
     }
 
+    /**
+     * Gets the queue of this project's unanswered enquiries that officers claim work from.
+     *
+     * @return The enquiry work queue
+     */
+    public EnquiryQueue getEnquiryQueue() {
+        return enquiryQueue;
+    }
+
     /**
      * Adds an applicant to this project's list of applicants.
      *
@@ -177,17 +412,293 @@ public class Project {
         applicantsList.add(applicant);
     }
 
+    /**
+     * Gets every application submitted for this project, in submission order.
+     *
+     * @return List of applications for this project
+     */
+    public synchronized List<Application> getApplications() {
+        List<Application> all = new ArrayList<>(applicationsById.size());
+        applicationsById.collect(Integer.MIN_VALUE, Integer.MAX_VALUE, null, all);
+        return all;
+    }
+
+    /**
+     * Gets one page of this project's applications in application ID order.
+     *
+     * @param cursor The cursor from the previous page, or null for the first page
+     * @param size   The most applications on the page
+     * @param filter The condition applications must meet to be listed, or null for none
+     * @return The page
+     */
+    public Page<Application> pageApplications(String cursor, int size, Predicate<? super Application> filter) {
+        List<Application> items = new ArrayList<>(size + 1);
+        collectApplications(Page.afterId(cursor), size + 1, filter, items);
+        return Page.of(items, size, a -> Integer.toString(a.getApplicationID()));
+    }
+
+    /**
+     * Collects the applications after an application ID, in ID order, that pass a filter.
+     *
+     * @param afterId The application ID to start after
+     * @param limit   The most applications to collect
+     * @param filter  The condition applications must meet, or null for none
+     * @param out     The list to add the applications to
+     * @return The number of applications added
+     */
+    synchronized int collectApplications(int afterId, int limit, Predicate<? super Application> filter, List<Application> out) {
+        return applicationsById.collect(afterId, limit, filter, out);
+    }
+
+    /**
+     * Gets the applications for this project that currently have the given status.
+     * The returned list is a copy, so callers may change application statuses while iterating it.
+     *
+     * @param status The application status to look up
+     * @return List of applications with that status, in submission order
+     */
+    public synchronized List<Application> getApplications(ApplicationStatus status) {
+        return new ArrayList<>(applicationsByStatus.get(status));
+    }
+
+    /**
+     * Gets the applications for this project that chose the given flat type.
+     * The returned list is a copy, so callers may change application statuses while iterating it.
+     *
+     * @param flatType The flat type to look up
+     * @return List of applications for that flat type, in submission order
+     */
+    public synchronized List<Application> getApplications(FlatType flatType) {
+        return new ArrayList<>(applicationsByFlatType.get(flatType));
+    }
+
+    /**
+     * Gets the number of applications submitted for this project.
+     *
+     * @return The number of applications
+     */
+    public synchronized int getApplicationCount() {
+        int count = 0;
+        for (Set<Application> bucket : applicationsByFlatType.values()) {
+            count += bucket.size();
+        }
+        return count;
+    }
+
+    /**
+     * Calls an action for every application of this project while holding the project's lock,
+     * so no application changes status or flat type part way through. Nothing is copied.
+     *
+     * @param action The action to call for each application
+     */
+    synchronized void forEachApplication(Consumer<Application> action) {
+        for (Set<Application> bucket : applicationsByFlatType.values()) {
+            for (Application application : bucket) {
+                action.accept(application);
+            }
+        }
+    }
+
+    /**
+     * Adds a newly created application to this project's status and flat type buckets.
+     *
+     * @param application The application to index
+     */
+    synchronized void indexApplication(Application application) {
+        applicationsByStatus.get(application.getStatus()).add(application);
+        applicationsByFlatType.get(application.getFlatTypeChosen()).add(application);
+        applicationsById.add(application.getApplicationID(), application);
+        demand.added(application.getFlatTypeChosen(), application.getStatus());
+    }
+
+    /**
+     * Moves an application to the bucket for its new status.
+     *
+     * @param application The application whose status changed
+     * @param oldStatus   The status the application had before the change
+     */
+    synchronized void reindexStatus(Application application, ApplicationStatus oldStatus) {
+        moveStatus(application, oldStatus);
+    }
+
+    /**
+     * Moves applications settled by a ballot out of the PENDING bucket into the bucket for their current status.
+     *
+     * @param applications The applications the ballot decided
+     */
+    synchronized void reindexDecided(Collection<Application> applications) {
+        for (Application application : applications) {
+            moveStatus(application, ApplicationStatus.PENDING);
+        }
+    }
+
+    /**
+     * Moves an application from the status bucket holding it to the bucket for its current status,
+     * and its demand counters with it. A ballot changes statuses well before it reindexes them, so
+     * another change can reach the project first; moving from wherever the application really is
+     * to its latest status keeps it in exactly one bucket whatever order the changes arrive in.
+     *
+     * @param expected The bucket the application is most likely in, checked first
+     */
+    private void moveStatus(Application application, ApplicationStatus expected) {
+        ApplicationStatus from = bucketedStatus(application, expected);
+        ApplicationStatus to = application.getStatus();
+        if (from == to) {
+            return;
+        }
+        FlatType flatType = bucketedFlatType(application, application.getFlatTypeChosen());
+        if (from != null) {
+            applicationsByStatus.get(from).remove(application);
+            if (flatType != null) {
+                demand.removed(flatType, from);
+            }
+        }
+        applicationsByStatus.get(to).add(application);
+        if (flatType != null) {
+            demand.added(flatType, to);
+        }
+    }
+
+    /**
+     * Finds the flat type bucket holding an application, which lags the application's
+     * own field while a flat type change is on its way to the project.
+     *
+     * @return The bucket's flat type, or null if no bucket holds the application
+     */
+    private FlatType bucketedFlatType(Application application, FlatType expected) {
+        if (applicationsByFlatType.get(expected).contains(application)) {
+            return expected;
+        }
+        for (Map.Entry<FlatType, Set<Application>> entry : applicationsByFlatType.entrySet()) {
+            if (entry.getValue().contains(application)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the status bucket holding an application, which lags the application's
+     * own status while a status change is on its way to the project.
+     *
+     * @return The bucket's status, or null if no bucket holds the application
+     */
+    private ApplicationStatus bucketedStatus(Application application, ApplicationStatus expected) {
+        if (applicationsByStatus.get(expected).contains(application)) {
+            return expected;
+        }
+        for (Map.Entry<ApplicationStatus, Set<Application>> entry : applicationsByStatus.entrySet()) {
+            if (entry.getValue().contains(application)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Moves an application to the bucket for its new flat type.
+     *
+     * @param application The application whose flat type changed
+     * @param oldFlatType The flat type the application had before the change
+     */
+    synchronized void reindexFlatType(Application application, FlatType oldFlatType) {
+        FlatType from = bucketedFlatType(application, oldFlatType);
+        FlatType to = application.getFlatTypeChosen();
+        if (from == to) {
+            return;
+        }
+        ApplicationStatus status = bucketedStatus(application, application.getStatus());
+        if (from != null) {
+            applicationsByFlatType.get(from).remove(application);
+            if (status != null) {
+                demand.removed(from, status);
+            }
+        }
+        applicationsByFlatType.get(to).add(application);
+        if (status != null) {
+            demand.added(to, status);
+        }
+    }
+
+    /**
+     * Gets the live application counts of this project by flat type and status.
+     * Reading a count takes no lock.
+     *
+     * @return The demand counters
+     */
+    public DemandCounters getDemand() {
+        return demand;
+    }
+
+    /**
+     * Gets how oversubscribed a flat type is: the number of pending applications for it
+     * per unit still available. Takes constant time whatever the number of applications.
+     *
+     * @param flatType The flat type
+     * @return Pending applications per available unit; 0 if none are pending, and
+     *         {@link Double#POSITIVE_INFINITY} if some are pending but no units are left
+     */
+    public double getOversubscriptionRatio(FlatType flatType) {
+        long pending = demand.get(flatType, ApplicationStatus.PENDING);
+        if (pending == 0) {
+            return 0;
+        }
+        AtomicLong units = unitsAvailable.get(flatType);
+        int left = units == null ? 0 : unitCount(units.get());
+        return left <= 0 ? Double.POSITIVE_INFINITY : (double) pending / left;
+    }
+
+    /**
+     * Recounts this project's applications from its status and flat type buckets while holding the
+     * project's lock, and compares the result with the demand counters.
+     *
+     * <p>The counters follow bucket membership, not the applications' own fields, which run ahead of
+     * the buckets while a change is on its way to the project; a ballot keeps them apart for its
+     * whole run. Counting the buckets under the lock therefore matches the counters exactly unless
+     * they are wrong.</p>
+     *
+     * @param repair true to overwrite the counters with the recount when they differ
+     * @return The recounted values indexed by flat type then status ordinal if they differ from the counters, else null
+     */
+    synchronized long[][] verifyDemand(boolean repair) {
+        long[][] recount = new long[FlatType.values().length][ApplicationStatus.values().length];
+        for (Map.Entry<ApplicationStatus, Set<Application>> byStatus : applicationsByStatus.entrySet()) {
+            int status = byStatus.getKey().ordinal();
+            for (Application application : byStatus.getValue()) {
+                for (Map.Entry<FlatType, Set<Application>> byFlatType : applicationsByFlatType.entrySet()) {
+                    if (byFlatType.getValue().contains(application)) {
+                        recount[byFlatType.getKey().ordinal()][status]++;
+                    }
+                }
+            }
+        }
+        if (Arrays.deepEquals(recount, demand.snapshot())) {
+            return null;
+        }
+        if (repair) {
+            demand.reset(recount);
+        }
+        return recount;
+    }
+
     /**
      * Adds an HDB officer to this project if there are slots available.
      *
      * @param officer The officer to add
+     * @return true if the officer was added, false if all officer slots are taken
      */
-    public void addOfficer(HDBOfficer officer) {
-        if (officersList.size() < officerSlots) {
+    public boolean addOfficer(HDBOfficer officer) {
+        WriteAheadLog.Record record;
+        synchronized (this) {
+            if (officersList.size() >= officerSlots) {
+                return false;
+            }
             officersList.add(officer);
-        } else {
-            System.out.println("Officer slots full. Cannot register more officers.");
+            record = WriteAheadLog.record(WriteAheadLog.RecordType.OFFICER_ADD).putString(projectName).putString(officer.getNric());
         }
+        // Wait for the disk outside the lock, which approvals and reports on this project also take
+        record.commit();
+        return true;
     }
 
     /**
@@ -197,6 +708,45 @@ public class Project {
      */
     public void addEnquiry(Enquiry enquiry) {
         enquiries.add(enquiry);
+        enquiryQueue.offer(enquiry);
+        ProjectCatalog owner = catalog;
+        if (owner != null) {
+            owner.getEnquiryIndex().add(enquiry);
+        }
+        WriteAheadLog.record(WriteAheadLog.RecordType.ENQUIRY_ADD).putInt(enquiry.getEnquiryID())
+                .putString(enquiry.getSubmittedBy().getNric()).putString(projectName)
+                .putString(enquiry.getContent()).commit();
+    }
+
+    /**
+     * Removes an enquiry from this project's list of enquiries.
+     *
+     * @param enquiry The enquiry to remove
+     */
+    public void removeEnquiry(Enquiry enquiry) {
+        enquiries.remove(enquiry);
+        enquiryQueue.remove(enquiry);
+        ProjectCatalog owner = catalog;
+        if (owner != null) {
+            owner.getEnquiryIndex().remove(enquiry);
+        }
+        WriteAheadLog.record(WriteAheadLog.RecordType.ENQUIRY_DELETE).putInt(enquiry.getEnquiryID()).commit();
+    }
+
+    /**
+     * Re-indexes an enquiry of this project after its content or reply changed,
+     * and takes it off the work queue once it has been answered.
+     *
+     * @param enquiry The changed enquiry
+     */
+    void enquiryChanged(Enquiry enquiry) {
+        if (enquiry.getReply() != null) {
+            enquiryQueue.remove(enquiry);
+        }
+        ProjectCatalog owner = catalog;
+        if (owner != null) {
+            owner.getEnquiryIndex().update(enquiry);
+        }
     }
 
     /**
@@ -204,27 +754,54 @@ public class Project {
      *
      * @param flatType The flat type to update
      * @param count    The new number of available units
+     * @return true if the count was updated, false if the project does not offer the flat type
      */
-    public void updateFlatUnits(FlatType flatType, int count) {
-        if (flatTypes.contains(flatType)) {
-            unitsAvailable.put(flatType, count);
-        } else {
-            System.out.println("Invalid flat type for this project.");
+    public boolean updateFlatUnits(FlatType flatType, int count) {
+        if (!flatTypes.contains(flatType)) {
+            return false;
         }
+        AtomicLong units = unitsAvailable.get(flatType);
+        while (true) {
+            long current = units.get();
+            long next = packUnits(unitVersion(current) + 1, count);
+            if (units.compareAndSet(current, next)) {
+                // Setting the count is an operation of its own, so it waits for its record
+                WriteAheadLog.record(WriteAheadLog.RecordType.UNITS).putString(projectName).putEnum(flatType).putLong(next)
+                        .commit();
+                ProjectCatalog owner = catalog;
+                if (owner != null) {
+                    owner.unitsChanged(this);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Appends detailed information about this project, one field per line.
+     *
+     * @param out The buffer to append to
+     */
+    @Override
+    public void renderTo(StringBuilder out) {
+        String nl = System.lineSeparator();
+        out.append("Project Name: ").append(projectName).append(nl);
+        out.append("Neighborhood: ").append(neighborhood).append(nl);
+        out.append("Flat Types: ").append(flatTypes).append(nl);
+        out.append("Units Available: ").append(getUnitsAvailable()).append(nl);
+        out.append("Opening Date: ").append(openingDate).append(nl);
+        out.append("Closing Date: ").append(closingDate).append(nl);
+        out.append("Visibility: ").append(visibility ? "Visible" : "Hidden").append(nl);
+        out.append("Remaining Officer Slots: ").append(officerSlots - officersList.size()).append(nl);
     }
 
     /**
      * Displays detailed information about this project to the console.
      */
     public void displayProjectDetails() {
-        System.out.println("Project Name: " + projectName);
-        System.out.println("Neighborhood: " + neighborhood);
-        System.out.println("Flat Types: " + flatTypes);
-        System.out.println("Units Available: " + unitsAvailable);
-        System.out.println("Opening Date: " + openingDate);
-        System.out.println("Closing Date: " + closingDate);
-        System.out.println("Visibility: " + (visibility ? "Visible" : "Hidden"));
-        System.out.println("Remaining Officer Slots: " + (officerSlots - officersList.size()));
+        StringBuilder sb = new StringBuilder(256);
+        renderTo(sb);
+        System.out.print(sb);
     }
 
     /**
@@ -242,9 +819,15 @@ public class Project {
      * @param officer The officer making the registration request
      */
     public void addPendingOfficerRequest(HDBOfficer officer) {
-        if (!pendingOfficerRequests.contains(officer)) {
+        WriteAheadLog.Record record;
+        synchronized (this) {
+            if (pendingOfficerRequests.contains(officer)) {
+                return;
+            }
             pendingOfficerRequests.add(officer);
+            record = WriteAheadLog.record(WriteAheadLog.RecordType.OFFICER_REQUEST).putString(projectName).putString(officer.getNric());
         }
+        record.commit();
     }
     
     /**
@@ -254,10 +837,12 @@ public class Project {
      */
     public void removePendingOfficerRequest(HDBOfficer officer) {
         pendingOfficerRequests.remove(officer);
+        WriteAheadLog.record(WriteAheadLog.RecordType.OFFICER_REQUEST_REMOVE).putString(projectName).putString(officer.getNric()).commit();
     }
 
     /**
      * Filters a list of projects based on specified criteria.
+     * A {@link ProjectCatalog} answers from its indexes and filter cache, and its result cannot be modified.
      *
      * @param projects          The list of projects to filter
      * @param neighborhoodFilter The neighborhood to filter by, or null for any neighborhood
@@ -266,6 +851,9 @@ public class Project {
      * @return A filtered list of projects matching the criteria
      */
     public static List<Project> filterProjectList(List<Project> projects, String neighborhoodFilter, FlatType flatTypeFilter, Boolean visibleOnly) {
+        if (projects instanceof ProjectCatalog) {
+            return ((ProjectCatalog) projects).filter(neighborhoodFilter, flatTypeFilter, visibleOnly);
+        }
         List<Project> filtered = new ArrayList<>();
         for (Project p : projects) {
             boolean matchNeighborhood = (neighborhoodFilter == null || p.getNeighborhood().equalsIgnoreCase(neighborhoodFilter));
@@ -280,7 +868,8 @@ public class Project {
     }
 
     /**
-     * Finds a project by name and manager from a list of projects.
+     * Finds a project by name and manager from a list of projects, ignoring the case of the name.
+     * A {@link ProjectCatalog} is searched through its name index instead of project by project.
      *
      * @param name        The name of the project to find
      * @param manager     The manager of the project to find
@@ -288,7 +877,10 @@ public class Project {
      * @return The matching project, or null if no match is found
      */
     public static Project findProjectByNameAndManager(String name, HDBManager manager, List<Project> allProjects) {
-         return allProjects.stream()
+        if (allProjects instanceof ProjectCatalog) {
+            return ((ProjectCatalog) allProjects).findByName(name, p -> manager.equals(p.getManagerInCharge()));
+        }
+        return allProjects.stream()
         .filter(p -> p.getProjectName().equalsIgnoreCase(name) && p.getManagerInCharge().equals(manager))
         .findFirst().orElse(null);
     }
@@ -346,6 +938,13 @@ public class Project {
      * @param manager The manager to assign to this project
      */
     public void setManagerInCharge(HDBManager manager) {
+        HDBManager oldManager = this.managerInCharge;
         this.managerInCharge = manager;
+        ProjectCatalog owner = catalog;
+        if (owner != null && oldManager != manager) {
+            owner.managerChanged(this, oldManager);
+        }
+        WriteAheadLog.record(WriteAheadLog.RecordType.MANAGER).putString(projectName)
+                .putString(manager == null ? "" : manager.getNric()).commit();
     }
 }
\ No newline at end of file
@@ -0,0 +1,865 @@
+package BTO_System;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * The list of all projects, with precomputed bitsets for answering
+ * "which visible projects can this applicant apply for" without scanning every project.
+ *
+ * <p>Each project in the catalog is given a small integer ID. For every flat type the catalog
+ * keeps a bitset of the projects offering it, and for every (marital status, age band) pair
+ * from {@link Eligibility} the union of the bitsets for the flat types that pair may apply
+ * for. A further bitset tracks which projects are visible. The eligible project list for an
+ * applicant is then one AND of two bitsets. The bitsets are kept up to date as projects are
+ * added, removed and have their visibility changed. The catalog likewise keeps each manager's
+ * {@link ProjectIntervalIndex} of managed projects in step as projects are added, removed or reassigned,
+ * holds the {@link EnquiryIndex} used to search the enquiries of all its projects, and keeps a
+ * {@link ProjectNameIndex} for looking projects up and completing their names.</p>
+ *
+ * <p>Project filtering by neighborhood, flat type and visibility uses a bitset per neighborhood
+ * alongside the flat type and visibility bitsets, starting from the smallest matching set. Filter
+ * results are cached by filter until the catalog changes.</p>
+ *
+ * <p>Projects and applications can be listed a {@link Page} at a time. Projects are paged in
+ * name order from a sorted copy made on first use; applications are paged in ID order by merging
+ * the next few from each project.</p>
+ *
+ * <p>All of this state is held in an immutable, numbered {@link Version}. Readers take the
+ * current version with one volatile read and never lock. Writers (adding or removing a project,
+ * or changing its visibility or unit counts) take turns on a writer lock, build the next version
+ * from the current one and publish it with a single volatile write, so readers see either all of
+ * a change or none of it. Parts a change does not touch, such as the bitsets of other flat types,
+ * are shared between versions rather than copied. A caller that needs a consistent view across
+ * several calls, such as a report or a listing shown page by page, can hold on to one
+ * {@link #current()} version.</p>
+ *
+ * <p>The catalog is a {@link List} so it can be used anywhere the plain project list was.
+ * Iteration works on the version current when it starts, so it is safe to share between
+ * concurrent sessions.</p>
+ */
+class ProjectCatalog extends AbstractList<Project> implements RandomAccess {
+    /** Most filter results kept per version; the cache is emptied when it fills */
+    private static final int FILTER_CACHE_SIZE = 256;
+
+    /** Held while building and publishing a new version, so writers take turns */
+    private final Object writeLock = new Object();
+
+    /** The latest published version */
+    private volatile Version current = new Version();
+
+    /** Full-text index over the enquiries of every project in the catalog */
+    private final EnquiryIndex enquiryIndex = new EnquiryIndex();
+
+    /**
+     * One immutable state of the catalog.
+     *
+     * <p>A version is filled in by a writer before it is published and never changed afterwards,
+     * apart from its caches, which hold results derived from it.</p>
+     */
+    static final class Version {
+        private final long number;
+
+        /** The projects in list order */
+        private Project[] ordered;
+
+        /** Projects by catalog ID; removed projects leave a null slot */
+        private Project[] byId;
+
+        /** Next catalog ID to hand out */
+        private int nextId;
+
+        /** Projects that are visible to applicants */
+        private BitSet visible;
+
+        /** Projects offering each flat type, indexed by flat type ordinal */
+        private BitSet[] offering;
+
+        /** Projects each (marital status, age band) pair may apply to, indexed by status ordinal then band */
+        private BitSet[][] eligible;
+
+        /** Projects in each neighborhood, keyed by case-folded neighborhood name */
+        private Map<String, BitSet> byNeighborhood;
+
+        /** Case-insensitive index of project names */
+        private ProjectNameIndex names;
+
+        /** Filter results by filter */
+        private final Map<FilterKey, List<Project>> filterCache = new ConcurrentHashMap<>();
+
+        /** Projects in name order for paging, or null until first needed */
+        private volatile NameOrder nameOrder;
+
+        /**
+         * Creates the empty first version.
+         */
+        private Version() {
+            number = 0;
+            ordered = new Project[0];
+            byId = new Project[16];
+            visible = new BitSet();
+            offering = new BitSet[FlatType.values().length];
+            for (int t = 0; t < offering.length; t++) {
+                offering[t] = new BitSet();
+            }
+            eligible = new BitSet[MaritalStatus.values().length][Eligibility.AGE_BANDS];
+            for (BitSet[] bands : eligible) {
+                for (int b = 0; b < bands.length; b++) {
+                    bands[b] = new BitSet();
+                }
+            }
+            byNeighborhood = new HashMap<>();
+            names = ProjectNameIndex.EMPTY;
+        }
+
+        /**
+         * Starts the version after a base, sharing all of its state until a writer replaces a part.
+         */
+        private Version(Version base) {
+            number = base.number + 1;
+            ordered = base.ordered;
+            byId = base.byId;
+            nextId = base.nextId;
+            visible = base.visible;
+            offering = base.offering;
+            eligible = base.eligible;
+            byNeighborhood = base.byNeighborhood;
+            names = base.names;
+        }
+
+        /**
+         * Gets this version's number. Each change to the catalog publishes the next number.
+         *
+         * @return The version number
+         */
+        public long getNumber() {
+            return number;
+        }
+
+        /**
+         * Gets the projects in this version.
+         *
+         * @return The projects in list order; the list cannot be modified
+         */
+        public List<Project> getProjects() {
+            return Collections.unmodifiableList(Arrays.asList(ordered));
+        }
+
+        /**
+         * Gets the visible projects a user is eligible to apply for.
+         *
+         * @param user The applicant
+         * @return List of visible, eligible projects in catalog ID order
+         */
+        public List<Project> getEligibleProjects(User user) {
+            BitSet result = (BitSet) eligible[user.getMaritalStatus().ordinal()][Eligibility.ageBand(user.getAge())].clone();
+            result.and(visible);
+            List<Project> list = new ArrayList<>(result.cardinality());
+            for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+                list.add(byId[id]);
+            }
+            return list;
+        }
+
+        /**
+         * Gets one page of the visible projects a user is eligible to apply for, in catalog ID order.
+         *
+         * <p>The page walks the user's eligibility bitset and the visibility bitset together from
+         * the first ID after the cursor, so it stops after {@code size} projects instead of
+         * building the whole list. Catalog IDs are never reused, so the cursor stays valid in
+         * later versions.</p>
+         *
+         * @param user   The applicant
+         * @param cursor The cursor from the previous page, or null for the first page
+         * @param size   The most projects on the page
+         * @return The page
+         */
+        public Page<Project> pageEligibleProjects(User user, String cursor, int size) {
+            BitSet allowed = eligible[user.getMaritalStatus().ordinal()][Eligibility.ageBand(user.getAge())];
+            int afterId = Page.afterId(cursor);
+            List<Project> found = new ArrayList<>(size + 1);
+            int last = -1;
+            // Leapfrog between the two bitsets until both have the same next bit
+            int id = allowed.nextSetBit(afterId < 0 ? 0 : afterId + 1);
+            while (id >= 0 && found.size() <= size) {
+                int shown = visible.nextSetBit(id);
+                if (shown == id) {
+                    found.add(byId[id]);
+                    if (found.size() == size) {
+                        last = id;
+                    }
+                    id = allowed.nextSetBit(id + 1);
+                } else {
+                    id = shown < 0 ? -1 : allowed.nextSetBit(shown);
+                }
+            }
+            int end = last;
+            return Page.of(found, size, p -> Integer.toString(end));
+        }
+
+        /**
+         * Finds the projects matching a filter, in catalog order. Each argument may be null to not filter on it.
+         * Repeating a filter on the same version returns the cached result.
+         *
+         * @param neighborhood The neighborhood, ignoring case
+         * @param flatType     A flat type the project must offer
+         * @param visible      The visibility the project must have
+         * @return The matching projects; the list cannot be modified
+         */
+        public List<Project> filter(String neighborhood, FlatType flatType, Boolean visible) {
+            FilterKey key = new FilterKey(neighborhood == null ? null : ProjectNameIndex.fold(neighborhood), flatType, visible);
+            List<Project> cached = filterCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            // Start from the smallest set, so an empty one ends the search at once
+            List<BitSet> include = new ArrayList<>(3);
+            if (key.neighborhood != null) {
+                include.add(byNeighborhood.getOrDefault(key.neighborhood, new BitSet()));
+            }
+            if (flatType != null) {
+                include.add(offering[flatType.ordinal()]);
+            }
+            if (Boolean.TRUE.equals(visible)) {
+                include.add(this.visible);
+            }
+            include.sort(Comparator.comparingInt(BitSet::cardinality));
+            BitSet result;
+            if (include.isEmpty()) {
+                result = new BitSet(nextId);
+                result.set(0, nextId);
+            } else {
+                result = (BitSet) include.get(0).clone();
+                for (int i = 1; i < include.size() && !result.isEmpty(); i++) {
+                    result.and(include.get(i));
+                }
+            }
+            if (Boolean.FALSE.equals(visible)) {
+                result.andNot(this.visible);
+            }
+            List<Project> list = new ArrayList<>(result.cardinality());
+            for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+                if (byId[id] != null) {
+                    list.add(byId[id]);
+                }
+            }
+            List<Project> unmodifiable = Collections.unmodifiableList(list);
+            if (filterCache.size() >= FILTER_CACHE_SIZE) {
+                filterCache.clear();
+            }
+            filterCache.put(key, unmodifiable);
+            return unmodifiable;
+        }
+
+        /**
+         * Finds the projects with a name, ignoring case.
+         *
+         * @param name The project name
+         * @return The projects with that name, in catalog order; empty if none
+         */
+        public List<Project> findByName(String name) {
+            return names.find(name);
+        }
+
+        /**
+         * Finds the first project with a name, ignoring case, that also satisfies a condition.
+         *
+         * @param name      The project name
+         * @param condition The condition the project must meet, or null for none
+         * @return The first matching project in catalog order, or null if none
+         */
+        public Project findByName(String name, Predicate<Project> condition) {
+            for (Project project : names.find(name)) {
+                if (condition == null || condition.test(project)) {
+                    return project;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Suggests projects whose names start with what the user has typed so far, ignoring case.
+         *
+         * @param prefix The start of a project name
+         * @param limit  The most projects to suggest
+         * @return Up to {@code limit} projects, in alphabetical order of name
+         */
+        public List<Project> completeName(String prefix, int limit) {
+            return names.complete(prefix, limit);
+        }
+
+        /**
+         * Gets one page of projects in alphabetical order of name, ignoring case.
+         *
+         * <p>The cursor records the name and catalog ID of the last project shown, so later pages
+         * carry on from the right place even if they are read from a later version.</p>
+         *
+         * @param cursor The cursor from the previous page, or null for the first page
+         * @param size   The most projects on the page
+         * @param filter The condition projects must meet to be listed, or null for none
+         * @return The page
+         */
+        public Page<Project> pageProjects(String cursor, int size, Predicate<? super Project> filter) {
+            NameOrder order = nameOrder();
+            int from = 0;
+            if (cursor != null) {
+                int colon = cursor.indexOf(':');
+                if (colon < 0) {
+                    throw new IllegalArgumentException("Not a project listing cursor: " + cursor);
+                }
+                int id = Page.afterId(cursor.substring(0, colon));
+                String name = cursor.substring(colon + 1);
+                String folded = ProjectNameIndex.fold(name);
+                // Find the first project after the cursor's key
+                int lo = 0;
+                int hi = order.projects.length;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (order.compare(mid, folded, name, id) <= 0) {
+                        lo = mid + 1;
+                    } else {
+                        hi = mid;
+                    }
+                }
+                from = lo;
+            }
+            List<Project> found = new ArrayList<>(size + 1);
+            int last = -1;
+            for (int i = from; i < order.projects.length && found.size() <= size; i++) {
+                Project project = order.projects[i];
+                if (filter == null || filter.test(project)) {
+                    found.add(project);
+                    if (found.size() == size) {
+                        last = i;
+                    }
+                }
+            }
+            // The cursor takes the ID from this version, which a project removed since no longer has
+            int end = last;
+            return Page.of(found, size, p -> order.ids[end] + ":" + p.getProjectName());
+        }
+
+        /**
+         * Gets one page of the applications to every project in this version, in application ID order.
+         *
+         * @param cursor The cursor from the previous page, or null for the first page
+         * @param size   The most applications on the page
+         * @param filter The condition applications must meet to be listed, or null for none
+         * @return The page
+         */
+        public Page<Application> pageApplications(String cursor, int size, Predicate<? super Application> filter) {
+            int afterId = Page.afterId(cursor);
+            // Each project offers its next size + 1 applications; the lowest IDs among them make the page
+            List<Application> found = new ArrayList<>();
+            for (Project project : ordered) {
+                project.collectApplications(afterId, size + 1, filter, found);
+            }
+            found.sort(Comparator.comparingInt(Application::getApplicationID));
+            if (found.size() > size + 1) {
+                found.subList(size + 1, found.size()).clear();
+            }
+            return Page.of(found, size, a -> Integer.toString(a.getApplicationID()));
+        }
+
+        /**
+         * Gets the projects in name order, sorting them on first use. Two readers may both sort;
+         * they get equal results and either may be kept.
+         */
+        private NameOrder nameOrder() {
+            NameOrder order = nameOrder;
+            if (order != null) {
+                return order;
+            }
+            String[] keys = new String[nextId];
+            List<Integer> live = new ArrayList<>(ordered.length);
+            for (int id = 0; id < nextId; id++) {
+                if (byId[id] != null) {
+                    keys[id] = ProjectNameIndex.fold(byId[id].getProjectName());
+                    live.add(id);
+                }
+            }
+            live.sort(Comparator.<Integer, String>comparing(id -> keys[id])
+                    .thenComparing(id -> byId[id].getProjectName())
+                    .thenComparingInt(id -> id));
+            Project[] sorted = new Project[live.size()];
+            String[] folded = new String[sorted.length];
+            int[] ids = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                ids[i] = live.get(i);
+                sorted[i] = byId[ids[i]];
+                folded[i] = keys[ids[i]];
+            }
+            order = new NameOrder(sorted, folded, ids);
+            nameOrder = order;
+            return order;
+        }
+
+        /**
+         * Gives a project the next ID and sets its bits, copying each part it changes.
+         */
+        private int index(Project project) {
+            int id = nextId++;
+            byId = Arrays.copyOf(byId, id == byId.length ? id * 2 : byId.length);
+            byId[id] = project;
+            names = names.with(project);
+            byNeighborhood = new HashMap<>(byNeighborhood);
+            String neighborhood = ProjectNameIndex.fold(project.getNeighborhood());
+            BitSet inNeighborhood = byNeighborhood.get(neighborhood);
+            inNeighborhood = inNeighborhood == null ? new BitSet() : (BitSet) inNeighborhood.clone();
+            inNeighborhood.set(id);
+            byNeighborhood.put(neighborhood, inNeighborhood);
+            visible = (BitSet) visible.clone();
+            visible.set(id, project.isVisible());
+            offering = copy(offering);
+            for (FlatType type : project.getFlatTypes()) {
+                offering[type.ordinal()].set(id);
+            }
+            eligible = copy(eligible);
+            for (MaritalStatus status : MaritalStatus.values()) {
+                for (int band = 0; band < Eligibility.AGE_BANDS; band++) {
+                    for (FlatType type : Eligibility.allowedFlatTypes(status, band)) {
+                        if (offering[type.ordinal()].get(id)) {
+                            eligible[status.ordinal()][band].set(id);
+                        }
+                    }
+                }
+            }
+            return id;
+        }
+
+        /**
+         * Clears a removed project's bits and frees its ID slot, copying each part it changes.
+         */
+        private void unindex(Project project, int id) {
+            byId = byId.clone();
+            byId[id] = null;
+            names = names.without(project);
+            String neighborhood = ProjectNameIndex.fold(project.getNeighborhood());
+            BitSet inNeighborhood = byNeighborhood.get(neighborhood);
+            if (inNeighborhood != null && inNeighborhood.get(id)) {
+                byNeighborhood = new HashMap<>(byNeighborhood);
+                inNeighborhood = (BitSet) inNeighborhood.clone();
+                inNeighborhood.clear(id);
+                if (inNeighborhood.isEmpty()) {
+                    byNeighborhood.remove(neighborhood);
+                } else {
+                    byNeighborhood.put(neighborhood, inNeighborhood);
+                }
+            }
+            visible = (BitSet) visible.clone();
+            visible.clear(id);
+            offering = copy(offering);
+            for (BitSet types : offering) {
+                types.clear(id);
+            }
+            eligible = copy(eligible);
+            for (BitSet[] bands : eligible) {
+                for (BitSet band : bands) {
+                    band.clear(id);
+                }
+            }
+        }
+
+        private static BitSet[] copy(BitSet[] sets) {
+            BitSet[] copies = new BitSet[sets.length];
+            for (int i = 0; i < sets.length; i++) {
+                copies[i] = (BitSet) sets[i].clone();
+            }
+            return copies;
+        }
+
+        private static BitSet[][] copy(BitSet[][] sets) {
+            BitSet[][] copies = new BitSet[sets.length][];
+            for (int i = 0; i < sets.length; i++) {
+                copies[i] = copy(sets[i]);
+            }
+            return copies;
+        }
+    }
+
+    /**
+     * A version's projects sorted by case-folded name, then name, then catalog ID.
+     */
+    private static final class NameOrder {
+        final Project[] projects;
+        final String[] folded;
+        /** Catalog IDs as they were in the version, as a project removed since no longer has one */
+        final int[] ids;
+
+        NameOrder(Project[] projects, String[] folded, int[] ids) {
+            this.projects = projects;
+            this.folded = folded;
+            this.ids = ids;
+        }
+
+        /**
+         * Compares the project at a position with a key, in the order of this list.
+         */
+        int compare(int at, String folded, String name, int id) {
+            int c = this.folded[at].compareTo(folded);
+            if (c == 0) {
+                c = projects[at].getProjectName().compareTo(name);
+            }
+            return c != 0 ? c : Integer.compare(ids[at], id);
+        }
+    }
+
+    /**
+     * The arguments of a project filter, as a cache key.
+     */
+    private static final class FilterKey {
+        private final String neighborhood;
+        private final FlatType flatType;
+        private final Boolean visible;
+
+        FilterKey(String neighborhood, FlatType flatType, Boolean visible) {
+            this.neighborhood = neighborhood;
+            this.flatType = flatType;
+            this.visible = visible;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FilterKey)) {
+                return false;
+            }
+            FilterKey other = (FilterKey) o;
+            return Objects.equals(neighborhood, other.neighborhood) && flatType == other.flatType
+                    && Objects.equals(visible, other.visible);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(neighborhood, flatType, visible);
+        }
+    }
+
+    /**
+     * Creates an empty catalog.
+     */
+    public ProjectCatalog() {
+    }
+
+    /**
+     * Gets the current version, for a consistent view across several reads. The version stays
+     * as it is however the catalog changes afterwards, though the projects in it may still have
+     * their own details, such as their applications, edited.
+     *
+     * @return The current version
+     */
+    public Version current() {
+        return current;
+    }
+
+    @Override
+    public Project get(int index) {
+        return current.ordered[index];
+    }
+
+    @Override
+    public int size() {
+        return current.ordered.length;
+    }
+
+    @Override
+    public Iterator<Project> iterator() {
+        return current.getProjects().iterator();
+    }
+
+    @Override
+    public Spliterator<Project> spliterator() {
+        return current.getProjects().spliterator();
+    }
+
+    @Override
+    public void add(int index, Project project) {
+        synchronized (writeLock) {
+            Version base = current;
+            if (index < 0 || index > base.ordered.length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + base.ordered.length);
+            }
+            requireUnattached(project);
+            Version next = new Version(base);
+            next.ordered = inserted(base.ordered, index, project);
+            attach(next, project);
+            current = next;
+        }
+    }
+
+    /**
+     * Adds a project at the end of the list unless a project with the same name, ignoring case,
+     * is already in the catalog. Log records name their project, so a second project with the
+     * name would be confused with the first on replay.
+     *
+     * @param project The project to add
+     * @return true if the project was added, false if its name is taken
+     */
+    public boolean addIfNameFree(Project project) {
+        synchronized (writeLock) {
+            if (!current.findByName(project.getProjectName()).isEmpty()) {
+                return false;
+            }
+            add(current.ordered.length, project);
+            return true;
+        }
+    }
+
+    @Override
+    public Project set(int index, Project project) {
+        synchronized (writeLock) {
+            Version base = current;
+            Project old = base.ordered[index];
+            requireUnattached(project);
+            Version next = new Version(base);
+            next.ordered = base.ordered.clone();
+            next.ordered[index] = project;
+            detach(next, old);
+            attach(next, project);
+            current = next;
+            return old;
+        }
+    }
+
+    @Override
+    public Project remove(int index) {
+        synchronized (writeLock) {
+            Version base = current;
+            Project old = base.ordered[index];
+            Version next = new Version(base);
+            next.ordered = removed(base.ordered, index);
+            detach(next, old);
+            current = next;
+            return old;
+        }
+    }
+
+    @Override
+    public boolean remove(Object project) {
+        synchronized (writeLock) {
+            int index = indexOf(project);
+            if (index < 0) {
+                return false;
+            }
+            remove(index);
+            return true;
+        }
+    }
+
+    /**
+     * Gets the visible projects a user is eligible to apply for.
+     *
+     * @param user The applicant
+     * @return List of visible, eligible projects in catalog ID order
+     */
+    public List<Project> getEligibleProjects(User user) {
+        return current.getEligibleProjects(user);
+    }
+
+    /**
+     * Gets one page of the visible projects a user is eligible to apply for, in catalog ID order.
+     *
+     * @param user   The applicant
+     * @param cursor The cursor from the previous page, or null for the first page
+     * @param size   The most projects on the page
+     * @return The page
+     */
+    public Page<Project> pageEligibleProjects(User user, String cursor, int size) {
+        return current.pageEligibleProjects(user, cursor, size);
+    }
+
+    /**
+     * Finds the projects matching a filter, in catalog order. Each argument may be null to not filter on it.
+     * Repeating a filter returns the cached result until the catalog changes.
+     *
+     * @param neighborhood The neighborhood, ignoring case
+     * @param flatType     A flat type the project must offer
+     * @param visible      The visibility the project must have
+     * @return The matching projects; the list cannot be modified
+     */
+    public List<Project> filter(String neighborhood, FlatType flatType, Boolean visible) {
+        return current.filter(neighborhood, flatType, visible);
+    }
+
+    /**
+     * Gets one page of projects in alphabetical order of name, ignoring case.
+     *
+     * <p>The cursor records the name and catalog ID of the last project shown, so later pages
+     * carry on from the right place even if projects are added or removed in between.</p>
+     *
+     * @param cursor The cursor from the previous page, or null for the first page
+     * @param size   The most projects on the page
+     * @param filter The condition projects must meet to be listed, or null for none
+     * @return The page
+     */
+    public Page<Project> pageProjects(String cursor, int size, Predicate<? super Project> filter) {
+        return current.pageProjects(cursor, size, filter);
+    }
+
+    /**
+     * Gets one page of the applications to every project in the catalog, in application ID order.
+     *
+     * @param cursor The cursor from the previous page, or null for the first page
+     * @param size   The most applications on the page
+     * @param filter The condition applications must meet to be listed, or null for none
+     * @return The page
+     */
+    public Page<Application> pageApplications(String cursor, int size, Predicate<? super Application> filter) {
+        return current.pageApplications(cursor, size, filter);
+    }
+
+    /**
+     * Publishes a new version after a project's unit counts were edited, so cached filter results are recomputed.
+     *
+     * @param project The project that changed
+     */
+    void unitsChanged(Project project) {
+        synchronized (writeLock) {
+            Version base = current;
+            int id = project.getCatalogId();
+            if (id >= 0 && base.byId[id] == project) {
+                current = new Version(base);
+            }
+        }
+    }
+
+    /**
+     * Finds the projects with a name, ignoring case.
+     *
+     * @param name The project name
+     * @return The projects with that name, in catalog order; empty if none
+     */
+    public List<Project> findByName(String name) {
+        return current.findByName(name);
+    }
+
+    /**
+     * Finds the first project with a name, ignoring case, that also satisfies a condition.
+     *
+     * @param name      The project name
+     * @param condition The condition the project must meet, or null for none
+     * @return The first matching project in catalog order, or null if none
+     */
+    public Project findByName(String name, Predicate<Project> condition) {
+        return current.findByName(name, condition);
+    }
+
+    /**
+     * Suggests projects whose names start with what the user has typed so far, ignoring case.
+     *
+     * @param prefix The start of a project name
+     * @param limit  The most projects to suggest
+     * @return Up to {@code limit} projects, in alphabetical order of name
+     */
+    public List<Project> completeName(String prefix, int limit) {
+        return current.completeName(prefix, limit);
+    }
+
+    /**
+     * Gets the full-text index over the enquiries of the projects in this catalog.
+     * Projects keep it current as enquiries are added, edited, replied to and deleted.
+     *
+     * @return The enquiry index
+     */
+    public EnquiryIndex getEnquiryIndex() {
+        return enquiryIndex;
+    }
+
+    /**
+     * Publishes a new version with the visibility bitset updated after a project's visibility changes.
+     *
+     * @param project The project whose visibility changed
+     */
+    void visibilityChanged(Project project) {
+        synchronized (writeLock) {
+            Version base = current;
+            int id = project.getCatalogId();
+            if (id < 0 || base.byId[id] != project || base.visible.get(id) == project.isVisible()) {
+                return;
+            }
+            Version next = new Version(base);
+            next.visible = (BitSet) base.visible.clone();
+            next.visible.set(id, project.isVisible());
+            current = next;
+        }
+    }
+
+    /**
+     * Moves a project between managers' interval indexes after its manager changes.
+     *
+     * @param project    The project whose manager changed
+     * @param oldManager The manager previously in charge, or null
+     */
+    void managerChanged(Project project, HDBManager oldManager) {
+        synchronized (writeLock) {
+            int id = project.getCatalogId();
+            if (id < 0 || current.byId[id] != project) {
+                return;
+            }
+            if (oldManager != null) {
+                oldManager.getManagedProjects().remove(project);
+            }
+            HDBManager manager = project.getManagerInCharge();
+            if (manager != null) {
+                manager.getManagedProjects().add(project);
+            }
+        }
+    }
+
+    private static void requireUnattached(Project project) {
+        if (project.getCatalogId() >= 0) {
+            throw new IllegalArgumentException("Project is already in a catalog: " + project.getProjectName());
+        }
+    }
+
+    /**
+     * Indexes a newly added project in the version being built and attaches it to this catalog.
+     * Caller holds the writer lock.
+     */
+    private void attach(Version next, Project project) {
+        int id = next.index(project);
+        project.attachCatalog(this, id);
+        HDBManager manager = project.getManagerInCharge();
+        if (manager != null) {
+            manager.getManagedProjects().add(project);
+        }
+        for (Enquiry enquiry : project.getEnquiries()) {
+            enquiryIndex.add(enquiry);
+        }
+    }
+
+    /**
+     * Unindexes a removed project in the version being built and detaches it from this catalog.
+     * Caller holds the writer lock.
+     */
+    private void detach(Version next, Project project) {
+        int id = project.getCatalogId();
+        if (id < 0 || next.byId[id] != project) {
+            return;
+        }
+        next.unindex(project, id);
+        project.attachCatalog(null, -1);
+        HDBManager manager = project.getManagerInCharge();
+        if (manager != null) {
+            manager.getManagedProjects().remove(project);
+        }
+        for (Enquiry enquiry : project.getEnquiries()) {
+            enquiryIndex.remove(enquiry);
+        }
+    }
+
+    private static Project[] inserted(Project[] projects, int at, Project project) {
+        Project[] grown = new Project[projects.length + 1];
+        System.arraycopy(projects, 0, grown, 0, at);
+        grown[at] = project;
+        System.arraycopy(projects, at, grown, at + 1, projects.length - at);
+        return grown;
+    }
+
+    private static Project[] removed(Project[] projects, int at) {
+        Project[] shrunk = new Project[projects.length - 1];
+        System.arraycopy(projects, 0, shrunk, 0, at);
+        System.arraycopy(projects, at + 1, shrunk, at, shrunk.length - at);
+        return shrunk;
+    }
+}
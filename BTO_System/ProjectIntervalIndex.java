@@ -0,0 +1,253 @@
+package BTO_System;
+
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Index of projects by application period, for finding the projects whose dates overlap a
+ * given period without comparing against every project.
+ *
+ * <p>This is an augmented interval tree. Projects are ordered by opening day, and each node also
+ * stores the latest closing day anywhere in its subtree, so whole subtrees that end before the
+ * queried period can be skipped. Days are kept as primitive epoch-day longs rather than
+ * {@link Date} objects. The tree is a treap (random priorities), which keeps it balanced
+ * whatever order projects are added in. A query costs O(log n + k) for k overlapping projects.</p>
+ *
+ * <p>Periods are inclusive at both ends: two projects overlap if neither closes before the other
+ * opens, the same rule as {@link Project#overlaps(Project)}.</p>
+ */
+class ProjectIntervalIndex {
+    private static final class Node {
+        final Project project;
+        final long open;
+        final long close;
+        final int priority;
+        long maxClose;
+        Node left;
+        Node right;
+
+        Node(Project project, long open, long close, int priority) {
+            this.project = project;
+            this.open = open;
+            this.close = close;
+            this.priority = priority;
+            this.maxClose = close;
+        }
+    }
+
+    private final Random random = new Random();
+    private Node root;
+    private int size;
+
+    /**
+     * Converts a date to a day number for indexing.
+     *
+     * @param date The date to convert
+     * @return The number of days since 1970-01-01 in the system time zone
+     */
+    static long epochDay(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Adds a project to the index. Adding a project that is already present has no effect.
+     *
+     * @param project The project to add
+     */
+    public synchronized void add(Project project) {
+        if (!contains(project)) {
+            root = insert(root, new Node(project, epochDay(project.getOpeningDate()),
+                    epochDay(project.getClosingDate()), random.nextInt()));
+            size++;
+        }
+    }
+
+    /**
+     * Removes a project from the index.
+     *
+     * @param project The project to remove
+     * @return true if the project was in the index
+     */
+    public synchronized boolean remove(Project project) {
+        int before = size;
+        root = delete(root, project, epochDay(project.getOpeningDate()));
+        return size < before;
+    }
+
+    /**
+     * Checks whether a project is in the index.
+     *
+     * @param project The project to look for
+     * @return true if the project is in the index
+     */
+    public synchronized boolean contains(Project project) {
+        long open = epochDay(project.getOpeningDate());
+        return find(root, project, open);
+    }
+
+    /**
+     * Gets the number of projects in the index.
+     *
+     * @return The number of projects
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Finds the indexed projects whose application period overlaps the given project's.
+     * The project itself is excluded if it is in the index.
+     *
+     * @param project The project to check against
+     * @return List of overlapping projects, ordered by opening date
+     */
+    public List<Project> findOverlapping(Project project) {
+        List<Project> result = new ArrayList<>();
+        synchronized (this) {
+            collect(root, epochDay(project.getOpeningDate()), epochDay(project.getClosingDate()), project, result);
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether any indexed project other than the given one overlaps its application period.
+     *
+     * @param project The project to check against
+     * @return true if at least one other indexed project overlaps it
+     */
+    public synchronized boolean hasOverlap(Project project) {
+        return any(root, epochDay(project.getOpeningDate()), epochDay(project.getClosingDate()), project);
+    }
+
+    private static boolean find(Node node, Project project, long open) {
+        while (node != null) {
+            if (node.project == project) {
+                return true;
+            }
+            if (open < node.open) {
+                node = node.left;
+            } else if (open > node.open) {
+                node = node.right;
+            } else {
+                // Projects opening on the same day can sit on either side after rotations
+                return find(node.left, project, open) || find(node.right, project, open);
+            }
+        }
+        return false;
+    }
+
+    private static void collect(Node node, long lo, long hi, Project exclude, List<Project> out) {
+        if (node == null || node.maxClose < lo) {
+            return;
+        }
+        collect(node.left, lo, hi, exclude, out);
+        if (node.open > hi) {
+            return;
+        }
+        if (node.close >= lo && node.project != exclude) {
+            out.add(node.project);
+        }
+        collect(node.right, lo, hi, exclude, out);
+    }
+
+    private static boolean any(Node node, long lo, long hi, Project exclude) {
+        if (node == null || node.maxClose < lo) {
+            return false;
+        }
+        if (any(node.left, lo, hi, exclude)) {
+            return true;
+        }
+        if (node.open > hi) {
+            return false;
+        }
+        if (node.close >= lo && node.project != exclude) {
+            return true;
+        }
+        return any(node.right, lo, hi, exclude);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.open < node.open) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node delete(Node node, Project project, long open) {
+        if (node == null) {
+            return null;
+        }
+        if (node.project == project) {
+            size--;
+            return merge(node.left, node.right);
+        }
+        int before = size;
+        if (open <= node.open) {
+            node.left = delete(node.left, project, open);
+        }
+        // Projects opening on the same day can sit on either side after rotations
+        if (open >= node.open && size == before) {
+            node.right = delete(node.right, project, open);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        long max = node.close;
+        if (node.left != null && node.left.maxClose > max) {
+            max = node.left.maxClose;
+        }
+        if (node.right != null && node.right.maxClose > max) {
+            max = node.right.maxClose;
+        }
+        node.maxClose = max;
+    }
+}
@@ -0,0 +1,296 @@
+package BTO_System;
+
+import java.util.*;
+
+/**
+ * Index of projects by name, ignoring case, for exact lookup and for completing a partly typed name.
+ *
+ * <p>Names are case-folded once, when a project is indexed, the same way
+ * {@link String#equalsIgnoreCase} compares characters. The index is a radix tree, a trie in which
+ * chains of single-child nodes are merged into one edge labelled with a whole substring. Every
+ * node then either ends a name or branches, so an exact lookup is one walk down the folded name,
+ * and listing the first k names under a prefix visits O(k) nodes after the O(prefix length) walk
+ * down to it. Names may repeat; all projects with a name are kept, in the order they were added.</p>
+ *
+ * <p>The index is immutable. Adding or removing a project returns a new index that copies only
+ * the nodes on the path to the name and shares the rest of the tree with the old index, so
+ * {@link ProjectCatalog} can give each of its versions its own index without copying it whole,
+ * and readers can use any version without locking.</p>
+ */
+final class ProjectNameIndex {
+    private static final Project[] NONE = new Project[0];
+    private static final char[] NO_FIRSTS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    /** The index with no projects */
+    static final ProjectNameIndex EMPTY = new ProjectNameIndex(new Node("", NO_FIRSTS, NO_CHILDREN, NONE));
+
+    private static final class Node {
+        /** Label of the edge from the parent; empty for the root */
+        final String label;
+        /** First character of each child's label, sorted */
+        final char[] firsts;
+        /** Children in the order of {@link #firsts} */
+        final Node[] children;
+        /** Projects whose folded name ends at this node */
+        final Project[] projects;
+
+        Node(String label, char[] firsts, Node[] children, Project[] projects) {
+            this.label = label;
+            this.firsts = firsts;
+            this.children = children;
+            this.projects = projects;
+        }
+
+        int find(char c) {
+            return Arrays.binarySearch(firsts, c);
+        }
+
+        Node withLabel(String label) {
+            return new Node(label, firsts, children, projects);
+        }
+
+        Node withProjects(Project[] projects) {
+            return new Node(label, firsts, children, projects);
+        }
+
+        Node withChildInserted(int at, Node child) {
+            return new Node(label, insert(firsts, at, child.label.charAt(0)), insert(children, at, child), projects);
+        }
+
+        Node withChildReplaced(int at, Node child) {
+            Node[] c = children.clone();
+            c[at] = child;
+            return new Node(label, firsts, c, projects);
+        }
+
+        Node withChildRemoved(int at) {
+            char[] f = new char[firsts.length - 1];
+            System.arraycopy(firsts, 0, f, 0, at);
+            System.arraycopy(firsts, at + 1, f, at, f.length - at);
+            Node[] c = new Node[children.length - 1];
+            System.arraycopy(children, 0, c, 0, at);
+            System.arraycopy(children, at + 1, c, at, c.length - at);
+            return new Node(label, f, c, projects);
+        }
+    }
+
+    private final Node root;
+
+    private ProjectNameIndex(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Folds a name so that two names are equal ignoring case exactly when their folded forms are equal.
+     *
+     * @param name The name
+     * @return The folded name
+     */
+    static String fold(String name) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Makes an index that also holds a project under its name.
+     *
+     * @param project The project to add
+     * @return The new index; this index is unchanged
+     */
+    ProjectNameIndex with(Project project) {
+        return new ProjectNameIndex(insert(root, fold(project.getProjectName()), 0, project));
+    }
+
+    /**
+     * Makes an index without a project.
+     *
+     * @param project The project to remove
+     * @return The new index, or this index if the project is not in it
+     */
+    ProjectNameIndex without(Project project) {
+        Node pruned = delete(root, fold(project.getProjectName()), 0, project);
+        return pruned == root ? this : new ProjectNameIndex(pruned);
+    }
+
+    /**
+     * Copies the path from a node down to where the key ends, adding the project there.
+     * The first {@code i} characters of the key lead to the node.
+     */
+    private static Node insert(Node node, String key, int i, Project project) {
+        if (i == key.length()) {
+            return node.withProjects(append(node.projects, project));
+        }
+        int at = node.find(key.charAt(i));
+        if (at < 0) {
+            return node.withChildInserted(-at - 1, new Node(key.substring(i), NO_FIRSTS, NO_CHILDREN, new Project[]{project}));
+        }
+        Node child = node.children[at];
+        int common = commonPrefix(child.label, key, i);
+        if (common < child.label.length()) {
+            // The key leaves the child's edge part way along it: split the edge there
+            Node rest = child.withLabel(child.label.substring(common));
+            child = new Node(child.label.substring(0, common), new char[]{rest.label.charAt(0)}, new Node[]{rest}, NONE);
+        }
+        return node.withChildReplaced(at, insert(child, key, i + common, project));
+    }
+
+    /**
+     * Copies the path from a node down to where the key ends, removing the project there and
+     * tidying up nodes that no longer end a name or branch. Returns the node itself if the
+     * project is not below it.
+     */
+    private static Node delete(Node node, String key, int i, Project project) {
+        if (i == key.length()) {
+            Project[] rest = omitting(node.projects, project);
+            return rest == node.projects ? node : node.withProjects(rest);
+        }
+        int at = node.find(key.charAt(i));
+        if (at < 0) {
+            return node;
+        }
+        Node child = node.children[at];
+        if (!key.startsWith(child.label, i)) {
+            return node;
+        }
+        Node pruned = delete(child, key, i + child.label.length(), project);
+        if (pruned == child) {
+            return node;
+        }
+        if (pruned.projects.length == 0 && pruned.children.length == 0) {
+            return node.withChildRemoved(at);
+        }
+        if (pruned.projects.length == 0 && pruned.children.length == 1) {
+            // Merge the child into its only child, so the edge again ends a name or branches
+            Node only = pruned.children[0];
+            return node.withChildReplaced(at, only.withLabel(pruned.label + only.label));
+        }
+        return node.withChildReplaced(at, pruned);
+    }
+
+    /**
+     * Finds the projects with a name, ignoring case.
+     *
+     * @param name The name to look up
+     * @return The projects with that name, in the order they were added; empty if none
+     */
+    List<Project> find(String name) {
+        String key = fold(name);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int at = node.find(key.charAt(i));
+            if (at < 0) {
+                return Collections.emptyList();
+            }
+            node = node.children[at];
+            if (!key.startsWith(node.label, i)) {
+                return Collections.emptyList();
+            }
+            i += node.label.length();
+        }
+        return node.projects.length == 0 ? Collections.emptyList()
+                : Collections.unmodifiableList(Arrays.asList(node.projects));
+    }
+
+    /**
+     * Finds projects whose names start with a prefix, ignoring case, in alphabetical order of their folded names.
+     *
+     * @param prefix The typed start of a name
+     * @param limit  The most projects to return
+     * @return Up to {@code limit} matching projects
+     */
+    List<Project> complete(String prefix, int limit) {
+        String key = fold(prefix);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int at = node.find(key.charAt(i));
+            if (at < 0) {
+                return Collections.emptyList();
+            }
+            Node child = node.children[at];
+            int common = commonPrefix(child.label, key, i);
+            if (i + common == key.length()) {
+                // The prefix ends on or inside this edge: everything below the child matches
+                node = child;
+                break;
+            }
+            if (common < child.label.length()) {
+                return Collections.emptyList();
+            }
+            node = child;
+            i += common;
+        }
+        List<Project> found = new ArrayList<>(Math.min(limit, 16));
+        collect(node, limit, found);
+        return found;
+    }
+
+    private static void collect(Node node, int limit, List<Project> found) {
+        for (Project project : node.projects) {
+            if (found.size() == limit) {
+                return;
+            }
+            found.add(project);
+        }
+        for (Node child : node.children) {
+            if (found.size() == limit) {
+                return;
+            }
+            collect(child, limit, found);
+        }
+    }
+
+    /**
+     * Counts how many characters of an edge label match the key from a position.
+     */
+    private static int commonPrefix(String label, String key, int from) {
+        int n = Math.min(label.length(), key.length() - from);
+        int i = 0;
+        while (i < n && label.charAt(i) == key.charAt(from + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Project[] append(Project[] projects, Project project) {
+        Project[] grown = Arrays.copyOf(projects, projects.length + 1);
+        grown[projects.length] = project;
+        return grown;
+    }
+
+    /**
+     * Returns the array without the project, or the same array if the project is not in it.
+     */
+    private static Project[] omitting(Project[] projects, Project project) {
+        for (int i = 0; i < projects.length; i++) {
+            if (projects[i] == project) {
+                Project[] shrunk = new Project[projects.length - 1];
+                System.arraycopy(projects, 0, shrunk, 0, i);
+                System.arraycopy(projects, i + 1, shrunk, i, shrunk.length - i);
+                return shrunk;
+            }
+        }
+        return projects;
+    }
+
+    private static char[] insert(char[] array, int at, char value) {
+        char[] grown = new char[array.length + 1];
+        System.arraycopy(array, 0, grown, 0, at);
+        grown[at] = value;
+        System.arraycopy(array, at, grown, at + 1, array.length - at);
+        return grown;
+    }
+
+    private static Node[] insert(Node[] array, int at, Node value) {
+        Node[] grown = new Node[array.length + 1];
+        System.arraycopy(array, 0, grown, 0, at);
+        grown[at] = value;
+        System.arraycopy(array, at, grown, at + 1, array.length - at);
+        return grown;
+    }
+}
@@ -6,7 +6,7 @@ import java.util.Date;
  * Represents a receipt issued when an applicant successfully books a flat.
  * The receipt contains information about the applicant, the flat type, and the project.
  */
-public class Receipt {
+public class Receipt implements Renderable {
     /** The NRIC (National Registration Identity Card) number of the applicant */
     private String nric;
     
@@ -25,6 +25,9 @@ public class Receipt {
     /** The date when the receipt was issued */
     private Date issueDate;
 
+    /** The receipt number, derived from the application so it is the same every time the receipt is issued */
+    private String receiptNumber;
+
     /**
      * Constructs a new Receipt with the specified details.
      *
@@ -45,18 +48,102 @@ public class Receipt {
         this.issueDate = issueDate;
     }
 
+    /**
+     * Constructs a receipt for a booked application.
+     *
+     * @param application The booked application
+     * @param issueDate   The date when the receipt is issued
+     */
+    public Receipt(Application application, Date issueDate) {
+        this(application.getApplicant().getNric(), application.getApplicant().getAge(),
+                application.getApplicant().getMaritalStatus(), application.getFlatTypeChosen(),
+                application.getProject().getProjectName(), issueDate);
+        this.receiptNumber = numberFor(application);
+    }
+
+    /**
+     * Gets the receipt number for an application.
+     * The number depends only on the application ID, so reissuing a receipt gives the same number.
+     *
+     * @param application The application
+     * @return The receipt number
+     */
+    public static String numberFor(Application application) {
+        String digits = Integer.toString(application.getApplicationID());
+        StringBuilder sb = new StringBuilder("BTO-");
+        for (int i = digits.length(); i < 8; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+
+    /**
+     * Gets the receipt number.
+     *
+     * @return The receipt number, or null if the receipt was not issued for an application
+     */
+    public String getReceiptNumber() {
+        return receiptNumber;
+    }
+
+    /**
+     * Formats this receipt as text, one field per line.
+     *
+     * @return The receipt text, ending with a line separator
+     */
+    public String render() {
+        return render(String.valueOf(issueDate));
+    }
+
+    /**
+     * Formats this receipt as text using an already formatted issue date.
+     * Lets a batch of receipts issued together format the shared date only once.
+     *
+     * @param issueDateText The issue date as it should appear on the receipt
+     * @return The receipt text, ending with a line separator
+     */
+    String render(String issueDateText) {
+        StringBuilder sb = new StringBuilder(256);
+        renderTo(sb, issueDateText);
+        return sb.toString();
+    }
+
+    /**
+     * Appends this receipt, one field per line.
+     *
+     * @param out The buffer to append to
+     */
+    @Override
+    public void renderTo(StringBuilder out) {
+        renderTo(out, String.valueOf(issueDate));
+    }
+
+    /**
+     * Appends this receipt using an already formatted issue date.
+     *
+     * @param sb            The buffer to append to
+     * @param issueDateText The issue date as it should appear on the receipt
+     */
+    void renderTo(StringBuilder sb, String issueDateText) {
+        String nl = System.lineSeparator();
+        sb.append("----- Receipt -----").append(nl);
+        if (receiptNumber != null) {
+            sb.append("Receipt No: ").append(receiptNumber).append(nl);
+        }
+        sb.append("NRIC: ").append(nric).append(nl);
+        sb.append("Age: ").append(age).append(nl);
+        sb.append("Marital Status: ").append(maritalStatus).append(nl);
+        sb.append("Flat Type: ").append(flatType).append(nl);
+        sb.append("Project: ").append(projectName).append(nl);
+        sb.append("Issue Date: ").append(issueDateText).append(nl);
+        sb.append("-------------------").append(nl);
+    }
+
     /**
      * Displays the details of this receipt to the console.
-     * Includes the applicant's information, flat type, project, and issue date.
+     * Includes the receipt number, applicant's information, flat type, project, and issue date.
      */
     public void displayReceipt() {
-        System.out.println("----- Receipt -----");
-        System.out.println("NRIC: " + nric);
-        System.out.println("Age: " + age);
-        System.out.println("Marital Status: " + maritalStatus);
-        System.out.println("Flat Type: " + flatType);
-        System.out.println("Project: " + projectName);
-        System.out.println("Issue Date: " + issueDate);
-        System.out.println("-------------------");
+        System.out.print(render());
     }
 }
\ No newline at end of file
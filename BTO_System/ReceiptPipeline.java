@@ -0,0 +1,191 @@
+package BTO_System;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Issues receipts for every booked application of a project in one go.
+ *
+ * <p>The project's BOOKED applications are ordered by application ID and split into runs of
+ * {@link #RECEIPTS_PER_FILE}. Each run is rendered on a worker pool and written to its own
+ * numbered file through a buffered {@link FileChannel}, so the output rolls over to a new file
+ * every few thousand receipts and the files can be written in parallel. Receipt numbers come
+ * from {@link Receipt#numberFor(Application)}, so re-running the pipeline issues the same
+ * numbers in the same files.</p>
+ *
+ * <p>Files are named {@code receipts-<catalog ID>-<name>-<number>.txt}, with every run of
+ * characters other than letters and digits in the name replaced by an underscore. The catalog ID
+ * keeps apart projects whose names differ only in those characters. A run first deletes the files
+ * of the project's previous run, so a project with fewer bookings than before leaves no stale
+ * files behind.</p>
+ */
+class ReceiptPipeline {
+    /** Number of receipts written to each output file */
+    static final int RECEIPTS_PER_FILE = 5_000;
+
+    /** Size of the buffer each file is written through */
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Summary of a completed run.
+     */
+    static final class Result {
+        private final long receipts;
+        private final List<Path> files;
+        private final long elapsedNanos;
+
+        Result(long receipts, List<Path> files, long elapsedNanos) {
+            this.receipts = receipts;
+            this.files = files;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Gets the number of receipts issued.
+         *
+         * @return The number of receipts
+         */
+        public long getReceipts() {
+            return receipts;
+        }
+
+        /**
+         * Gets the files the receipts were written to, in order.
+         *
+         * @return List of output files
+         */
+        public List<Path> getFiles() {
+            return files;
+        }
+
+        /**
+         * Gets the pipeline throughput.
+         *
+         * @return Receipts issued per second
+         */
+        public double getReceiptsPerSecond() {
+            return elapsedNanos == 0 ? 0 : receipts * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d receipts in %d files in %.2fs (%.0f receipts/s)",
+                    receipts, files.size(), elapsedNanos / 1e9, getReceiptsPerSecond());
+        }
+    }
+
+    /**
+     * Writes a receipt for every booked application of a project.
+     * Progress is reported after each output file is finished.
+     *
+     * @param project   The project whose booked applications get receipts
+     * @param directory The directory to write the receipt files to; created if missing
+     * @param progress  Receives a progress line after each file, may be null
+     * @return A summary of the run
+     * @throws IOException if a file cannot be written
+     */
+    public static Result run(Project project, Path directory, Consumer<String> progress) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        List<Application> booked = project.getApplications(ApplicationStatus.BOOKED);
+        booked.sort(Comparator.comparingInt(Application::getApplicationID));
+        Date issueDate = new Date();
+        String prefix = "receipts-" + project.getCatalogId() + "-"
+                + project.getProjectName().replaceAll("[^A-Za-z0-9]+", "_") + "-";
+        deletePreviousRun(directory, prefix);
+
+        int fileCount = (booked.size() + RECEIPTS_PER_FILE - 1) / RECEIPTS_PER_FILE;
+        List<Path> files = new ArrayList<>(fileCount);
+        int workers = Math.max(1, Math.min(fileCount, Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        AtomicLong written = new AtomicLong();
+        List<Future<?>> pending = new ArrayList<>(fileCount);
+        try {
+            for (int f = 0; f < fileCount; f++) {
+                Path file = directory.resolve(String.format("%s%05d.txt", prefix, f + 1));
+                files.add(file);
+                List<Application> run = booked.subList(f * RECEIPTS_PER_FILE,
+                        Math.min(booked.size(), (f + 1) * RECEIPTS_PER_FILE));
+                pending.add(pool.submit(() -> {
+                    writeFile(file, run, issueDate);
+                    long done = written.addAndGet(run.size());
+                    if (progress != null) {
+                        double seconds = (System.nanoTime() - start) / 1e9;
+                        progress.accept(String.format("%d/%d receipts (%.0f/s)", done, booked.size(),
+                                seconds == 0 ? 0 : done / seconds));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : pending) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Receipt generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return new Result(written.get(), files, System.nanoTime() - start);
+    }
+
+    /**
+     * Deletes the numbered files written by an earlier run with the same file name prefix.
+     * The prefix holds only letters, digits, underscores and dashes, so it is safe in a glob.
+     */
+    private static void deletePreviousRun(Path directory, String prefix) throws IOException {
+        try (DirectoryStream<Path> previous = Files.newDirectoryStream(directory, prefix + "[0-9][0-9][0-9][0-9][0-9].txt")) {
+            for (Path file : previous) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Renders a run of receipts into one file.
+     */
+    private static void writeFile(Path file, List<Application> applications, Date issueDate) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            String issueDateText = String.valueOf(issueDate);
+            StringBuilder text = new StringBuilder(512);
+            CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+            for (Application application : applications) {
+                text.setLength(0);
+                new Receipt(application, issueDate).renderTo(text, issueDateText);
+                CharBuffer chars = CharBuffer.wrap(text);
+                encoder.reset();
+                while (encoder.encode(chars, buffer, true).isOverflow()) {
+                    drain(channel, buffer);
+                }
+                while (encoder.flush(buffer).isOverflow()) {
+                    drain(channel, buffer);
+                }
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
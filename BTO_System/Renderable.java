@@ -0,0 +1,17 @@
+package BTO_System;
+
+/**
+ * Something that can write a text view of itself for display.
+ *
+ * <p>Views are appended to a caller-supplied {@link StringBuilder} instead of being printed, so a
+ * session can render many items into one reusable buffer and send them to its client in a single
+ * write, rather than making one synchronised console call per line.</p>
+ */
+interface Renderable {
+    /**
+     * Appends this item's text view, ending with a line separator, to a buffer.
+     *
+     * @param out The buffer to append to
+     */
+    void renderTo(StringBuilder out);
+}
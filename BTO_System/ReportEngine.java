@@ -0,0 +1,436 @@
+package BTO_System;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Builds application reports across any number of projects and exports them as CSV or JSON.
+ *
+ * <p>Each application is reduced to an int code holding its project, flat type, marital status,
+ * age band and status, and counted into a flat array of counters by that code. Counting keeps no
+ * per-application state at all. {@link #count} reads the projects in parallel, each under its own
+ * lock, with every worker counting into its own array and the arrays added up at the end; each
+ * project's figures come from one instant while sessions keep approving and withdrawing in every
+ * project but the ones being read. {@link #countConsistent} instead holds every selected project's
+ * lock for one short pass, so that totals also agree across projects.</p>
+ *
+ * <p>Exports are streamed. One project's applications are copied out under its lock, the lock is
+ * released, and their rows are appended to one reused buffer that is written out in 64 KB
+ * chunks. Writing a million applications needs only as much working memory as the largest
+ * project, and no file is written while a lock is held.</p>
+ */
+class ReportEngine {
+    /** Output file formats */
+    enum Format {
+        CSV, JSON
+    }
+
+    /** Size of the buffer exports are written through */
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static final FlatType[] FLAT_TYPES = FlatType.values();
+    private static final MaritalStatus[] MARITAL_STATUSES = MaritalStatus.values();
+    private static final ApplicationStatus[] STATUSES = ApplicationStatus.values();
+
+    /** Number of distinct (flat type, marital status, age band, status) combinations within one project */
+    private static final int GROUPS_PER_PROJECT =
+            FLAT_TYPES.length * MARITAL_STATUSES.length * Eligibility.AGE_BANDS * STATUSES.length;
+
+    /**
+     * The counts of a report over a set of projects.
+     */
+    static final class Report {
+        private final List<Project> projects;
+        private final long[] counts;
+        private final int size;
+        private final Date generated;
+
+        private Report(List<Project> projects, long[] counts, int size, Date generated) {
+            this.projects = projects;
+            this.counts = counts;
+            this.size = size;
+            this.generated = generated;
+        }
+
+        /**
+         * Gets the number of applications in the report.
+         *
+         * @return The number of applications
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Gets the projects the report covers.
+         *
+         * @return The projects, in catalog order
+         */
+        public List<Project> getProjects() {
+            return projects;
+        }
+
+        /**
+         * Counts the applications in the report with a given status.
+         *
+         * @param status The status
+         * @return The number of applications with that status
+         */
+        public long count(ApplicationStatus status) {
+            long total = 0;
+            for (int code = status.ordinal(); code < counts.length; code += STATUSES.length) {
+                total += counts[code];
+            }
+            return total;
+        }
+
+        /**
+         * Writes the counts for every non-empty (project, flat type, marital status, age band, status) group.
+         *
+         * @param file   The file to write
+         * @param format The file format
+         * @throws IOException if the file cannot be written
+         */
+        public void writeSummary(Path file, Format format) throws IOException {
+            try (Output out = new Output(file)) {
+                boolean json = format == Format.JSON;
+                StringBuilder row = out.row();
+                if (json) {
+                    row.append("{\"generated\":");
+                    jsonString(row, String.valueOf(generated));
+                    row.append(",\"applications\":").append(size).append(",\"groups\":[");
+                } else {
+                    row.append("project,flat_type,marital_status,age_band,status,applications\n");
+                }
+                boolean first = true;
+                for (int code = 0; code < counts.length; code++) {
+                    if (counts[code] == 0) {
+                        continue;
+                    }
+                    int rest = code;
+                    ApplicationStatus status = STATUSES[rest % STATUSES.length];
+                    rest /= STATUSES.length;
+                    String band = Eligibility.ageBandLabel(rest % Eligibility.AGE_BANDS);
+                    rest /= Eligibility.AGE_BANDS;
+                    MaritalStatus marital = MARITAL_STATUSES[rest % MARITAL_STATUSES.length];
+                    rest /= MARITAL_STATUSES.length;
+                    FlatType flatType = FLAT_TYPES[rest % FLAT_TYPES.length];
+                    String project = projects.get(rest / FLAT_TYPES.length).getProjectName();
+                    if (json) {
+                        row.append(first ? "\n{\"project\":" : ",\n{\"project\":");
+                        jsonString(row, project);
+                        row.append(",\"flatType\":\"").append(flatType).append("\",\"maritalStatus\":\"").append(marital)
+                                .append("\",\"ageBand\":\"").append(band).append("\",\"status\":\"").append(status)
+                                .append("\",\"applications\":").append(counts[code]).append('}');
+                    } else {
+                        csvField(row, project);
+                        row.append(',').append(flatType).append(',').append(marital).append(',').append(band)
+                                .append(',').append(status).append(',').append(counts[code]).append('\n');
+                    }
+                    first = false;
+                    out.endRow();
+                }
+                if (json) {
+                    row.append("\n]}\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the current applications of a set of projects, reading the projects in parallel.
+     * Each project is counted at one instant under its own lock, but different projects may be
+     * counted at different instants.
+     * Applications superseded by a newer application from the same applicant are left out.
+     *
+     * @param projects      The projects to report on
+     * @param flatType      Only include applications for this flat type, or null for all
+     * @param maritalStatus Only include applicants with this marital status, or null for all
+     * @return The report
+     */
+    public static Report count(Collection<Project> projects, FlatType flatType, MaritalStatus maritalStatus) {
+        List<Project> ordered = inCatalogOrder(projects);
+        Date generated = new Date();
+        // One run of projects per worker, the caller included, so that only that many counter arrays are made
+        int runs = Math.max(1, Math.min(ordered.size(), ForkJoinPool.getCommonPoolParallelism() + 1));
+        Batch counted = IntStream.range(0, runs).parallel().collect(
+                () -> new Batch(ordered.size(), flatType, maritalStatus, false),
+                (batch, run) -> {
+                    for (int p = run * ordered.size() / runs; p < (run + 1) * ordered.size() / runs; p++) {
+                        batch.project = p;
+                        ordered.get(p).forEachApplication(batch);
+                    }
+                },
+                Batch::add);
+        return new Report(Collections.unmodifiableList(ordered), counted.counts, counted.total, generated);
+    }
+
+    /**
+     * Counts the current applications of a set of projects at one instant across all of them.
+     * Every selected project is locked, in catalog order so that concurrent reports cannot
+     * deadlock, for as long as it takes to count them, which stalls changes to all of them
+     * meanwhile; {@link #count} is the one to use when per-project figures are enough.
+     * Applications superseded by a newer application from the same applicant are left out.
+     *
+     * @param projects      The projects to report on
+     * @param flatType      Only include applications for this flat type, or null for all
+     * @param maritalStatus Only include applicants with this marital status, or null for all
+     * @return The report
+     */
+    public static Report countConsistent(Collection<Project> projects, FlatType flatType, MaritalStatus maritalStatus) {
+        List<Project> ordered = inCatalogOrder(projects);
+        Batch batch = new Batch(ordered.size(), flatType, maritalStatus, false);
+        lockAndCount(ordered, 0, batch);
+        return new Report(Collections.unmodifiableList(ordered), batch.counts, batch.total, new Date());
+    }
+
+    /**
+     * Holds the lock of every project from {@code index} onwards, then counts all of them.
+     */
+    private static void lockAndCount(List<Project> projects, int index, Batch batch) {
+        if (index == projects.size()) {
+            for (int p = 0; p < projects.size(); p++) {
+                batch.project = p;
+                projects.get(p).forEachApplication(batch);
+            }
+            return;
+        }
+        synchronized (projects.get(index)) {
+            lockAndCount(projects, index + 1, batch);
+        }
+    }
+
+    /**
+     * Writes one row per current application of a set of projects, counting them as they are written.
+     * Applications superseded by a newer application from the same applicant are left out.
+     *
+     * @param projects      The projects to report on
+     * @param flatType      Only include applications for this flat type, or null for all
+     * @param maritalStatus Only include applicants with this marital status, or null for all
+     * @param file          The file to write
+     * @param format        The file format
+     * @return The report of the applications written, whose summary agrees with the file
+     * @throws IOException if the file cannot be written
+     */
+    public static Report writeApplications(Collection<Project> projects, FlatType flatType, MaritalStatus maritalStatus,
+                                           Path file, Format format) throws IOException {
+        try (Output out = new Output(file)) {
+            return scan(projects, flatType, maritalStatus, out, format);
+        }
+    }
+
+    /**
+     * Checks whether a report with the given filters includes an application.
+     * Applications superseded by a newer application from the same applicant are never included.
+     *
+     * @param app           The application
+     * @param flatType      Only include applications for this flat type, or null for all
+     * @param maritalStatus Only include applicants with this marital status, or null for all
+     * @return true if the application belongs in the report
+     */
+    static boolean includes(Application app, FlatType flatType, MaritalStatus maritalStatus) {
+        Applicant applicant = app.getApplicant();
+        return applicant.getApplication() == app
+                && (flatType == null || app.getFlatTypeChosen() == flatType)
+                && (maritalStatus == null || applicant.getMaritalStatus() == maritalStatus);
+    }
+
+    private static List<Project> inCatalogOrder(Collection<Project> projects) {
+        List<Project> ordered = new ArrayList<>(projects);
+        ordered.sort(Comparator.comparingInt(Project::getCatalogId)
+                .thenComparing(Project::getProjectName));
+        return ordered;
+    }
+
+    /**
+     * Reads each project in turn under its own lock, counting its applications and writing
+     * their rows once the lock is released.
+     */
+    private static Report scan(Collection<Project> projects, FlatType flatType, MaritalStatus maritalStatus,
+                               Output out, Format format) throws IOException {
+        List<Project> ordered = inCatalogOrder(projects);
+        Date generated = new Date();
+        Batch batch = new Batch(ordered.size(), flatType, maritalStatus, true);
+        boolean json = format == Format.JSON;
+        out.row().append(json ? "[" : "application_id,nric,age,marital_status,flat_type,status,project\n");
+        int written = 0;
+        for (int p = 0; p < ordered.size(); p++) {
+            batch.project = p;
+            batch.size = 0;
+            ordered.get(p).forEachApplication(batch);
+            String project = ordered.get(p).getProjectName();
+            for (int i = 0; i < batch.size; i++) {
+                writeRow(out.row(), batch.applications[i], batch.codes[i], project, json, written++ == 0);
+                batch.applications[i] = null;
+                out.endRow();
+            }
+        }
+        if (json) {
+            out.row().append("\n]\n");
+        }
+        return new Report(Collections.unmodifiableList(ordered), batch.counts, batch.total, generated);
+    }
+
+    private static void writeRow(StringBuilder row, Application app, int code, String project, boolean json, boolean first) {
+        Applicant applicant = app.getApplicant();
+        ApplicationStatus status = STATUSES[code % STATUSES.length];
+        code /= STATUSES.length * Eligibility.AGE_BANDS;
+        MaritalStatus marital = MARITAL_STATUSES[code % MARITAL_STATUSES.length];
+        code /= MARITAL_STATUSES.length;
+        FlatType flatType = FLAT_TYPES[code % FLAT_TYPES.length];
+        if (json) {
+            row.append(first ? "\n{\"applicationId\":" : ",\n{\"applicationId\":")
+                    .append(app.getApplicationID()).append(",\"nric\":");
+            jsonString(row, applicant.getNric());
+            row.append(",\"age\":").append(applicant.getAge()).append(",\"maritalStatus\":\"").append(marital)
+                    .append("\",\"flatType\":\"").append(flatType).append("\",\"status\":\"").append(status)
+                    .append("\",\"project\":");
+            jsonString(row, project);
+            row.append('}');
+        } else {
+            row.append(app.getApplicationID()).append(',');
+            csvField(row, applicant.getNric());
+            row.append(',').append(applicant.getAge()).append(',').append(marital).append(',')
+                    .append(flatType).append(',').append(status).append(',');
+            csvField(row, project);
+            row.append('\n');
+        }
+    }
+
+    /**
+     * Counts the applications of the project being read and, when rows are wanted, holds that
+     * project's applications and codes until they are written. The row arrays are reused from
+     * project to project, so they only ever grow to the size of the largest project. A parallel
+     * count gives each worker its own batch and adds the batches together at the end.
+     */
+    private static final class Batch implements Consumer<Application> {
+        private final FlatType flatType;
+        private final MaritalStatus maritalStatus;
+        private final boolean keepRows;
+        private final long[] counts;
+        private Application[] applications = new Application[16];
+        private int[] codes = new int[16];
+        private int size;
+        private int total;
+        private int project;
+
+        Batch(int projects, FlatType flatType, MaritalStatus maritalStatus, boolean keepRows) {
+            this.flatType = flatType;
+            this.maritalStatus = maritalStatus;
+            this.keepRows = keepRows;
+            this.counts = new long[projects * GROUPS_PER_PROJECT];
+        }
+
+        @Override
+        public void accept(Application app) {
+            if (!includes(app, flatType, maritalStatus)) {
+                return;
+            }
+            Applicant applicant = app.getApplicant();
+            int code = project;
+            code = code * FLAT_TYPES.length + app.getFlatTypeChosen().ordinal();
+            code = code * MARITAL_STATUSES.length + applicant.getMaritalStatus().ordinal();
+            code = code * Eligibility.AGE_BANDS + Eligibility.ageBand(applicant.getAge());
+            code = code * STATUSES.length + app.getStatus().ordinal();
+            counts[code]++;
+            total++;
+            if (!keepRows) {
+                return;
+            }
+            if (size == codes.length) {
+                applications = Arrays.copyOf(applications, size * 2);
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            applications[size] = app;
+            codes[size++] = code;
+        }
+
+        /**
+         * Adds another batch's counts to this one's.
+         */
+        void add(Batch other) {
+            for (int code = 0; code < counts.length; code++) {
+                counts[code] += other.counts[code];
+            }
+            total += other.total;
+        }
+    }
+
+    /**
+     * Export output: rows are appended to one reused buffer, which is handed to the file in large chunks.
+     */
+    private static final class Output implements Closeable {
+        private final Writer out;
+        private final StringBuilder buffer = new StringBuilder(WRITE_BUFFER_SIZE + 1024);
+        private final char[] chunk = new char[WRITE_BUFFER_SIZE + 1024];
+
+        Output(Path file) throws IOException {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            out = new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8);
+        }
+
+        StringBuilder row() {
+            return buffer;
+        }
+
+        /**
+         * Passes the buffered rows to the file once enough have built up.
+         */
+        void endRow() throws IOException {
+            if (buffer.length() >= WRITE_BUFFER_SIZE) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            int length = buffer.length();
+            char[] target = length <= chunk.length ? chunk : new char[length];
+            buffer.getChars(0, length, target, 0);
+            out.write(target, 0, length);
+            buffer.setLength(0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private static void csvField(StringBuilder out, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            out.append(value);
+        } else {
+            out.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
+
+    private static void jsonString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
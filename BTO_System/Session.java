@@ -0,0 +1,163 @@
+package BTO_System;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+/**
+ * Represents one interactive user session, such as the local console or a remote socket client.
+ * Menus read input and write prompts through the session instead of the global System.in/System.out,
+ * so that several sessions can run at the same time on different threads.
+ *
+ * <p>Output is buffered and sent to the client when the session next waits for input, so a menu
+ * that lists many items costs one write to the client rather than one per line. Items are shown
+ * with {@link #write(Renderable)}, which renders into a text buffer and a byte buffer owned by the
+ * session and reused for every item, instead of building and encoding a new string each time.</p>
+ */
+class Session implements Closeable {
+    /** Reader for the session's input */
+    private final Scanner in;
+
+    /** Writer for the session's output */
+    private final PrintStream out;
+
+    /** Underlying resource to close when the session ends, or null for the console */
+    private final Closeable resource;
+
+    /** Reusable text buffer items are rendered into */
+    private final StringBuilder renderBuffer = new StringBuilder(1024);
+
+    /** Reusable buffer the rendered text is encoded into */
+    private final ByteBuffer encodeBuffer = ByteBuffer.allocate(4096);
+
+    /** Encoder for rendered text, reset before each item */
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /** Token of the logged-in user, or null before login */
+    private volatile SessionTokens.Token token;
+
+    /**
+     * Constructs a new Session over the given input and output streams.
+     * Output that is not already a {@link PrintStream} is buffered until the session reads input or closes.
+     *
+     * @param in The stream user input is read from
+     * @param out The stream prompts and results are written to
+     * @param resource The resource to close when the session ends, or null if nothing should be closed
+     */
+    public Session(InputStream in, OutputStream out, Closeable resource) {
+        this.in = new Scanner(in, StandardCharsets.UTF_8);
+        this.out = out instanceof PrintStream ? (PrintStream) out
+                : new PrintStream(new BufferedOutputStream(out, 8192), false, StandardCharsets.UTF_8);
+        this.resource = resource;
+    }
+
+    /**
+     * Reads the next line of user input.
+     *
+     * @return The line, without its line terminator
+     * @throws NoSuchElementException if the client has disconnected
+     */
+    public String nextLine() {
+        out.flush();
+        String line = in.nextLine();
+        SessionTokens.Token current = token;
+        if (current != null) {
+            SessionTokens.SHARED.touch(current);
+        }
+        return line;
+    }
+
+    /**
+     * Gets the token of the user logged in to this session.
+     *
+     * @return The token, or null if nobody is logged in
+     */
+    public SessionTokens.Token getToken() {
+        return token;
+    }
+
+    /**
+     * Sets the token of the user logged in to this session. Each line of input then keeps the token from expiring.
+     *
+     * @param token The token, or null at logout
+     */
+    public void setToken(SessionTokens.Token token) {
+        this.token = token;
+    }
+
+    /**
+     * Writes text to the session without a line terminator.
+     *
+     * @param text The text to write
+     */
+    public void print(String text) {
+        out.print(text);
+    }
+
+    /**
+     * Writes a line of text to the session.
+     *
+     * @param text The text to write
+     */
+    public void println(String text) {
+        out.println(text);
+    }
+
+    /**
+     * Writes an item's text view to the session, such as a project listing or a receipt.
+     *
+     * @param item The item to show
+     */
+    public void write(Renderable item) {
+        renderBuffer.setLength(0);
+        item.renderTo(renderBuffer);
+        CharBuffer chars = CharBuffer.wrap(renderBuffer);
+        encoder.reset();
+        while (encoder.encode(chars, encodeBuffer, true).isOverflow()) {
+            drainEncoded();
+        }
+        while (encoder.flush(encodeBuffer).isOverflow()) {
+            drainEncoded();
+        }
+        drainEncoded();
+    }
+
+    /**
+     * Writes the encoded bytes to the session output and empties the encode buffer.
+     */
+    private void drainEncoded() {
+        out.write(encodeBuffer.array(), 0, encodeBuffer.position());
+        encodeBuffer.clear();
+    }
+
+    /**
+     * Gets the output stream of this session.
+     *
+     * @return The session's output stream
+     */
+    public PrintStream getOut() {
+        return out;
+    }
+
+    /**
+     * Ends the session and releases its underlying resource.
+     */
+    @Override
+    public void close() {
+        out.flush();
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (IOException e) {
+                // the client is already gone
+            }
+        }
+    }
+}
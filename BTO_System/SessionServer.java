@@ -0,0 +1,67 @@
+package BTO_System;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Accepts client connections over TCP and serves each one as an independent Session.
+ * Each connection gets its own thread, so many users can be logged in at once
+ * while sharing the same users, projects and enquiries.
+ */
+class SessionServer {
+    /** The port the server listens on */
+    private final int port;
+
+    /** The handler that drives a session from login to disconnect */
+    private final Consumer<Session> handler;
+
+    /** Thread pool running one thread per connected session */
+    private final ExecutorService sessions = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "bto-session");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Constructs a new SessionServer.
+     *
+     * @param port The TCP port to listen on
+     * @param handler The handler to run for every connected session
+     */
+    public SessionServer(int port, Consumer<Session> handler) {
+        this.port = port;
+        this.handler = handler;
+    }
+
+    /**
+     * Listens for connections until the process exits, starting a session for each client.
+     *
+     * @throws IOException if the server socket cannot be opened
+     */
+    public void serve() throws IOException {
+        try (ServerSocket server = new ServerSocket(port)) {
+            System.err.println("BTO server listening on port " + port);
+            while (true) {
+                Socket socket = server.accept();
+                sessions.execute(() -> run(socket));
+            }
+        }
+    }
+
+    /**
+     * Runs a single client session and cleans up when the client disconnects.
+     *
+     * @param socket The connected client socket
+     */
+    private void run(Socket socket) {
+        try (Session session = new Session(socket.getInputStream(), socket.getOutputStream(), socket)) {
+            handler.accept(session);
+        } catch (IOException e) {
+            System.err.println("Session error: " + e.getMessage());
+        }
+    }
+}
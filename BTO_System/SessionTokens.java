@@ -0,0 +1,260 @@
+package BTO_System;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Opaque tokens that let a client resume a logged-in session without its password being checked again.
+ *
+ * <p>A token is issued after a successful login and names the user it was issued to. A client that
+ * disconnects can give the token at the NRIC prompt and carry on where it was, skipping the costly
+ * password check. A token stops working when it has not been used for the idle timeout, when it is
+ * revoked at logout, or as soon as the user's password changes.</p>
+ *
+ * <p>Tokens are held in a fixed number of segments, each a small least-recently-used map with its own
+ * lock, so sessions resuming at the same time rarely wait for each other. When a segment is full its
+ * least recently used token is dropped. The capacity and idle timeout are set with the
+ * {@code bto.sessionTokens} and {@code bto.sessionIdleMinutes} system properties.</p>
+ */
+final class SessionTokens {
+    /** The tokens shared by all sessions */
+    static final SessionTokens SHARED = new SessionTokens(Integer.getInteger("bto.sessionTokens", 100_000),
+            Long.getLong("bto.sessionIdleMinutes", 30) * 60_000_000_000L);
+
+    /** Number of independently locked segments; a power of two */
+    private static final int SEGMENTS = 16;
+
+    /** Random bytes per token */
+    private static final int TOKEN_BYTES = 32;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * A session's token and the state needed to resume it.
+     */
+    static final class Token {
+        private final String value;
+        private final User user;
+        /** The user's credential epoch when the token was issued; a password change moves it on */
+        private final int credentialEpoch;
+        private volatile long lastUsedNanos;
+        private volatile boolean applicantView;
+
+        private Token(String value, User user) {
+            this.value = value;
+            this.user = user;
+            this.credentialEpoch = user.getCredentialEpoch();
+            this.lastUsedNanos = System.nanoTime();
+        }
+
+        /**
+         * Gets the text the client gives to resume.
+         *
+         * @return The token text
+         */
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * Gets the user the token was issued to.
+         *
+         * @return The user
+         */
+        public User getUser() {
+            return user;
+        }
+
+        /**
+         * Checks whether an officer was using the applicant features when the session was last seen.
+         *
+         * @return true if the session should resume in the applicant menu
+         */
+        public boolean isApplicantView() {
+            return applicantView;
+        }
+
+        /**
+         * Records whether an officer is using the applicant features, so a resumed session goes back there.
+         *
+         * @param applicantView true while the applicant menu is open
+         */
+        public void setApplicantView(boolean applicantView) {
+            this.applicantView = applicantView;
+        }
+
+        private boolean isValid(long now, long idleNanos) {
+            return now - lastUsedNanos < idleNanos && user.getCredentialEpoch() == credentialEpoch;
+        }
+    }
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long idleNanos;
+
+    /**
+     * Creates an empty token cache.
+     *
+     * @param capacity  Maximum number of tokens kept
+     * @param idleNanos How long a token may go unused before it expires
+     */
+    SessionTokens(int capacity, long idleNanos) {
+        this.idleNanos = idleNanos;
+        int perSegment = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Issues a new token for a user who has just logged in.
+     *
+     * @param user The authenticated user
+     * @return The new token
+     */
+    public Token issue(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        Token token = new Token(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes), user);
+        Segment segment = segmentFor(token.value);
+        synchronized (segment) {
+            segment.put(token.value, token);
+        }
+        return token;
+    }
+
+    /**
+     * Resumes a session from its token, marking the token as just used.
+     *
+     * @param value The token text given by the client
+     * @return The token, or null if it is unknown, expired or was invalidated by a password change
+     */
+    public Token resume(String value) {
+        Segment segment = segmentFor(value);
+        long now = System.nanoTime();
+        synchronized (segment) {
+            Token token = segment.get(value);
+            if (token == null) {
+                return null;
+            }
+            if (!token.isValid(now, idleNanos)) {
+                segment.remove(value);
+                return null;
+            }
+            token.lastUsedNanos = now;
+            return token;
+        }
+    }
+
+    /**
+     * Marks a token as still in use, so an active session neither expires nor is the first to be dropped.
+     *
+     * @param token The session's token
+     */
+    public void touch(Token token) {
+        Segment segment = segmentFor(token.value);
+        synchronized (segment) {
+            token.lastUsedNanos = System.nanoTime();
+            segment.get(token.value);
+        }
+    }
+
+    /**
+     * Revokes a token, for example at logout.
+     *
+     * @param token The token to revoke; null is ignored
+     */
+    public void revoke(Token token) {
+        if (token == null) {
+            return;
+        }
+        Segment segment = segmentFor(token.value);
+        synchronized (segment) {
+            segment.remove(token.value);
+        }
+    }
+
+    /**
+     * Drops every expired or invalidated token. Such tokens are also dropped when they are next
+     * used or pushed out by newer ones; this reclaims their memory sooner.
+     *
+     * @return The number of tokens dropped
+     */
+    public int purge() {
+        int dropped = 0;
+        long now = System.nanoTime();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                for (Iterator<Token> it = segment.iterator(); it.hasNext(); ) {
+                    if (!it.next().isValid(now, idleNanos)) {
+                        it.remove();
+                        dropped++;
+                    }
+                }
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Gets the number of tokens held, including any that have expired but not yet been dropped.
+     *
+     * @return The number of tokens
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentFor(String value) {
+        int h = value.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * One lock's worth of tokens, in least recently used order. Callers hold the segment's lock.
+     */
+    private static final class Segment {
+        private final int capacity;
+        /** Tokens by value in access order, so the first entry is the least recently used */
+        private final LinkedHashMap<String, Token> tokens = new LinkedHashMap<>(16, 0.75f, true);
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        Token get(String value) {
+            return tokens.get(value);
+        }
+
+        /**
+         * Adds a token, dropping the least recently used one if the segment is then over capacity.
+         */
+        void put(String value, Token token) {
+            tokens.put(value, token);
+            if (tokens.size() > capacity) {
+                Iterator<String> eldest = tokens.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        void remove(String value) {
+            tokens.remove(value);
+        }
+
+        int size() {
+            return tokens.size();
+        }
+
+        Iterator<Token> iterator() {
+            return tokens.values().iterator();
+        }
+    }
+}
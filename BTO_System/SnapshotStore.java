@@ -0,0 +1,470 @@
+package BTO_System;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Saves and loads a full snapshot of the system's users, projects, applications and enquiries.
+ *
+ * <p>The snapshot is a compact columnar binary file: each kind of object is written as a
+ * set of parallel arrays (all ages, then all marital statuses, and so on), and references
+ * between objects such as an application's project or an enquiry's submitter are stored as
+ * integer positions into those arrays. Loading maps the file into memory with a
+ * {@link MappedByteBuffer} and rebuilds the objects in a single pass, which is much cheaper
+ * than replaying the write-ahead log from the beginning.</p>
+ *
+ * <p>The snapshot records the write-ahead log segment it was taken at, so that on startup
+ * only the segments written after it need to be replayed.</p>
+ */
+class SnapshotStore {
+    /** Marker at the start of every snapshot file */
+    private static final int MAGIC = 0x42544F53; // "BTOS"
+
+    /** Format version, bumped whenever the layout changes */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte ROLE_APPLICANT = 0;
+    private static final byte ROLE_OFFICER = 1;
+    private static final byte ROLE_MANAGER = 2;
+
+    /**
+     * Writes a snapshot of the given state, replacing any existing snapshot atomically.
+     *
+     * @param file The snapshot file
+     * @param walSegment The first write-ahead log segment not covered by this snapshot
+     * @param users The users to save
+     * @param projects The projects to save, along with their applications and enquiries
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void write(Path file, int walSegment, UserRegistry users, List<Project> projects) throws IOException {
+        List<User> userList = users.getUsers();
+        List<Project> projectList = new ArrayList<>(projects);
+        Map<User, Integer> userIndex = new IdentityHashMap<>();
+        for (int i = 0; i < userList.size(); i++) {
+            userIndex.put(userList.get(i), i);
+        }
+        Map<Project, Integer> projectIndex = new IdentityHashMap<>();
+        for (int i = 0; i < projectList.size(); i++) {
+            projectIndex.put(projectList.get(i), i);
+        }
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(walSegment);
+            out.writeInt(Application.peekNextID());
+            out.writeInt(Enquiry.peekNextID());
+
+            writeUsers(out, userList);
+            writeProjects(out, projectList, userIndex);
+            writeApplications(out, projectList, userIndex, projectIndex);
+            writeEnquiries(out, projectList, userIndex, projectIndex);
+
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a snapshot into an empty user registry and project list.
+     *
+     * @param file The snapshot file
+     * @param users The registry to add the saved users to
+     * @param projects The list to add the saved projects to
+     * @return The first write-ahead log segment that still needs to be replayed
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static int load(Path file, UserRegistry users, List<Project> projects) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+                throw new IOException("Not a BTO snapshot: " + file);
+            }
+            int walSegment = in.getInt();
+            int nextApplicationID = in.getInt();
+            int nextEnquiryID = in.getInt();
+
+            User[] userArray = readUsers(in, users);
+            Project[] projectArray = readProjects(in, userArray);
+            projects.addAll(Arrays.asList(projectArray));
+            readManagerActiveProjects(in, userArray, projectArray);
+            readApplications(in, userArray, projectArray);
+            readEnquiries(in, userArray, projectArray);
+
+            Application.ensureNextID(nextApplicationID);
+            Enquiry.ensureNextID(nextEnquiryID);
+            return walSegment;
+        }
+    }
+
+    private static void writeUsers(DataOutputStream out, List<User> users) throws IOException {
+        int n = users.size();
+        out.writeInt(n);
+        for (User u : users) {
+            out.writeByte(u instanceof HDBManager ? ROLE_MANAGER : u instanceof HDBOfficer ? ROLE_OFFICER : ROLE_APPLICANT);
+        }
+        for (User u : users) {
+            out.writeInt(u.getAge());
+        }
+        for (User u : users) {
+            out.writeByte(u.getMaritalStatus().ordinal());
+        }
+        String[] nrics = new String[n];
+        String[] passwords = new String[n];
+        for (int i = 0; i < n; i++) {
+            nrics[i] = users.get(i).getNric();
+        }
+        // Passwords still in plain text, of new accounts or from older files, are hashed before they reach the file
+        IntStream.range(0, n).parallel().forEach(i -> passwords[i] = users.get(i).sealPassword());
+        writeStrings(out, nrics);
+        writeStrings(out, passwords);
+    }
+
+    private static User[] readUsers(MappedByteBuffer in, UserRegistry users) {
+        int n = in.getInt();
+        byte[] roles = new byte[n];
+        in.get(roles);
+        int[] ages = readInts(in, n);
+        byte[] marital = new byte[n];
+        in.get(marital);
+        String[] nrics = readStrings(in, n);
+        String[] passwords = readStrings(in, n);
+
+        MaritalStatus[] statuses = MaritalStatus.values();
+        User[] result = new User[n];
+        for (int i = 0; i < n; i++) {
+            MaritalStatus status = statuses[marital[i]];
+            if (roles[i] == ROLE_MANAGER) {
+                result[i] = new HDBManager(nrics[i], "", ages[i], status);
+            } else if (roles[i] == ROLE_OFFICER) {
+                result[i] = new HDBOfficer(nrics[i], "", ages[i], status);
+            } else {
+                result[i] = new Applicant(nrics[i], "", ages[i], status);
+            }
+            // Snapshots from before passwords were hashed hold plain text, which is hashed before the next snapshot
+            result[i].restorePassword(passwords[i]);
+            users.add(result[i]);
+        }
+        return result;
+    }
+
+    private static void writeProjects(DataOutputStream out, List<Project> projects, Map<User, Integer> userIndex)
+            throws IOException {
+        int n = projects.size();
+        out.writeInt(n);
+        String[] names = new String[n];
+        String[] neighborhoods = new String[n];
+        for (int i = 0; i < n; i++) {
+            names[i] = projects.get(i).getProjectName();
+            neighborhoods[i] = projects.get(i).getNeighborhood();
+        }
+        writeStrings(out, names);
+        writeStrings(out, neighborhoods);
+        for (Project p : projects) {
+            out.writeLong(p.getOpeningDate().getTime());
+        }
+        for (Project p : projects) {
+            out.writeLong(p.getClosingDate().getTime());
+        }
+        for (Project p : projects) {
+            out.writeBoolean(p.isVisible());
+        }
+        for (Project p : projects) {
+            out.writeInt(p.getManagerInCharge() == null ? -1 : userIndex.getOrDefault(p.getManagerInCharge(), -1));
+        }
+        for (Project p : projects) {
+            int mask = 0;
+            for (FlatType type : p.getFlatTypes()) {
+                mask |= 1 << type.ordinal();
+            }
+            out.writeInt(mask);
+        }
+        for (FlatType type : FlatType.values()) {
+            for (Project p : projects) {
+                out.writeLong(p.getUnitsState(type));
+            }
+        }
+
+        writeMembership(out, projects, userIndex, Project::getOfficersList);
+        writeMembership(out, projects, userIndex, Project::getPendingOfficerRequests);
+        writeMembership(out, projects, userIndex, Project::getApplicantsList);
+
+        List<int[]> registrations = new ArrayList<>();
+        Map<Project, Integer> projectIndex = new IdentityHashMap<>();
+        for (int i = 0; i < n; i++) {
+            projectIndex.put(projects.get(i), i);
+        }
+        for (Map.Entry<User, Integer> entry : userIndex.entrySet()) {
+            if (entry.getKey() instanceof HDBOfficer) {
+                for (Project p : ((HDBOfficer) entry.getKey()).getRegisteredProjects()) {
+                    Integer pi = projectIndex.get(p);
+                    if (pi != null) {
+                        registrations.add(new int[] {pi, entry.getValue()});
+                    }
+                }
+            }
+        }
+        writePairs(out, registrations);
+
+        List<int[]> active = new ArrayList<>();
+        for (Map.Entry<User, Integer> entry : userIndex.entrySet()) {
+            if (entry.getKey() instanceof HDBManager) {
+                Integer pi = projectIndex.get(((HDBManager) entry.getKey()).getActiveProject());
+                if (pi != null) {
+                    active.add(new int[] {pi, entry.getValue()});
+                }
+            }
+        }
+        writePairs(out, active);
+    }
+
+    private static Project[] readProjects(MappedByteBuffer in, User[] users) {
+        int n = in.getInt();
+        String[] names = readStrings(in, n);
+        String[] neighborhoods = readStrings(in, n);
+        long[] opening = readLongs(in, n);
+        long[] closing = readLongs(in, n);
+        byte[] visible = new byte[n];
+        in.get(visible);
+        int[] managers = readInts(in, n);
+        int[] masks = readInts(in, n);
+        long[][] units = new long[FlatType.values().length][];
+        for (FlatType type : FlatType.values()) {
+            units[type.ordinal()] = readLongs(in, n);
+        }
+
+        Project[] result = new Project[n];
+        for (int i = 0; i < n; i++) {
+            List<FlatType> flatTypes = new ArrayList<>();
+            for (FlatType type : FlatType.values()) {
+                if ((masks[i] & (1 << type.ordinal())) != 0) {
+                    flatTypes.add(type);
+                }
+            }
+            Map<FlatType, Integer> counts = new EnumMap<>(FlatType.class);
+            for (FlatType type : flatTypes) {
+                counts.put(type, Project.unitCount(units[type.ordinal()][i]));
+            }
+            HDBManager manager = managers[i] < 0 ? null : (HDBManager) users[managers[i]];
+            result[i] = new Project(names[i], neighborhoods[i], flatTypes, counts,
+                    new Date(opening[i]), new Date(closing[i]), manager);
+            result[i].setVisibility(visible[i] != 0);
+            for (FlatType type : flatTypes) {
+                result[i].restoreUnits(type, units[type.ordinal()][i]);
+            }
+        }
+
+        int[][] officers = readPairs(in);
+        for (int[] pair : officers) {
+            result[pair[0]].addOfficer((HDBOfficer) users[pair[1]]);
+        }
+        int[][] pending = readPairs(in);
+        for (int[] pair : pending) {
+            result[pair[0]].addPendingOfficerRequest((HDBOfficer) users[pair[1]]);
+        }
+        int[][] applicants = readPairs(in);
+        for (int[] pair : applicants) {
+            result[pair[0]].addApplicant((Applicant) users[pair[1]]);
+        }
+        int[][] registrations = readPairs(in);
+        for (int[] pair : registrations) {
+            ((HDBOfficer) users[pair[1]]).addRegisteredProject(result[pair[0]]);
+        }
+        return result;
+    }
+
+    private static void readManagerActiveProjects(MappedByteBuffer in, User[] users, Project[] projects) {
+        for (int[] pair : readPairs(in)) {
+            ((HDBManager) users[pair[1]]).setActiveProject(projects[pair[0]]);
+        }
+    }
+
+    private static void writeApplications(DataOutputStream out, List<Project> projects, Map<User, Integer> userIndex,
+            Map<Project, Integer> projectIndex) throws IOException {
+        List<Application> all = new ArrayList<>();
+        for (Project p : projects) {
+            all.addAll(p.getApplications());
+        }
+        out.writeInt(all.size());
+        for (Application app : all) {
+            out.writeInt(app.getApplicationID());
+        }
+        for (Application app : all) {
+            out.writeInt(userIndex.get(app.getApplicant()));
+        }
+        for (Application app : all) {
+            out.writeInt(projectIndex.get(app.getProject()));
+        }
+        for (Application app : all) {
+            out.writeByte(app.getFlatTypeChosen().ordinal());
+        }
+        for (Application app : all) {
+            out.writeByte(app.getStatus().ordinal());
+        }
+        for (Application app : all) {
+            out.writeBoolean(app.getApplicant().getApplication() == app);
+        }
+    }
+
+    private static void readApplications(MappedByteBuffer in, User[] users, Project[] projects) {
+        int n = in.getInt();
+        int[] ids = readInts(in, n);
+        int[] applicants = readInts(in, n);
+        int[] projectRefs = readInts(in, n);
+        byte[] flatTypes = new byte[n];
+        in.get(flatTypes);
+        byte[] statuses = new byte[n];
+        in.get(statuses);
+        byte[] current = new byte[n];
+        in.get(current);
+
+        for (int i = 0; i < n; i++) {
+            Applicant applicant = (Applicant) users[applicants[i]];
+            Application app = new Application(ids[i], applicant, projects[projectRefs[i]],
+                    FlatType.values()[flatTypes[i]]);
+            app.updateStatus(ApplicationStatus.values()[statuses[i]]);
+            if (current[i] != 0) {
+                applicant.setApplication(app);
+            }
+        }
+    }
+
+    private static void writeEnquiries(DataOutputStream out, List<Project> projects, Map<User, Integer> userIndex,
+            Map<Project, Integer> projectIndex) throws IOException {
+        List<Enquiry> all = new ArrayList<>();
+        for (Project p : projects) {
+            all.addAll(p.getEnquiries());
+        }
+        int n = all.size();
+        out.writeInt(n);
+        for (Enquiry e : all) {
+            out.writeInt(e.getEnquiryID());
+        }
+        for (Enquiry e : all) {
+            out.writeInt(userIndex.get(e.getSubmittedBy()));
+        }
+        for (Enquiry e : all) {
+            out.writeInt(projectIndex.get(e.getRelatedProject()));
+        }
+        String[] contents = new String[n];
+        String[] replies = new String[n];
+        for (int i = 0; i < n; i++) {
+            contents[i] = all.get(i).getContent();
+            replies[i] = all.get(i).getReply();
+        }
+        writeStrings(out, contents);
+        writeStrings(out, replies);
+    }
+
+    private static void readEnquiries(MappedByteBuffer in, User[] users, Project[] projects) {
+        int n = in.getInt();
+        int[] ids = readInts(in, n);
+        int[] submitters = readInts(in, n);
+        int[] projectRefs = readInts(in, n);
+        String[] contents = readStrings(in, n);
+        String[] replies = readStrings(in, n);
+
+        for (int i = 0; i < n; i++) {
+            Enquiry e = new Enquiry(ids[i], contents[i], users[submitters[i]], projects[projectRefs[i]]);
+            if (replies[i] != null) {
+                e.setReply(replies[i]);
+            }
+            projects[projectRefs[i]].addEnquiry(e);
+        }
+    }
+
+    private static void writeMembership(DataOutputStream out, List<Project> projects, Map<User, Integer> userIndex,
+            Function<Project, List<? extends User>> members) throws IOException {
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < projects.size(); i++) {
+            for (User u : new ArrayList<>(members.apply(projects.get(i)))) {
+                Integer ui = userIndex.get(u);
+                if (ui != null) {
+                    pairs.add(new int[] {i, ui});
+                }
+            }
+        }
+        writePairs(out, pairs);
+    }
+
+    private static void writePairs(DataOutputStream out, List<int[]> pairs) throws IOException {
+        out.writeInt(pairs.size());
+        for (int[] pair : pairs) {
+            out.writeInt(pair[0]);
+        }
+        for (int[] pair : pairs) {
+            out.writeInt(pair[1]);
+        }
+    }
+
+    private static int[][] readPairs(MappedByteBuffer in) {
+        int n = in.getInt();
+        int[] first = readInts(in, n);
+        int[] second = readInts(in, n);
+        int[][] pairs = new int[n][];
+        for (int i = 0; i < n; i++) {
+            pairs[i] = new int[] {first[i], second[i]};
+        }
+        return pairs;
+    }
+
+    /**
+     * Writes a column of strings as an array of UTF-8 byte lengths followed by the
+     * concatenated bytes. A null string is written with length -1.
+     */
+    private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+        byte[][] encoded = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = values[i] == null ? null : values[i].getBytes(StandardCharsets.UTF_8);
+            out.writeInt(encoded[i] == null ? -1 : encoded[i].length);
+        }
+        for (byte[] bytes : encoded) {
+            if (bytes != null) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static String[] readStrings(MappedByteBuffer in, int n) {
+        int[] lengths = readInts(in, n);
+        String[] values = new String[n];
+        byte[] scratch = new byte[256];
+        for (int i = 0; i < n; i++) {
+            if (lengths[i] < 0) {
+                continue;
+            }
+            if (lengths[i] > scratch.length) {
+                scratch = new byte[lengths[i]];
+            }
+            in.get(scratch, 0, lengths[i]);
+            values[i] = new String(scratch, 0, lengths[i], StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static int[] readInts(MappedByteBuffer in, int n) {
+        int[] values = new int[n];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + n * Integer.BYTES);
+        return values;
+    }
+
+    private static long[] readLongs(MappedByteBuffer in, int n) {
+        long[] values = new long[n];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + n * Long.BYTES);
+        return values;
+    }
+}
@@ -1,5 +1,10 @@
 package BTO_System;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.regex.Pattern;
 
 /**
  * Represents the application status for BTO applications.
@@ -49,11 +54,20 @@ enum FlatType {
  * and basic interactions with projects and enquiries.
  */
 class User {
+    /** Format of a valid NRIC: S or T, seven digits, then a check letter */
+    private static final Pattern NRIC_PATTERN = Pattern.compile("[ST]\\d{7}[A-Z]");
+
     /** The National Registration Identity Card number of the user */
     private String nric;
     
-    /** The password for the user's account */
-    private String password;
+    /** The user's password in the stored form of {@link Credentials}, normally a salted hash */
+    private volatile String password;
+
+    private static final AtomicReferenceFieldUpdater<User, String> PASSWORD =
+            AtomicReferenceFieldUpdater.newUpdater(User.class, String.class, "password");
+
+    /** Counts password changes, so session tokens issued before a change stop working */
+    private final AtomicInteger credentialEpoch = new AtomicInteger();
     
     /** The age of the user */
     private int age;
@@ -65,35 +79,111 @@ class User {
      * Constructs a new User with the specified information.
      *
      * @param nric The NRIC number of the user
-     * @param password The password for the user's account
+     * @param password The password for the user's account in plain text. Hashing it here would make
+     *                 bulk imports and startup pay the full hashing cost per user, so it is kept marked
+     *                 as plain text in memory until {@link #sealPassword} hashes it
      * @param age The age of the user
      * @param maritalStatus The marital status of the user
      */
     public User(String nric, String password, int age, MaritalStatus maritalStatus) {
         this.nric = nric;
-        this.password = password;
+        this.password = Credentials.legacy(password);
         this.age = age;
         this.maritalStatus = maritalStatus;
     }
 
     /**
-     * Authenticates a user by checking the provided credentials.
+     * Checks whether a string is a correctly formatted NRIC.
+     *
+     * @param nric The NRIC to check
+     * @return true if the NRIC has a valid format, false otherwise
+     */
+    public static boolean isValidNric(String nric) {
+        return nric != null && NRIC_PATTERN.matcher(nric).matches();
+    }
+
+    /**
+     * Authenticates a user by checking the provided credentials. This hashes the password on the
+     * calling thread; sessions log in through {@link UserRegistry#login} so the work runs on the
+     * {@link LoginExecutor}. A password stored in plain text or with an outdated cost factor is
+     * re-hashed once it has been checked. Checking such a password is quicker than checking a
+     * full-cost hash, so a wrong password spends the difference on a dummy check, and the response
+     * time does not tell those accounts apart from the rest.
      *
      * @param nric The NRIC number to check
      * @param password The password to check
      * @return true if the credentials match, false otherwise
      */
     public boolean login(String nric, String password) {
-        return this.nric.equals(nric) && this.password.equals(password);
+        String stored = this.password;
+        boolean matches = this.nric.equals(nric) && Credentials.verify(password, stored);
+        if (Credentials.needsRehash(stored)) {
+            if (matches) {
+                setPasswordHash(Credentials.hash(password));
+            } else {
+                Credentials.verifyDummy();
+            }
+        }
+        return matches;
     }
 
     /**
-     * Changes the user's password to a new value.
+     * Changes the user's password to a new value. The new password is hashed on the {@link LoginExecutor}.
      *
      * @param newPassword The new password to set
+     * @return The outcome; fails if too many logins are waiting to be checked
+     */
+    public ActionResult changePassword(String newPassword) {
+        String hash;
+        try {
+            hash = LoginExecutor.SHARED.call(() -> Credentials.hash(newPassword));
+        } catch (RejectedExecutionException e) {
+            return ActionResult.fail("The system is busy. Please try again shortly.");
+        }
+        setPasswordHash(hash);
+        credentialEpoch.incrementAndGet();
+        return ActionResult.ok("Password changed successfully.");
+    }
+
+    /**
+     * Gets the number of times this user's password has been changed since startup.
+     * Session tokens remember it and are no longer accepted once it moves on.
+     *
+     * @return The credential epoch
      */
-    public void changePassword(String newPassword) {
-        this.password = newPassword;
+    int getCredentialEpoch() {
+        return credentialEpoch.get();
+    }
+
+    /**
+     * Restores a password recorded in the log or a snapshot. Older files hold plain-text passwords,
+     * which are kept marked as plain text until {@link #sealPassword} hashes them. Only trusted files
+     * may be restored from, as a stored hash is taken as it is.
+     *
+     * @param stored The stored password hash or plain-text password
+     */
+    void restorePassword(String stored) {
+        this.password = Credentials.isEncoded(stored) ? stored : Credentials.legacy(stored);
+    }
+
+    /**
+     * Hashes the password at the interim cost if it is still plain text, so that it can be written
+     * to a file. A hash set meanwhile by a login or password change is kept.
+     *
+     * @return The stored password, never plain text
+     */
+    String sealPassword() {
+        String stored = password;
+        if (!Credentials.isPlain(stored)) {
+            return stored;
+        }
+        String sealed = Credentials.seal(stored);
+        return PASSWORD.compareAndSet(this, stored, sealed) ? sealed : password;
+    }
+
+    private void setPasswordHash(String hash) {
+        this.password = hash;
+        WriteAheadLog.record(WriteAheadLog.RecordType.PASSWORD).putString(nric).putString(hash).commit();
     }
 
     /**
@@ -109,6 +199,22 @@ class User {
         }
     }
 
+    /**
+     * Displays one page of the visible projects to the console, in alphabetical order of name.
+     *
+     * @param catalog The catalog of projects to view
+     * @param cursor  The cursor returned with the previous page, or null for the first page
+     * @param size    The most projects to display
+     * @return The page displayed, whose cursor leads to the next page
+     */
+    public Page<Project> viewProjects(ProjectCatalog catalog, String cursor, int size) {
+        Page<Project> page = catalog.pageProjects(cursor, size, Project::isVisible);
+        for (Project project : page.getItems()) {
+            project.displayProjectDetails();
+        }
+        return page;
+    }
+
     /**
      * Submits a new enquiry to the system.
      *
@@ -145,6 +251,24 @@ class User {
         enquiries.removeIf(enquiry -> enquiry.getEnquiryID() == enquiryID);
     }
 
+    /**
+     * Finds every enquiry this user has submitted across the given projects.
+     *
+     * @param projects The projects to search
+     * @return List of this user's enquiries
+     */
+    public List<Enquiry> findMyEnquiries(List<Project> projects) {
+        List<Enquiry> mine = new ArrayList<>();
+        for (Project project : projects) {
+            for (Enquiry enquiry : project.getEnquiries()) {
+                if (enquiry.getSubmittedBy().equals(this)) {
+                    mine.add(enquiry);
+                }
+            }
+        }
+        return mine;
+    }
+
     /**
      * Displays all enquiries in the provided list to the console.
      *
@@ -0,0 +1,314 @@
+package BTO_System;
+
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Directory of all registered users keyed by NRIC.
+ * Lookups go through open-addressing hash tables so that login and
+ * "find applicant by NRIC" are constant time regardless of how many users exist.
+ * Separate per-role tables are kept so callers looking for an Applicant,
+ * HDBOfficer or HDBManager do not need to filter with instanceof.
+ * The registry is safe to share between concurrent sessions.
+ */
+class UserRegistry {
+    /** Guards the tables: lookups share the read lock, registrations take the write lock */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Table of every user regardless of role */
+    private final NricTable<User> allUsers = new NricTable<>();
+
+    /** Table of applicants, including HDB officers (who are also applicants) */
+    private final NricTable<Applicant> applicants = new NricTable<>();
+
+    /** Table of HDB officers */
+    private final NricTable<HDBOfficer> officers = new NricTable<>();
+
+    /** Table of HDB managers */
+    private final NricTable<HDBManager> managers = new NricTable<>();
+
+    /**
+     * Adds a user to the registry and to the table for its role.
+     * A user whose NRIC is already registered is not added again.
+     *
+     * @param user The user to add
+     * @return true if the user was added, false if the NRIC is already taken
+     */
+    public boolean add(User user) {
+        lock.writeLock().lock();
+        try {
+            if (!allUsers.put(user.getNric(), user)) {
+                return false;
+            }
+            if (user instanceof Applicant) {
+                applicants.put(user.getNric(), (Applicant) user);
+            }
+            if (user instanceof HDBOfficer) {
+                officers.put(user.getNric(), (HDBOfficer) user);
+            }
+            if (user instanceof HDBManager) {
+                managers.put(user.getNric(), (HDBManager) user);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Authenticates a user based on NRIC and password.
+     * The password is checked on the {@link LoginExecutor}. An unknown NRIC spends the effort of
+     * checking a password hashed at full cost, as does every registered account (see
+     * {@link User#login}), so the response time does not reveal which NRICs are registered.
+     *
+     * @param nric The NRIC identifier of the user
+     * @param password The password for authentication
+     * @return The authenticated User object if successful, null otherwise
+     * @throws RejectedExecutionException if too many logins are already waiting to be checked
+     */
+    public User login(String nric, String password) {
+        User user = find(nric);
+        return LoginExecutor.SHARED.call(() -> {
+            if (user == null) {
+                Credentials.verifyDummy();
+                return null;
+            }
+            return user.login(user.getNric(), password) ? user : null;
+        });
+    }
+
+    /**
+     * Finds a user of any role by NRIC.
+     *
+     * @param nric The NRIC to look up (case-insensitive)
+     * @return The matching user, or null if none is registered
+     */
+    public User find(String nric) {
+        lock.readLock().lock();
+        try {
+            return allUsers.get(nric);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds an applicant (or officer acting as an applicant) by NRIC.
+     *
+     * @param nric The NRIC to look up (case-insensitive)
+     * @return The matching applicant, or null if none is registered
+     */
+    public Applicant findApplicant(String nric) {
+        lock.readLock().lock();
+        try {
+            return applicants.get(nric);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds an HDB officer by NRIC.
+     *
+     * @param nric The NRIC to look up (case-insensitive)
+     * @return The matching officer, or null if none is registered
+     */
+    public HDBOfficer findOfficer(String nric) {
+        lock.readLock().lock();
+        try {
+            return officers.get(nric);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds an HDB manager by NRIC.
+     *
+     * @param nric The NRIC to look up (case-insensitive)
+     * @return The matching manager, or null if none is registered
+     */
+    public HDBManager findManager(String nric) {
+        lock.readLock().lock();
+        try {
+            return managers.get(nric);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets every registered user in registration order.
+     *
+     * @return Read-only copy of the list of all users
+     */
+    public List<User> getUsers() {
+        lock.readLock().lock();
+        try {
+            return allUsers.values();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets every registered applicant, including HDB officers, in registration order.
+     *
+     * @return Read-only copy of the list of applicants
+     */
+    public List<Applicant> getApplicants() {
+        lock.readLock().lock();
+        try {
+            return applicants.values();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets every registered HDB officer in registration order.
+     *
+     * @return Read-only copy of the list of officers
+     */
+    public List<HDBOfficer> getOfficers() {
+        lock.readLock().lock();
+        try {
+            return officers.values();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets every registered HDB manager in registration order.
+     *
+     * @return Read-only copy of the list of managers
+     */
+    public List<HDBManager> getManagers() {
+        lock.readLock().lock();
+        try {
+            return managers.values();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the total number of registered users.
+     *
+     * @return The number of users
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return allUsers.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Open-addressing (linear probing) hash table from NRIC to a value.
+     * Keys are stored upper-cased so that lookups are case-insensitive, and the
+     * hash of every key is cached in a primitive array so probing only
+     * compares strings when the hashes already match.
+     *
+     * @param <T> The type of user stored in the table
+     */
+    private static final class NricTable<T extends User> {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private String[] keys = new String[INITIAL_CAPACITY];
+        private int[] hashes = new int[INITIAL_CAPACITY];
+        private Object[] slots = new Object[INITIAL_CAPACITY];
+        private final List<T> ordered = new ArrayList<>();
+
+        /**
+         * Inserts a value if its key is not already present.
+         *
+         * @param nric The key
+         * @param value The value to store
+         * @return true if inserted, false if the key already exists
+         */
+        boolean put(String nric, T value) {
+            if ((ordered.size() + 1) * 2 > keys.length) {
+                resize();
+            }
+            String key = nric.toUpperCase();
+            int hash = mix(key.hashCode());
+            int mask = keys.length - 1;
+            int i = hash & mask;
+            while (keys[i] != null) {
+                if (hashes[i] == hash && keys[i].equals(key)) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            hashes[i] = hash;
+            slots[i] = value;
+            ordered.add(value);
+            return true;
+        }
+
+        /**
+         * Looks up the value stored for a key.
+         *
+         * @param nric The key
+         * @return The stored value, or null if absent
+         */
+        @SuppressWarnings("unchecked")
+        T get(String nric) {
+            if (nric == null) {
+                return null;
+            }
+            String key = nric.toUpperCase();
+            int hash = mix(key.hashCode());
+            int mask = keys.length - 1;
+            int i = hash & mask;
+            while (keys[i] != null) {
+                if (hashes[i] == hash && keys[i].equals(key)) {
+                    return (T) slots[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        List<T> values() {
+            return Collections.unmodifiableList(new ArrayList<>(ordered));
+        }
+
+        int size() {
+            return ordered.size();
+        }
+
+        private void resize() {
+            String[] oldKeys = keys;
+            int[] oldHashes = hashes;
+            Object[] oldSlots = slots;
+            keys = new String[oldKeys.length * 2];
+            hashes = new int[oldKeys.length * 2];
+            slots = new Object[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != null) {
+                    int i = oldHashes[j] & mask;
+                    while (keys[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    hashes[i] = oldHashes[j];
+                    slots[i] = oldSlots[j];
+                }
+            }
+        }
+
+        private static int mix(int h) {
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
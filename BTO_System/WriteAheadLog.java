@@ -0,0 +1,698 @@
+package BTO_System;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of every change made to the system's state.
+ * Each mutation is recorded as a compact binary record right after it is applied in memory,
+ * and the change does not return until its record is durable. A step of a larger operation,
+ * such as reserving a unit for an approval, may instead be deferred to the batch of the
+ * operation's own record. On startup the state is rebuilt by replaying the log on top of the
+ * seed data.
+ *
+ * <p>Records are made durable with group commit: concurrent writers append their
+ * records to a shared batch, and whichever writer finds no flush in progress writes
+ * and fsyncs the whole batch on behalf of everyone waiting, so many sessions share
+ * a single fsync instead of paying one each. Every writer in a batch shares its outcome:
+ * if the batch cannot be written, each of them gets the error. The failed bytes are cut off
+ * the segment again so later records are not hidden behind a torn one on replay; if even
+ * that fails, the log refuses all further records.</p>
+ *
+ * <p>Each record is stored as {@code [length][type][payload][crc32]}. A torn record
+ * at the end of the file (from a crash mid-write) is detected by its checksum and
+ * discarded during replay.</p>
+ *
+ * <p>The log is split into numbered segment files so that it can be compacted: a
+ * checkpoint rolls to a new segment, saves a {@link SnapshotStore snapshot}, then deletes
+ * the older segments. Records are written after the change is applied in memory and
+ * replaying a record is idempotent, so a record that is both captured by a snapshot and
+ * present in a later segment is harmless.</p>
+ */
+class WriteAheadLog implements Closeable {
+    /** The kinds of mutation recorded in the log */
+    enum RecordType {
+        APPLY, STATUS, FLAT_TYPE, UNITS,
+        ENQUIRY_ADD, ENQUIRY_CONTENT, ENQUIRY_REPLY, ENQUIRY_DELETE,
+        PASSWORD, PROJECT_CREATE, PROJECT_DELETE, VISIBILITY, MANAGER, ACTIVE_PROJECT,
+        OFFICER_REQUEST, OFFICER_REQUEST_REMOVE, OFFICER_ADD, OFFICER_REGISTERED, ID_LEASE, BALLOT
+    }
+
+    /** The log that mutations are currently recorded to, or null when logging is off */
+    private static volatile WriteAheadLog active;
+
+    /** Directory holding the log segment files */
+    private final Path directory;
+
+    /** Number of the segment currently being appended to */
+    private int segment;
+
+    /** Channel the current segment is appended through */
+    private FileChannel channel;
+
+    /** Records appended but not yet written to the file */
+    private Batch pending = new Batch();
+
+    /** Whether a writer is currently flushing a batch to disk */
+    private boolean flushing = false;
+
+    /** Why the log can no longer be appended to, or null while it can */
+    private IOException broken;
+
+    /**
+     * Records written and fsynced together. Every writer whose record is in the batch waits
+     * on it and shares its outcome.
+     */
+    private static final class Batch {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        /** Whether the batch has been written, or has failed */
+        boolean done;
+
+        /** Why the batch could not be written, or null if it was */
+        IOException failure;
+    }
+
+    /**
+     * Opens the newest segment in a log directory for appending, creating it if necessary.
+     *
+     * @param directory The log directory
+     * @throws IOException if the segment cannot be opened
+     */
+    private WriteAheadLog(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        List<Integer> segments = listSegments(directory);
+        this.directory = directory;
+        this.segment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1);
+        this.channel = openSegment(directory, segment);
+    }
+
+    /**
+     * Starts recording all further mutations to the given log directory.
+     * Call this after {@link #replay} so that replayed changes are not logged a second time.
+     *
+     * @param directory The log directory
+     * @throws IOException if the log cannot be opened
+     */
+    public static synchronized void open(Path directory) throws IOException {
+        if (active != null) {
+            active.close();
+        }
+        active = new WriteAheadLog(directory);
+    }
+
+    /**
+     * Finishes the current segment and starts appending to a new one.
+     * Everything already appended is made durable in the old segment first.
+     *
+     * @return The number of the new segment, or -1 if no log is open
+     * @throws IOException if the segments cannot be written or created
+     */
+    public static int roll() throws IOException {
+        WriteAheadLog log = active;
+        if (log == null) {
+            return -1;
+        }
+        synchronized (log) {
+            while (log.flushing) {
+                try {
+                    log.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while rolling the log");
+                }
+            }
+            if (log.broken != null) {
+                throw new IOException("The write-ahead log is unusable after a failed write", log.broken);
+            }
+            Batch batch = log.pending;
+            log.pending = new Batch();
+            IOException failure = log.write(log.channel, batch);
+            batch.done = true;
+            batch.failure = failure;
+            log.notifyAll();
+            if (failure != null) {
+                throw failure;
+            }
+            log.channel.close();
+            log.segment++;
+            log.channel = openSegment(log.directory, log.segment);
+            log.notifyAll();
+            return log.segment;
+        }
+    }
+
+    /**
+     * Deletes every segment numbered below the given one.
+     * Called once a snapshot covering those segments has been saved.
+     *
+     * @param directory The log directory
+     * @param segment The oldest segment to keep
+     * @throws IOException if a segment cannot be deleted
+     */
+    public static void deleteSegmentsBefore(Path directory, int segment) throws IOException {
+        for (int s : listSegments(directory)) {
+            if (s < segment) {
+                Files.deleteIfExists(segmentPath(directory, s));
+            }
+        }
+    }
+
+    /**
+     * Checks whether mutations are currently being logged.
+     *
+     * @return true if a log is open
+     */
+    public static boolean isEnabled() {
+        return active != null;
+    }
+
+    /**
+     * Stops logging and closes the log file.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (WriteAheadLog.class) {
+            if (active == this) {
+                active = null;
+            }
+        }
+        synchronized (this) {
+            while (flushing) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while closing the log");
+                }
+            }
+            // Deferred records may still be waiting for a commit
+            Batch batch = pending;
+            pending = new Batch();
+            IOException failure = broken == null && batch.bytes.size() > 0 ? write(channel, batch) : broken;
+            batch.done = true;
+            batch.failure = failure;
+            notifyAll();
+            channel.close();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private static Path segmentPath(Path directory, int segment) {
+        return directory.resolve(String.format("%08d.wal", segment));
+    }
+
+    private static FileChannel openSegment(Path directory, int segment) throws IOException {
+        return FileChannel.open(segmentPath(directory, segment), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static List<Integer> listSegments(Path directory) throws IOException {
+        List<Integer> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.wal")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(Integer.parseInt(name.substring(0, name.length() - 4)));
+                } catch (NumberFormatException e) {
+                    // not a segment file
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Starts building a record of the given type.
+     *
+     * @param type The kind of mutation being recorded
+     * @return A record builder; call {@link Record#commit()} once all fields are written
+     */
+    static Record record(RecordType type) {
+        return new Record(type);
+    }
+
+    /**
+     * Records the creation of a project with all of its initial details.
+     *
+     * @param project The newly created project
+     */
+    static void logProjectCreated(Project project) {
+        Record record = record(RecordType.PROJECT_CREATE)
+                .putString(project.getProjectName())
+                .putString(project.getNeighborhood())
+                .putInt(project.getFlatTypes().size());
+        Map<FlatType, Integer> units = project.getUnitsAvailable();
+        for (FlatType type : project.getFlatTypes()) {
+            record.putEnum(type).putInt(units.getOrDefault(type, 0));
+        }
+        HDBManager manager = project.getManagerInCharge();
+        record.putLong(project.getOpeningDate().getTime())
+                .putLong(project.getClosingDate().getTime())
+                .putString(manager == null ? "" : manager.getNric())
+                .commit();
+    }
+
+    /**
+     * Appends an encoded record, and blocks until it is durable if asked to.
+     *
+     * @param body The record type and payload bytes
+     * @param wait Whether to wait for the record to reach the disk
+     */
+    private void append(byte[] body, boolean wait) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        Batch batch;
+        synchronized (this) {
+            if (broken != null) {
+                throw new UncheckedIOException("The write-ahead log is unusable after a failed write", broken);
+            }
+            DataOutputStream out = new DataOutputStream(pending.bytes);
+            try {
+                out.writeInt(body.length);
+                out.write(body);
+                out.writeInt((int) crc.getValue());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            batch = pending;
+        }
+        if (wait) {
+            awaitDurable(batch);
+        }
+    }
+
+    /**
+     * Waits until a batch has been written, flushing the pending batch itself if no other
+     * writer is doing so.
+     *
+     * @param mine The batch holding the caller's record
+     * @throws UncheckedIOException if the batch could not be written
+     */
+    private void awaitDurable(Batch mine) {
+        while (true) {
+            Batch batch;
+            FileChannel target;
+            synchronized (this) {
+                while (flushing && !mine.done) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for log flush", e);
+                    }
+                }
+                if (mine.done) {
+                    if (mine.failure != null) {
+                        throw new UncheckedIOException("Could not write to the write-ahead log", mine.failure);
+                    }
+                    return;
+                }
+                // With no flush running, the caller's batch is still the pending one
+                flushing = true;
+                batch = pending;
+                pending = new Batch();
+                target = channel;
+            }
+
+            IOException failure = new IOException("The batch was abandoned mid-write");
+            try {
+                failure = write(target, batch);
+            } finally {
+                synchronized (this) {
+                    batch.done = true;
+                    batch.failure = failure;
+                    flushing = false;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a batch to the end of a segment and fsyncs it. If that fails, whatever part of the
+     * batch reached the file is cut off again; if even that fails, the log is marked broken.
+     *
+     * @param target The segment to write to
+     * @param batch  The batch to write
+     * @return Why the batch could not be written, or null if it is durable
+     */
+    private IOException write(FileChannel target, Batch batch) {
+        long start = -1;
+        try {
+            start = target.size();
+            ByteBuffer buffer = ByteBuffer.wrap(batch.bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            target.force(false);
+            return null;
+        } catch (IOException e) {
+            if (start >= 0) {
+                try {
+                    target.truncate(start);
+                    target.force(false);
+                } catch (IOException cut) {
+                    e.addSuppressed(cut);
+                    synchronized (this) {
+                        broken = e;
+                    }
+                }
+            }
+            return e;
+        }
+    }
+
+    /**
+     * Rebuilds state by applying every intact record in the log, oldest segment first.
+     * A torn or corrupt record at the end of a segment is truncated away.
+     *
+     * @param directory The log directory; nothing happens if it does not exist
+     * @param fromSegment The first segment to replay; older segments are already reflected in the state
+     * @param users The user registry to apply changes to
+     * @param projects The project list to apply changes to
+     * @return The number of records replayed
+     * @throws IOException if a segment cannot be read
+     */
+    public static int replay(Path directory, int fromSegment, UserRegistry users, List<Project> projects) throws IOException {
+        Replayer replayer = new Replayer(users, projects);
+        int count = 0;
+        for (int segment : listSegments(directory)) {
+            if (segment >= fromSegment) {
+                count += replaySegment(segmentPath(directory, segment), replayer);
+            }
+        }
+        return count;
+    }
+
+    private static int replaySegment(Path path, Replayer replayer) throws IOException {
+        int count = 0;
+        long goodLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                byte[] body;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0) {
+                        break;
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                    int checksum = in.readInt();
+                    CRC32 crc = new CRC32();
+                    crc.update(body);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                replayer.apply(new DataInputStream(new ByteArrayInputStream(body)));
+                goodLength += 8 + body.length;
+                count++;
+            }
+        }
+        if (goodLength < Files.size(path)) {
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                ch.truncate(goodLength);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Builder for a single log record.
+     * When no log is open the builder discards everything, so callers need not check.
+     */
+    static final class Record {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final boolean enabled = active != null;
+
+        private Record(RecordType type) {
+            if (enabled) {
+                bytes.write(type.ordinal());
+            }
+        }
+
+        Record putInt(int value) {
+            try {
+                if (enabled) out.writeInt(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        Record putLong(long value) {
+            try {
+                if (enabled) out.writeLong(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        Record putBoolean(boolean value) {
+            try {
+                if (enabled) out.writeBoolean(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        Record putString(String value) {
+            try {
+                if (enabled) out.writeUTF(value == null ? "" : value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        Record putEnum(Enum<?> value) {
+            return putInt(value == null ? -1 : value.ordinal());
+        }
+
+        /**
+         * Writes the record to the log and waits until it is durable.
+         */
+        void commit() {
+            WriteAheadLog log = active;
+            if (enabled && log != null) {
+                log.append(bytes.toByteArray(), true);
+            }
+        }
+
+        /**
+         * Adds the record to the log's pending batch without waiting. It reaches the disk with the
+         * next batch any writer commits, so a step of a larger operation can be logged this way and
+         * made durable by the operation's own record, which is committed after it.
+         */
+        void commitDeferred() {
+            WriteAheadLog log = active;
+            if (enabled && log != null) {
+                log.append(bytes.toByteArray(), false);
+            }
+        }
+    }
+
+    /**
+     * Applies decoded log records to the in-memory state.
+     */
+    private static final class Replayer {
+        private final UserRegistry users;
+        private final List<Project> projects;
+        private final Map<Integer, Application> applications = new HashMap<>();
+        private final Map<Integer, Enquiry> enquiries = new HashMap<>();
+
+        Replayer(UserRegistry users, List<Project> projects) {
+            this.users = users;
+            this.projects = projects;
+            for (Project p : projects) {
+                for (Application app : p.getApplications()) {
+                    applications.put(app.getApplicationID(), app);
+                }
+                for (Enquiry e : p.getEnquiries()) {
+                    enquiries.put(e.getEnquiryID(), e);
+                }
+            }
+        }
+
+        private Project project(String name) {
+            for (Project p : projects) {
+                if (p.getProjectName().equals(name)) {
+                    return p;
+                }
+            }
+            return null;
+        }
+
+        void apply(DataInputStream in) throws IOException {
+            RecordType type = RecordType.values()[in.readUnsignedByte()];
+            switch (type) {
+                case APPLY: {
+                    int id = in.readInt();
+                    Applicant applicant = users.findApplicant(in.readUTF());
+                    Project project = project(in.readUTF());
+                    FlatType flatType = FlatType.values()[in.readInt()];
+                    if (applicant != null && project != null && !applications.containsKey(id)) {
+                        Application app = new Application(id, applicant, project, flatType);
+                        applicant.setApplication(app);
+                        project.addApplicant(applicant);
+                        applications.put(id, app);
+                    }
+                    break;
+                }
+                case STATUS: {
+                    Application app = applications.get(in.readInt());
+                    ApplicationStatus status = ApplicationStatus.values()[in.readInt()];
+                    if (app != null) app.updateStatus(status);
+                    break;
+                }
+                case FLAT_TYPE: {
+                    Application app = applications.get(in.readInt());
+                    FlatType flatType = FlatType.values()[in.readInt()];
+                    if (app != null) app.setFlatTypeChosen(flatType);
+                    break;
+                }
+                case UNITS: {
+                    Project project = project(in.readUTF());
+                    FlatType flatType = FlatType.values()[in.readInt()];
+                    long state = in.readLong();
+                    if (project != null) project.restoreUnits(flatType, state);
+                    break;
+                }
+                case ENQUIRY_ADD: {
+                    int id = in.readInt();
+                    User user = users.find(in.readUTF());
+                    Project project = project(in.readUTF());
+                    String content = in.readUTF();
+                    if (user != null && project != null && !enquiries.containsKey(id)) {
+                        Enquiry e = new Enquiry(id, content, user, project);
+                        project.addEnquiry(e);
+                        enquiries.put(id, e);
+                    }
+                    break;
+                }
+                case ENQUIRY_CONTENT: {
+                    Enquiry e = enquiries.get(in.readInt());
+                    String content = in.readUTF();
+                    if (e != null) e.setContent(content);
+                    break;
+                }
+                case ENQUIRY_REPLY: {
+                    Enquiry e = enquiries.get(in.readInt());
+                    String reply = in.readUTF();
+                    if (e != null) e.setReply(reply);
+                    break;
+                }
+                case ENQUIRY_DELETE: {
+                    Enquiry e = enquiries.remove(in.readInt());
+                    if (e != null) e.getRelatedProject().removeEnquiry(e);
+                    break;
+                }
+                case PASSWORD: {
+                    User user = users.find(in.readUTF());
+                    String password = in.readUTF();
+                    if (user != null) user.restorePassword(password);
+                    break;
+                }
+                case PROJECT_CREATE: {
+                    String name = in.readUTF();
+                    String neighborhood = in.readUTF();
+                    int typeCount = in.readInt();
+                    List<FlatType> flatTypes = new ArrayList<>();
+                    Map<FlatType, Integer> units = new HashMap<>();
+                    for (int i = 0; i < typeCount; i++) {
+                        FlatType flatType = FlatType.values()[in.readInt()];
+                        flatTypes.add(flatType);
+                        units.put(flatType, in.readInt());
+                    }
+                    Date open = new Date(in.readLong());
+                    Date close = new Date(in.readLong());
+                    HDBManager manager = users.findManager(in.readUTF());
+                    if (project(name) == null) {
+                        projects.add(new Project(name, neighborhood, flatTypes, units, open, close, manager));
+                    }
+                    break;
+                }
+                case PROJECT_DELETE: {
+                    Project project = project(in.readUTF());
+                    if (project != null) projects.remove(project);
+                    break;
+                }
+                case VISIBILITY: {
+                    Project project = project(in.readUTF());
+                    boolean visible = in.readBoolean();
+                    if (project != null) project.setVisibility(visible);
+                    break;
+                }
+                case MANAGER: {
+                    Project project = project(in.readUTF());
+                    HDBManager manager = users.findManager(in.readUTF());
+                    if (project != null) project.setManagerInCharge(manager);
+                    break;
+                }
+                case ACTIVE_PROJECT: {
+                    HDBManager manager = users.findManager(in.readUTF());
+                    Project project = project(in.readUTF());
+                    if (manager != null) manager.setActiveProject(project);
+                    break;
+                }
+                case OFFICER_REQUEST: {
+                    Project project = project(in.readUTF());
+                    HDBOfficer officer = users.findOfficer(in.readUTF());
+                    if (project != null && officer != null) project.addPendingOfficerRequest(officer);
+                    break;
+                }
+                case OFFICER_REQUEST_REMOVE: {
+                    Project project = project(in.readUTF());
+                    HDBOfficer officer = users.findOfficer(in.readUTF());
+                    if (project != null && officer != null) project.removePendingOfficerRequest(officer);
+                    break;
+                }
+                case OFFICER_ADD: {
+                    Project project = project(in.readUTF());
+                    HDBOfficer officer = users.findOfficer(in.readUTF());
+                    if (project != null && officer != null && !project.getOfficersList().contains(officer)) {
+                        project.addOfficer(officer);
+                    }
+                    break;
+                }
+                case OFFICER_REGISTERED: {
+                    HDBOfficer officer = users.findOfficer(in.readUTF());
+                    Project project = project(in.readUTF());
+                    if (project != null && officer != null && !officer.getRegisteredProjects().contains(project)) {
+                        officer.addRegisteredProject(project);
+                    }
+                    break;
+                }
+                case ID_LEASE: {
+                    IdAllocator allocator = IdAllocator.forName(in.readUTF());
+                    int highWater = in.readInt();
+                    if (allocator != null) allocator.ensureNext(highWater);
+                    break;
+                }
+                case BALLOT: {
+                    in.readUTF();
+                    BallotEngine.replay(in, applications);
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+    }
+}
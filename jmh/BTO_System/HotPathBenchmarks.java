@@ -0,0 +1,252 @@
+package BTO_System;
+
+import org.openjdk.jmh.annotations.*;
+// Named, so that it rather than this package's own Benchmark harness is meant by @Benchmark
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntToLongFunction;
+
+/**
+ * The cases of {@link BTO_System.Benchmark} run under JMH, over the same synthetic datasets.
+ *
+ * <p>Each method is named after the case it runs and does nothing but call that case's operation,
+ * so the two harnesses always measure the same code. The dataset is built once per size and the
+ * operation once per run; cases that {@link BTO_System.Benchmark} runs on several threads run on
+ * as many here. Run them with {@code gradle jmh}, passing JMH options such as {@code -p users=1000000}
+ * or a name filter with {@code -PjmhArgs="..."}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotPathBenchmarks {
+    /** Number of users in the dataset */
+    @Param({"1000", "10000", "100000"})
+    public int users;
+
+    private IntToLongFunction op;
+    private PrintStream console;
+
+    /**
+     * The iteration number of one benchmark thread. Threads start far apart, as in
+     * {@link BTO_System.Benchmark#measureParallel}, so they do not work on the same items in step.
+     */
+    @State(Scope.Thread)
+    public static class Iteration {
+        private static final AtomicInteger NEXT_OFFSET = new AtomicInteger();
+
+        int i;
+
+        @Setup(Level.Trial)
+        public void start() {
+            i = NEXT_OFFSET.getAndAdd(1 << 20);
+        }
+    }
+
+    /**
+     * Builds the dataset and the operation of the case about to run.
+     *
+     * @param params The parameters of the run, naming the method being run
+     */
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) {
+        String method = params.getBenchmark();
+        op = BTO_System.Benchmark.operation(method.substring(method.lastIndexOf('.') + 1),
+                new BTO_System.Benchmark.Dataset(users));
+        // Some cases print, as the sessions they stand in for do; JMH reports through its own channel
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    private long run(Iteration iteration) {
+        return op.applyAsLong(iteration.i++);
+    }
+
+    @Benchmark
+    public long login(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long login8Threads(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long sessionResume(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long sessionResume8Threads(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long filterProjectList(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long eligibleProjects(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long eligibleProjects8Threads(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long catalogVisibilityToggle(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long findProjectByNameAndManager(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long projectNameComplete(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long approvalScan(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long myEnquiries(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long enquirySearch(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long enquiryClaim(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long enquiryClaim8Threads(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long generateReceipt(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long idAllocate(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long idAllocate64Threads(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long renderReceipt(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long listEnquiriesPrintln(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long listEnquiriesRendered(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long listProjectsPrintln(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long listProjectsRendered(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long eventPublish(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long eventPublish8Threads(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long ballotDraw(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long reportAllProjects(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long reportAllProjectsConsistent(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long projectPage(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long eligiblePage(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long applicationPage(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long oversubscriptionScan(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long oversubscriptionRatio(Iteration iteration) {
+        return run(iteration);
+    }
+
+    @Benchmark
+    public long dateOverlapCheck(Iteration iteration) {
+        return run(iteration);
+    }
+}